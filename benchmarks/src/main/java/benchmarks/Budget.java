@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Performance budgets for the scaling benchmark, read from a CSV file
+ * with a header row and then one row per scenario:
+ * <pre>
+ *     Scenario,Min steps per second,Max bytes per step,Max peak heap MB
+ *     GRID-1000-0.5,20,,2048
+ * </pre>
+ * An empty cell leaves that measurement unchecked and lines starting
+ * with # are ignored. A scenario without a row fails the check, so a
+ * sweep cannot grow past the budget file unnoticed.
+ */
+class Budget {
+
+    private final Map<String, double[]> limits = new HashMap<>();
+
+    static Budget read(Path file) throws IOException {
+        Budget budget = new Budget();
+        List<String> lines = Files.readAllLines(file);
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) { continue; }
+            String[] cells = line.split(",", -1);
+            if (cells.length != 4)
+                throw new IllegalArgumentException("Budget line " + (i + 1) + " should have 4 cells.");
+            double[] limit = new double[3];
+            for (int c = 0; c < 3; c++) {
+                String cell = cells[c + 1].trim();
+                limit[c] = cell.isEmpty() ? Double.NaN : Double.parseDouble(cell);
+            }
+            budget.limits.put(cells[0].trim(), limit);
+        }
+        return budget;
+    }
+
+    /**
+     * @return a description of each way the results went over budget
+     */
+    List<String> check(List<ScalingBenchmark.Result> results) {
+        List<String> failures = new ArrayList<>();
+        for (ScalingBenchmark.Result r : results) {
+            double[] limit = limits.get(r.scenario);
+            if (limit == null) {
+                failures.add(r.scenario + " has no budget");
+                continue;
+            }
+            if (!Double.isNaN(limit[0]) && r.stepsPerSecond < limit[0]) {
+                failures.add(r.scenario + " ran at " + String.format("%.2f", r.stepsPerSecond)
+                        + " steps per second, below " + limit[0]);
+            }
+            if (!Double.isNaN(limit[1]) && r.bytesPerStep > limit[1]) {
+                failures.add(r.scenario + " allocated " + String.format("%.0f", r.bytesPerStep)
+                        + " bytes per step, above " + limit[1]);
+            }
+            if (!Double.isNaN(limit[2]) && r.peakHeapMb > limit[2]) {
+                failures.add(r.scenario + " peaked at " + String.format("%.1f", r.peakHeapMb)
+                        + " MB of heap, above " + limit[2]);
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import io.CSVWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a simulation record of the given number of steps to CSV.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    List<String[]> lines;
+    Path dir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        lines = new ArrayList<>(rows + 3);
+        lines.add(new String[] {"Seed", "Agent Probability", "Field type"});
+        lines.add(new String[] {"999", "0.5", "Grid"});
+        lines.add(new String[] {"Susceptible", "Infected", "Recovered"});
+        for (int i = 0; i < rows; i++) {
+            lines.add(new String[] {String.valueOf(rows - i), String.valueOf(i % 97), String.valueOf(i)});
+        }
+        dir = Files.createTempDirectory("csv-bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dir.resolve("record.csv"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public void writeCSV() throws IOException {
+        CSVWriter.writeCSV(lines, dir.resolve("record").toString());
+    }
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import actors.Agent;
+import data.SimData;
+import disease.DiseaseSpreadController;
+import environment.FieldStats;
+import environment.Grid;
+import models.Compartment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One step's worth of the per-agent work on a grid where a fraction of
+ * the agents start out infected. getNewlyInfected and getClassCount
+ * only read the field, so it is built once per trial. act moves agents
+ * and advances their disease, so it runs on its own field, rebuilt
+ * before every invocation, and times the first ACT_STEPS steps of the
+ * outbreak, reported per step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiseaseBenchmark {
+
+    @Param({"100", "500"})
+    int size;
+
+    @Param({"0.1", "0.5", "0.9"})
+    double density;
+
+    @Param({"0.05"})
+    double infected;
+
+    Grid grid;
+    List<Agent> agents;
+    List<Agent> contacts;
+    List<Class<?>> classes;
+    FieldStats stats;
+
+    static final int ACT_STEPS = 5;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        FieldState.configure(size, density);
+        SimData.setAgentZeroProbability(infected);
+        grid = new Grid(size, size);
+        grid.initialise();
+        agents = grid.getAllOf(Agent.class);
+        contacts = DiseaseSpreadController.getInfectedContacts(agents, grid);
+        classes = new ArrayList<>();
+        for (Compartment c : Compartment.values()) {
+            classes.add(c.getState().getClass());
+        }
+        stats = new FieldStats();
+    }
+
+    @Benchmark
+    public List<Agent> getNewlyInfected() {
+        return DiseaseSpreadController.getNewlyInfected(contacts, grid);
+    }
+
+    /**
+     * A fresh field for act, at the same stage of the outbreak every time.
+     */
+    @State(Scope.Thread)
+    public static class Outbreak {
+        Grid grid;
+        List<Agent> agents;
+
+        @Setup(Level.Invocation)
+        public void setup(DiseaseBenchmark b) {
+            FieldState.configure(b.size, b.density);
+            SimData.setAgentZeroProbability(b.infected);
+            grid = new Grid(b.size, b.size);
+            grid.initialise();
+            agents = grid.getAllOf(Agent.class);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACT_STEPS)
+    public void act(Outbreak o) {
+        for (int step = 0; step < ACT_STEPS; step++) {
+            for (Agent ag : o.agents) {
+                ag.act(o.grid);
+            }
+        }
+    }
+
+    @Benchmark
+    public String[] getClassCount() {
+        return stats.getClassCount(grid, classes);
+    }
+}
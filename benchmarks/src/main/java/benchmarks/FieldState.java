@@ -0,0 +1,44 @@
+package benchmarks;
+
+import actors.Agent;
+import data.SimData;
+import environment.Location;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Settings shared by the field benchmarks.
+ */
+final class FieldState {
+
+    // locations visited per operation, so the cost of one is averaged over many cells
+    static final int SAMPLES = 1024;
+
+    private FieldState() {}
+
+    static void configure(int size, double density) {
+        SimData.setSeed(999);
+        SimData.setDepth(size);
+        SimData.setWidth(size);
+        SimData.setAgentProbability(density);
+    }
+
+    static Location[] sampleLocations(int rows, int cols, long seed) {
+        Random rand = new Random(seed);
+        Location[] sample = new Location[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sample[i] = new Location(rand.nextInt(rows), rand.nextInt(cols));
+        }
+        return sample;
+    }
+
+    static Location[] agentLocations(List<Agent> agents, long seed) {
+        Random rand = new Random(seed);
+        Location[] sample = new Location[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sample[i] = agents.get(rand.nextInt(agents.size())).getLocation();
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import actors.Agent;
+import environment.Grid;
+import environment.Location;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Neighbourhood queries on a populated grid. Each operation queries
+ * FieldState.SAMPLES cells chosen at random.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GridBenchmark {
+
+    @Param({"100", "1000"})
+    int size;
+
+    @Param({"0.1", "0.5", "0.9"})
+    double density;
+
+    Grid grid;
+    Location[] sample;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        FieldState.configure(size, density);
+        grid = new Grid(size, size);
+        grid.initialise();
+        sample = FieldState.sampleLocations(size, size, 42);
+    }
+
+    @Benchmark
+    public void getAllNeighbours(Blackhole bh) {
+        for (Location l : sample) {
+            bh.consume(grid.getAllNeighbours(l, Agent.class));
+        }
+    }
+
+    @Benchmark
+    public void freeAdjacentLocation(Blackhole bh) {
+        for (Location l : sample) {
+            bh.consume(grid.freeAdjacentLocation(l));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import actors.Agent;
+import data.SimData;
+import environment.FieldType;
+import environment.Location;
+import environment.MobileNetwork;
+import environment.NetworkType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Free-neighbour queries on each kind of network, from the locations of
+ * FieldState.SAMPLES randomly chosen agents.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NetworkBenchmark {
+
+    @Param({"100", "1000"})
+    int size;
+
+    @Param({"0.1", "0.5", "0.9"})
+    double density;
+
+    @Param({"FREESCALE", "SMALLWORLD", "RANDOM", "RING"})
+    NetworkType networkType;
+
+    MobileNetwork network;
+    Location[] sample;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        FieldState.configure(size, density);
+        SimData.setFieldType(FieldType.NETWORK);
+        SimData.setNetworkType(networkType);
+        network = new MobileNetwork();
+        network.initialise();
+        sample = FieldState.agentLocations(network.getAllOf(Agent.class), 42);
+    }
+
+    @Benchmark
+    public void getAllFreeAdjacentLocations(Blackhole bh) {
+        for (Location l : sample) {
+            bh.consume(network.getAllFreeAdjacentLocations(l));
+        }
+    }
+}
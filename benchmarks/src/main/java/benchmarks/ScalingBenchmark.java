@@ -0,0 +1,215 @@
+package benchmarks;
+
+import data.SimConfig;
+import data.SimData;
+import environment.FieldType;
+import environment.NetworkType;
+import io.CSVWriter;
+import main.Simulator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end scaling benchmark. Runs complete headless simulations over
+ * a sweep of field sizes, agent probabilities and field types, and for
+ * each scenario records steps per second, peak heap, bytes allocated per
+ * step and the step at which the infection died out.
+ *
+ * Results are written as CSV, one row per scenario. Given a budget file,
+ * every scenario is checked against its budget and the process exits
+ * with status 1 if any has regressed past it, which fails the build in
+ * the scaling profile of benchmarks/pom.xml.
+ *
+ * Options, each followed by a value:
+ * <pre>
+ *     --sizes          cells along each side of a grid, e.g. 100,1000,10000
+ *     --probabilities  agent probabilities, e.g. 0.05,0.5,0.9
+ *     --fields         GRID, or a network type such as FREESCALE
+ *     --steps          the most steps to run each simulation for
+ *     --seed           the seed of every run
+ *     --out            the results file to write
+ *     --budget         the budget file to check the results against
+ * </pre>
+ */
+public class ScalingBenchmark {
+
+    static final String[] COLUMNS = {"Scenario", "Field", "Size", "Agent Probability", "Agents", "Steps",
+            "Setup ms", "Steps per second", "Peak heap MB", "Bytes per step", "Extinction step"};
+
+    /**
+     * The measurements of one scenario.
+     */
+    static class Result {
+        String scenario;
+        String field;
+        int size;
+        double probability;
+        int agents;
+        int steps;
+        long setupMillis;
+        double stepsPerSecond;
+        double peakHeapMb;
+        double bytesPerStep;
+        // -1 if the infection was still going after the last step
+        int extinctionStep;
+
+        String[] toRow() {
+            return new String[] {scenario, field, String.valueOf(size), String.valueOf(probability),
+                    String.valueOf(agents), String.valueOf(steps), String.valueOf(setupMillis),
+                    String.format("%.2f", stepsPerSecond), String.format("%.1f", peakHeapMb),
+                    String.format("%.0f", bytesPerStep), String.valueOf(extinctionStep)};
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--"))
+                throw new IllegalArgumentException("Expected an option but got " + args[i] + ".");
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        int[] sizes = parseInts(options.getOrDefault("sizes", "100,316,1000,3162,10000"));
+        double[] probabilities = parseDoubles(options.getOrDefault("probabilities", "0.05,0.25,0.5,0.9"));
+        String[] fields = options.getOrDefault("fields", "GRID,FREESCALE,SMALLWORLD").split(",");
+        int steps = Integer.parseInt(options.getOrDefault("steps", "200"));
+        int seed = Integer.parseInt(options.getOrDefault("seed", "999"));
+        Path out = Path.of(options.getOrDefault("out", "scaling-results.csv"));
+
+        List<String[]> lines = new ArrayList<>();
+        lines.add(COLUMNS);
+        List<Result> results = new ArrayList<>();
+        for (String field : fields) {
+            for (int size : sizes) {
+                for (double p : probabilities) {
+                    Result r = run(field, size, p, steps, seed);
+                    results.add(r);
+                    lines.add(r.toRow());
+                    System.out.println(String.join(",", r.toRow()));
+                }
+            }
+        }
+        String name = out.getFileName().toString();
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        CSVWriter.writeCSV(lines, out.resolveSibling(name.endsWith(".csv")
+                ? name.substring(0, name.length() - 4) : name).toString());
+
+        if (options.containsKey("budget")) {
+            List<String> failures = Budget.read(Path.of(options.get("budget"))).check(results);
+            for (String f : failures) {
+                System.out.println("Over budget: " + f);
+            }
+            if (!failures.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Run one scenario in a configuration of its own.
+     * @param field GRID, or the network type of a network
+     */
+    static Result run(String field, int size, double probability, int maxSteps, int seed) {
+        SimConfig config = new SimConfig();
+        config.setSeed(seed);
+        config.setDepth(size);
+        config.setWidth(size);
+        config.setAgentProbability(probability);
+        if (field.equals(FieldType.GRID.name())) {
+            config.setFieldType(FieldType.GRID);
+        }
+        else {
+            config.setFieldType(FieldType.NETWORK);
+            config.setNetworkType(NetworkType.valueOf(field));
+        }
+        return SimData.runWith(config, () -> {
+            Result r = new Result();
+            r.scenario = field + "-" + size + "-" + probability;
+            r.field = field;
+            r.size = size;
+            r.probability = probability;
+
+            System.gc();
+            resetPeakHeap();
+            long start = System.nanoTime();
+            Simulator sim = new Simulator.SimulationBuilder()
+                    .setDepth(size)
+                    .setWidth(size)
+                    .setField(config.getFieldType())
+                    .setHeadless(true)
+                    .build();
+            r.setupMillis = (System.nanoTime() - start) / 1_000_000;
+            r.agents = sum(sim.getCounts());
+
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long thread = Thread.currentThread().getId();
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            start = System.nanoTime();
+            sim.simulate(maxSteps);
+            long elapsed = System.nanoTime() - start;
+            long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+            r.steps = sim.getStep();
+            r.stepsPerSecond = r.steps == 0 ? 0 : r.steps / (elapsed / 1e9);
+            r.bytesPerStep = r.steps == 0 ? 0 : (double) allocated / r.steps;
+            r.peakHeapMb = peakHeap() / (1024.0 * 1024.0);
+            r.extinctionStep = sim.isViable() ? -1 : r.steps;
+            return r;
+        });
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static int[] parseInts(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static double[] parseDoubles(String list) {
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Double.parseDouble(parts[i].trim());
+        }
+        return values;
+    }
+}
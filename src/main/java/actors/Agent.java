@@ -5,36 +5,54 @@ import java.util.*;
 import data.SimData;
 import environment.Field;
 import environment.Location;
+import models.Compartment;
+import models.CompartmentModel;
 import models.SIR;
-import models.Infected;
-import models.Susceptible;
 
 public class Agent extends Entity {
 
-    private SIR status;
+    // actions, in order of priority; actions hold no state of their own,
+    // so every agent shares the same instances
+    private static final Action[] ACTIONS = {
+            new Quarantine(),
+            new MoveDQ(),
+            new MoveQuarantined(),
+            new MoveDistanced(),
+            new MoveRandom()
+    };
+
+    private static final byte DISTANCE = 1;
+    private static final byte MASKED = 2;
+    private static final byte WILL_QUARANTINE = 4;
+    private static final byte QUARANTINING = 8;
+
+    // state used while the agent is not held in an AgentStore
+    private byte status;
+    // steps left in the current compartment; a Susceptible agent holds
+    // the time it will spend in the compartment infection moves it to
     private int health;
-    private List<Action> actions;
-    private Set<Percept> percepts;
-    private boolean willDistance = false;
-    private boolean masked = false;
-    private boolean willQuarantine = false;
-    private boolean quarantining = false;
+    private byte flags;
+    // where the state lives once the agent has been placed in a field
+    private AgentStore store;
+    private int id = -1;
 
     public Agent(Location location) {
         super(location);
-        status = new Susceptible();
-        percepts = new HashSet<>();
+        status = Compartment.SUSCEPTIBLE.code();
+        health = SimData.getModel().drawDwell(status, SimData.getRandom());
+    }
 
-        // add actions to agent in order of priority
-        actions = new ArrayList<>();
-        actions.add(0, new Quarantine());
-        actions.add(1, new MoveDQ());
-        actions.add(2, new MoveQuarantined());
-        actions.add(3, new MoveDistanced());
-        actions.add(4, new MoveRandom());
+    // for restoring from a checkpoint, which must not draw from the Random
+    private Agent(Location location, byte status) {
+        super(location);
+        this.status = status;
+    }
 
-        health = SimData.getRandom().nextInt(
-                SimData.getInfectiousPeriodMax() - SimData.getInfectiousPeriodMin()) + SimData.getInfectiousPeriodMin();
+    /**
+     * @return an agent whose state is about to be loaded into a store
+     */
+    static Agent restore(Location location) {
+        return new Agent(location, Compartment.SUSCEPTIBLE.code());
     }
 
     /**
@@ -45,40 +63,131 @@ public class Agent extends Entity {
      * @param f the field of play
      */
     public void act(Field<Entity, Location> f) {
+        if (getCode() == Compartment.DEAD.code()) {
+            return;
+        }
         see(f);
         processDisease();
-        for (Action action : actions) {
-            if (action.act(f))
+        for (Action action : ACTIONS) {
+            if (action.act(this, f))
                 break;
         }
     }
 
-    public int getHealth() { return health; }
+    public int getHealth() {
+        return store == null ? health : store.getHealth(id);
+    }
 
-    public void setHealth(int health) { this.health = health; }
+    public void setHealth(int health) {
+        if (store == null) { this.health = health; }
+        else { store.setHealth(id, health); }
+    }
 
     public SIR getStatus() {
-        return status;
+        return getCompartment().getState();
     }
 
     public void setStatus(SIR status) {
-        this.status = status;
+        setCompartment(Compartment.of(status));
+    }
+
+    public Compartment getCompartment() {
+        return Compartment.of(getCode());
+    }
+
+    public void setCompartment(Compartment c) {
+        setCode(c.code());
+    }
+
+    private byte getCode() {
+        return store == null ? status : store.getStatus(id);
+    }
+
+    private void setCode(byte code) {
+        if (store == null) { status = code; }
+        else { store.setStatus(id, code); }
     }
 
     public void willDistance(boolean b) {
-        willDistance = b;
+        if (store == null) { setFlag(DISTANCE, b); }
+        else { store.setDistancing(id, b); }
     }
 
     public boolean getMasked() {
-        return masked;
+        return store == null ? hasFlag(MASKED) : store.isMasked(id);
     }
 
     public void setMasked(boolean b) {
-        masked = b;
+        if (store == null) { setFlag(MASKED, b); }
+        else { store.setMasked(id, b); }
     }
 
     public void willQuarantine(boolean b)  {
-        willQuarantine = b;
+        if (store == null) { setFlag(WILL_QUARANTINE, b); }
+        else { store.setWillQuarantine(id, b); }
+    }
+
+    private boolean isDistancing() {
+        return store == null ? hasFlag(DISTANCE) : store.willDistance(id);
+    }
+
+    private boolean isWillingToQuarantine() {
+        return store == null ? hasFlag(WILL_QUARANTINE) : store.willQuarantine(id);
+    }
+
+    private boolean isQuarantining() {
+        return store == null ? hasFlag(QUARANTINING) : store.isQuarantining(id);
+    }
+
+    private void setQuarantining(boolean b) {
+        if (store == null) { setFlag(QUARANTINING, b); }
+        else { store.setQuarantining(id, b); }
+    }
+
+    private boolean hasFlag(byte flag) {
+        return (flags & flag) != 0;
+    }
+
+    private void setFlag(byte flag, boolean b) {
+        flags = (byte) (b ? flags | flag : flags & ~flag);
+    }
+
+    public AgentStore getStore() {
+        return store;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Move this agent's state into a store. Called by
+     * {@link AgentStore#add(Entity)}.
+     */
+    void attach(AgentStore store, int id) {
+        store.setStatus(id, status);
+        store.setHealth(id, health);
+        store.setDistancing(id, hasFlag(DISTANCE));
+        store.setMasked(id, hasFlag(MASKED));
+        store.setWillQuarantine(id, hasFlag(WILL_QUARANTINE));
+        store.setQuarantining(id, hasFlag(QUARANTINING));
+        this.store = store;
+        this.id = id;
+    }
+
+    /**
+     * Copy this agent's state back out of its store, if it has one.
+     */
+    void detach() {
+        if (store == null) { return; }
+        status = store.getStatus(id);
+        health = store.getHealth(id);
+        setFlag(DISTANCE, store.willDistance(id));
+        setFlag(MASKED, store.isMasked(id));
+        setFlag(WILL_QUARANTINE, store.willQuarantine(id));
+        setFlag(QUARANTINING, store.isQuarantining(id));
+        store = null;
+        id = -1;
     }
 
     /** Beginning of actions
@@ -86,16 +195,10 @@ public class Agent extends Entity {
      * making.
      */
     interface Action {
-        boolean act(Field<Entity, Location> f);
-        default List<Location> orderBestLocations(Field<Entity, Location> f, Location origin) {
-            List<Location> freeLocs = f.getAllFreeAdjacentLocations(origin);
-            Collections.sort(freeLocs, Comparator.comparingInt(elem -> f.getAllNeighbours(elem, Agent.class).size()));
-            return freeLocs;
-        };
+        boolean act(Agent ag, Field<Entity, Location> f);
         default Location findNonQuarantineLocation(Field<Entity, Location> f, List<Location> moves) {
-            Set<Location> quLocations = f.getZone();
             for (Location loc : moves) {
-                if (!quLocations.contains(loc)) {
+                if (!f.isInZone(loc)) {
                     return loc;
                 }
             }
@@ -103,51 +206,48 @@ public class Agent extends Entity {
         }
     }
 
-    private class MoveRandom implements Action {
+    private static class MoveRandom implements Action {
         @Override
-        public boolean act(Field<Entity, Location> f) {
-            Location to = f.freeAdjacentLocation(getLocation());
+        public boolean act(Agent ag, Field<Entity, Location> f) {
+            Location to = f.freeAdjacentLocation(ag.getLocation());
             if (to != null) {
-                move(f, to);
+                ag.move(f, to);
                 return true;
             }
             return false;
         }
     }
 
-    private class Quarantine implements Action {
+    private static class Quarantine implements Action {
         @Override
-        public boolean act(Field<Entity, Location> f) {
-            if (willQuarantine && getStatus().getClass() == Infected.class) {
-                if (!quarantining) {
-                    quarantining = true;
-                    f.registerZone(new HashSet<>(f.getAllAdjacentLocations(getLocation())));
+        public boolean act(Agent ag, Field<Entity, Location> f) {
+            if (ag.isWillingToQuarantine() && ag.getCode() == Compartment.INFECTED.code()) {
+                if (!ag.isQuarantining()) {
+                    ag.setQuarantining(true);
+                    f.registerZoneAround(ag.getLocation());
                 }
                 return true;
             }
             else {
-                if (quarantining) {
-                    quarantining = false;
-                    f.deregisterZone(new HashSet<>(f.getAllAdjacentLocations(getLocation())));
+                if (ag.isQuarantining()) {
+                    ag.setQuarantining(false);
+                    f.deregisterZoneAround(ag.getLocation());
                 }
                 return false;
             }
         }
     }
 
-    private class MoveDQ implements Action {
+    private static class MoveDQ implements Action {
         @Override
-        public boolean act(Field<Entity, Location> f) {
-            if (SimData.getQuarantining() && willDistance) {
-                List<Location> freeLocs = orderBestLocations(f, getLocation());
-                if (!freeLocs.isEmpty()) {
-                    Location choice = findNonQuarantineLocation(f, freeLocs);
-                    if (choice != null) {
-                        move(f, choice);
-                        return true;
-                    }
-                    move(f, freeLocs.get(0));
-                    return true;
+        public boolean act(Agent ag, Field<Entity, Location> f) {
+            if (SimData.getQuarantining() && ag.isDistancing()) {
+                Location choice = f.leastCrowdedFreeAdjacentLocation(ag.getLocation(), true);
+                if (choice == null) {
+                    choice = f.leastCrowdedFreeAdjacentLocation(ag.getLocation(), false);
+                }
+                if (choice != null) {
+                    ag.move(f, choice);
                 }
                 return true;
             }
@@ -155,19 +255,19 @@ public class Agent extends Entity {
         }
     }
 
-    private class MoveQuarantined implements Action {
+    private static class MoveQuarantined implements Action {
         @Override
-        public boolean act(Field<Entity, Location> f) {
+        public boolean act(Agent ag, Field<Entity, Location> f) {
             if (SimData.getQuarantining()) {
-                List<Location> freeLocs = f.getAllFreeAdjacentLocations(getLocation());
+                List<Location> freeLocs = f.getAllFreeAdjacentLocations(ag.getLocation());
                 if (!freeLocs.isEmpty()) {
-                    Collections.shuffle(freeLocs);
+                    Collections.shuffle(freeLocs, SimData.getRandom());
                     Location move = findNonQuarantineLocation(f, freeLocs);
                     if (move != null) {
-                        move(f, move);
+                        ag.move(f, move);
                         return true;
                     }
-                    move(f, freeLocs.get(0));
+                    ag.move(f, freeLocs.get(0));
                     return true;
                 }
                 return true;
@@ -176,13 +276,13 @@ public class Agent extends Entity {
         }
     }
 
-    private class MoveDistanced implements Action {
+    private static class MoveDistanced implements Action {
         @Override
-        public boolean act(Field<Entity, Location> f) {
-            if (willDistance) {
-                List<Location> freeLocs = orderBestLocations(f, getLocation());
-                if (!freeLocs.isEmpty()) {
-                    move(f, freeLocs.get(0));
+        public boolean act(Agent ag, Field<Entity, Location> f) {
+            if (ag.isDistancing()) {
+                Location to = f.leastCrowdedFreeAdjacentLocation(ag.getLocation(), false);
+                if (to != null) {
+                    ag.move(f, to);
                 }
                 return true;
             }
@@ -216,9 +316,16 @@ public class Agent extends Entity {
     }
 
     private void processDisease() {
-        if (status instanceof Infected) {
-            if (health == 0) status = status.nextState();
-            else health--;
+        CompartmentModel model = SimData.getModel();
+        byte code = getCode();
+        if (model.hasTimedExit(code)) {
+            int h = getHealth();
+            if (h == 0) {
+                byte next = model.nextState(code, SimData.getRandom());
+                setCode(next);
+                setHealth(model.drawDwell(next, SimData.getRandom()));
+            }
+            else setHealth(h - 1);
         }
     }
-}
\ No newline at end of file
+}
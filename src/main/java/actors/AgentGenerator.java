@@ -10,17 +10,18 @@ public class AgentGenerator extends EntityGenerator<Entity> {
     /**
      * Generate an Agent at the specified location l. Characteristics of the individual
      * are assigned randomly, using parameters from the SimData data class.
-     * An Agent can either be Susceptible or Infected, or null, i.e. there is a chance
-     * that no Agent is generated.
+     * An Agent can either be Susceptible or infected, or null, i.e. there is a chance
+     * that no Agent is generated. Infected agents start in whichever compartment
+     * the disease model moves newly infected agents to.
      * @param l - the location to place the new Agent
-     * @return Agent (Susceptible or Infected) or null
+     * @return Agent (Susceptible or infected) or null
      */
     @Override
     protected Entity generateEntity(Location l) {
         double value = SimData.getRandom().nextDouble();
         if (value <= SimData.getAgentZeroProbability()) {
             Agent ag = new Agent(l);
-            ag.setStatus(ag.getStatus().nextState());
+            ag.setCompartment(SimData.getModel().onInfection());
             return ag;
         }
         //
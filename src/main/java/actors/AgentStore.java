@@ -0,0 +1,293 @@
+package actors;
+
+import checkpoint.CheckpointInput;
+import checkpoint.CheckpointOutput;
+import environment.Location;
+import models.Compartment;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Primitive, column-oriented storage for the state of every agent in a
+ * field. Each entity placed in the field gets an integer id; an agent's
+ * status, remaining health and policy flags are kept in arrays indexed
+ * by that id, and the Agent object itself only holds the id. The Agent
+ * objects remain as handles so the Field API can still return them.
+ *
+ * The store also counts the agents in each compartment. The owning
+ * field calls {@link #enter(int)} and {@link #leave(int)} as agents are
+ * placed and cleared, and status changes move an agent between counts,
+ * so the counts are always current without scanning the field.
+ */
+public class AgentStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Entity[] entities;
+    private byte[] status;
+    private int[] health;
+    private BitSet masked;
+    private BitSet distancing;
+    private BitSet willQuarantine;
+    private BitSet quarantining;
+    // agents currently placed in the field, and how many are in each compartment
+    private BitSet placed;
+    private int[] counts;
+    private int size;
+
+    public AgentStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public AgentStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        entities = new Entity[capacity];
+        status = new byte[capacity];
+        health = new int[capacity];
+        masked = new BitSet();
+        distancing = new BitSet();
+        willQuarantine = new BitSet();
+        quarantining = new BitSet();
+        placed = new BitSet();
+        counts = new int[Compartment.values().length];
+        size = 0;
+    }
+
+    /**
+     * Add an entity to the store. An Agent's current state is copied
+     * into the store, and from then on the agent reads and writes its
+     * state here.
+     * @param e the entity to add
+     * @return the id of the entity within this store
+     */
+    public int add(Entity e) {
+        if (size == entities.length) {
+            grow();
+        }
+        int id = size++;
+        entities[id] = e;
+        if (e instanceof Agent) {
+            ((Agent) e).attach(this, id);
+        }
+        return id;
+    }
+
+    /**
+     * Return the id of an entity, adding it if it is an entity that is
+     * not yet held by this store.
+     * @param e the entity
+     * @return the id of the entity within this store
+     */
+    public int idOf(Entity e) {
+        if (e instanceof Agent) {
+            Agent ag = (Agent) e;
+            if (ag.getStore() == this) {
+                return ag.getId();
+            }
+            ag.detach();
+        }
+        return add(e);
+    }
+
+    public Entity get(int id) {
+        return entities[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every entity. Agents get their state copied back so they
+     * can still be used on their own or placed elsewhere.
+     */
+    public void clear() {
+        for (int id = 0; id < size; id++) {
+            if (entities[id] instanceof Agent) {
+                ((Agent) entities[id]).detach();
+            }
+        }
+        Arrays.fill(entities, 0, size, null);
+        masked.clear();
+        distancing.clear();
+        willQuarantine.clear();
+        quarantining.clear();
+        placed.clear();
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    /**
+     * Record that the entity with this id has been placed in the field.
+     * @param id the id of the entity
+     */
+    public void enter(int id) {
+        if (entities[id] instanceof Agent && !placed.get(id)) {
+            placed.set(id);
+            counts[status[id]]++;
+        }
+    }
+
+    /**
+     * Record that the entity with this id has been removed from the field.
+     * @param id the id of the entity
+     */
+    public void leave(int id) {
+        if (placed.get(id)) {
+            placed.clear(id);
+            counts[status[id]]--;
+        }
+    }
+
+    /**
+     * @return the number of agents in the field in compartment c
+     */
+    public int getCount(Compartment c) {
+        return counts[c.code()];
+    }
+
+    /**
+     * @return the number of agents in the field
+     */
+    public int getAgentCount() {
+        return placed.cardinality();
+    }
+
+    /**
+     * Copy the number of agents in each compartment, indexed by
+     * compartment code.
+     * @param into an array with one slot per compartment, or null
+     * @return the filled array
+     */
+    public int[] getCounts(int[] into) {
+        if (into == null) {
+            into = new int[counts.length];
+        }
+        System.arraycopy(counts, 0, into, 0, counts.length);
+        return into;
+    }
+
+    public byte getStatus(int id) {
+        return status[id];
+    }
+
+    public void setStatus(int id, byte code) {
+        if (placed.get(id)) {
+            counts[status[id]]--;
+            counts[code]++;
+        }
+        status[id] = code;
+    }
+
+    public int getHealth(int id) {
+        return health[id];
+    }
+
+    public void setHealth(int id, int value) {
+        health[id] = value;
+    }
+
+    public boolean isMasked(int id) {
+        return masked.get(id);
+    }
+
+    public void setMasked(int id, boolean b) {
+        masked.set(id, b);
+    }
+
+    public boolean willDistance(int id) {
+        return distancing.get(id);
+    }
+
+    public void setDistancing(int id, boolean b) {
+        distancing.set(id, b);
+    }
+
+    public boolean willQuarantine(int id) {
+        return willQuarantine.get(id);
+    }
+
+    public void setWillQuarantine(int id, boolean b) {
+        willQuarantine.set(id, b);
+    }
+
+    public boolean isQuarantining(int id) {
+        return quarantining.get(id);
+    }
+
+    public void setQuarantining(int id, boolean b) {
+        quarantining.set(id, b);
+    }
+
+    // kinds of entity in a checkpoint
+    private static final byte NONE = 0;
+    private static final byte AGENT = 1;
+    private static final byte OBSTACLE = 2;
+
+    /**
+     * Save every entity, with its location, and every agent's state.
+     */
+    public void writeTo(CheckpointOutput out) throws IOException {
+        out.writeInt(size);
+        byte[] kinds = new byte[size];
+        int[] rows = new int[size];
+        int[] cols = new int[size];
+        for (int id = 0; id < size; id++) {
+            Entity e = entities[id];
+            kinds[id] = e instanceof Agent ? AGENT : e instanceof Obstacle ? OBSTACLE : NONE;
+            if (e != null && e.getLocation() != null) {
+                rows[id] = e.getLocation().getRow();
+                cols[id] = e.getLocation().getCol();
+            }
+        }
+        out.writeBytes(kinds, size);
+        out.writeInts(rows, size);
+        out.writeInts(cols, size);
+        out.writeBytes(status, size);
+        out.writeInts(health, size);
+        for (BitSet bits : new BitSet[] {masked, distancing, willQuarantine, quarantining, placed}) {
+            out.writeLongs(bits.toLongArray());
+        }
+        out.writeInts(counts, counts.length);
+    }
+
+    /**
+     * Load a store saved by writeTo, creating its entities afresh.
+     */
+    public static AgentStore readFrom(CheckpointInput in) throws IOException {
+        int size = in.readInt();
+        AgentStore store = new AgentStore(size);
+        byte[] kinds = new byte[size];
+        int[] rows = new int[size];
+        int[] cols = new int[size];
+        in.readBytes(kinds, size);
+        in.readInts(rows, size);
+        in.readInts(cols, size);
+        for (int id = 0; id < size; id++) {
+            Location l = new Location(rows[id], cols[id]);
+            switch (kinds[id]) {
+                case AGENT:    store.add(Agent.restore(l)); break;
+                case OBSTACLE: store.add(new Obstacle(l)); break;
+                default:       store.size++; break;
+            }
+        }
+        in.readBytes(store.status, size);
+        in.readInts(store.health, size);
+        store.masked = BitSet.valueOf(in.readLongs());
+        store.distancing = BitSet.valueOf(in.readLongs());
+        store.willQuarantine = BitSet.valueOf(in.readLongs());
+        store.quarantining = BitSet.valueOf(in.readLongs());
+        store.placed = BitSet.valueOf(in.readLongs());
+        in.readInts(store.counts, store.counts.length);
+        return store;
+    }
+
+    private void grow() {
+        int capacity = entities.length * 2;
+        entities = Arrays.copyOf(entities, capacity);
+        status = Arrays.copyOf(status, capacity);
+        health = Arrays.copyOf(health, capacity);
+    }
+}
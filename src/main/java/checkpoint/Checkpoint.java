@@ -0,0 +1,107 @@
+package checkpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opens checkpoint files. A checkpoint starts with a small header that
+ * is never compressed:
+ * <pre>
+ *     "SIMCKPT"   magic, 7 bytes
+ *     byte        1 if the body is gzip compressed, otherwise 0
+ *     int         format version, little-endian
+ * </pre>
+ * An uncompressed body is read through a memory map of the file; a
+ * compressed one is streamed through gzip at its fastest setting.
+ * What goes in the body is up to the classes being saved, each writing
+ * and reading its own state in the same order.
+ */
+public final class Checkpoint {
+
+    static final byte[] MAGIC = "SIMCKPT".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 2;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + 4;
+    private static final int STREAM_BUFFER = 1 << 16;
+
+    private Checkpoint() {}
+
+    /**
+     * Create a checkpoint file, replacing any that exists.
+     * @param compress true to gzip the body, which is smaller but slower
+     */
+    public static CheckpointOutput create(Path file, boolean compress) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC).put(compress ? (byte) 1 : (byte) 0).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                ch.write(header);
+            }
+            if (!compress) {
+                return new CheckpointOutput(ch);
+            }
+            OutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(ch), STREAM_BUFFER) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+            return new CheckpointOutput(Channels.newChannel(gzip));
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a checkpoint file for reading.
+     * @throws IOException if it is not a checkpoint or is of another version
+     */
+    public static CheckpointInput open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (ch.read(header) < 0) {
+                    throw new IOException(file + " is not a checkpoint.");
+                }
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IOException(file + " is not a checkpoint.");
+            boolean compressed = header.get() != 0;
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException(file + " is checkpoint version " + version + "; only version "
+                        + VERSION + " can be read.");
+            if (compressed) {
+                InputStream gzip = new GZIPInputStream(Channels.newInputStream(ch), STREAM_BUFFER);
+                return new CheckpointInput(Channels.newChannel(gzip));
+            }
+            long body = ch.size() - HEADER_SIZE;
+            if (body > Integer.MAX_VALUE) {
+                // too big for one map, so read it through the channel instead
+                return new CheckpointInput(ch);
+            }
+            ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, body);
+            return new CheckpointInput(map, ch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package checkpoint;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what a CheckpointOutput wrote, either straight from a memory
+ * map of the file or from a channel through a refilling buffer.
+ */
+public class CheckpointInput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final Closeable source;
+    /**
+     * Read from a buffer holding the whole body, such as a memory map.
+     */
+    CheckpointInput(ByteBuffer body, Closeable source) {
+        this.channel = null;
+        this.buffer = body.order(ByteOrder.LITTLE_ENDIAN);
+        this.source = source;
+    }
+
+    CheckpointInput(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.flip();
+        this.source = channel;
+    }
+
+    public byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    public double readDouble() throws IOException {
+        require(8);
+        return buffer.getDouble();
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) { return null; }
+        byte[] bytes = new byte[length];
+        readBytes(bytes, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void readBytes(byte[] into, int n) throws IOException {
+        for (int i = 0; i < n;) {
+            require(1);
+            int chunk = Math.min(n - i, buffer.remaining());
+            buffer.get(into, i, chunk);
+            i += chunk;
+        }
+    }
+
+    public void readInts(int[] into, int n) throws IOException {
+        for (int i = 0; i < n;) {
+            require(4);
+            int chunk = Math.min(n - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().get(into, i, chunk);
+            buffer.position(buffer.position() + chunk * 4);
+            i += chunk;
+        }
+    }
+
+    /**
+     * Read an array of longs written by CheckpointOutput.writeLongs.
+     */
+    public long[] readLongs() throws IOException {
+        long[] a = new long[readInt()];
+        for (int i = 0; i < a.length;) {
+            require(8);
+            int chunk = Math.min(a.length - i, buffer.remaining() / 8);
+            buffer.asLongBuffer().get(a, i, chunk);
+            buffer.position(buffer.position() + chunk * 8);
+            i += chunk;
+        }
+        return a;
+    }
+
+    private void require(int n) throws IOException {
+        if (buffer.remaining() >= n) { return; }
+        if (channel == null) {
+            throw new EOFException("The checkpoint ends early.");
+        }
+        buffer.compact();
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The checkpoint ends early.");
+            }
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,125 @@
+package checkpoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the body of a checkpoint as little-endian primitives through a
+ * large direct buffer. Arrays are copied into the buffer in bulk, so
+ * writing a column of ten million ints costs about as much as copying
+ * it.
+ */
+public class CheckpointOutput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    CheckpointOutput(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public void writeByte(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    public void writeBoolean(boolean b) throws IOException {
+        writeByte(b ? (byte) 1 : (byte) 0);
+    }
+
+    public void writeInt(int i) throws IOException {
+        ensure(4);
+        buffer.putInt(i);
+    }
+
+    public void writeLong(long l) throws IOException {
+        ensure(8);
+        buffer.putLong(l);
+    }
+
+    public void writeDouble(double d) throws IOException {
+        ensure(8);
+        buffer.putDouble(d);
+    }
+
+    /**
+     * Write a string, which may be null, as UTF-8.
+     */
+    public void writeString(String s) throws IOException {
+        if (s == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes, bytes.length);
+    }
+
+    /**
+     * Write the first n bytes of an array, without a length.
+     */
+    public void writeBytes(byte[] a, int n) throws IOException {
+        for (int i = 0; i < n;) {
+            ensure(1);
+            int chunk = Math.min(n - i, buffer.remaining());
+            buffer.put(a, i, chunk);
+            i += chunk;
+        }
+    }
+
+    /**
+     * Write the first n ints of an array, without a length.
+     */
+    public void writeInts(int[] a, int n) throws IOException {
+        for (int i = 0; i < n;) {
+            ensure(4);
+            int chunk = Math.min(n - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(a, i, chunk);
+            buffer.position(buffer.position() + chunk * 4);
+            i += chunk;
+        }
+    }
+
+    /**
+     * Write a whole array of longs, preceded by its length.
+     */
+    public void writeLongs(long[] a) throws IOException {
+        writeInt(a.length);
+        for (int i = 0; i < a.length;) {
+            ensure(8);
+            int chunk = Math.min(a.length - i, buffer.remaining() / 8);
+            buffer.asLongBuffer().put(a, i, chunk);
+            buffer.position(buffer.position() + chunk * 8);
+            i += chunk;
+        }
+    }
+
+    private void ensure(int n) throws IOException {
+        if (buffer.remaining() < n) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -52,6 +52,15 @@ public class Counter {
         count++;
     }
 
+    /**
+     * Set the current count to a known value.
+     * @param count the number of participants of this type
+     */
+    public void set(int count)
+    {
+        this.count = count;
+    }
+
     /**
      * Reset the current count to zero.
      */
@@ -0,0 +1,93 @@
+package data;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The records of every run in an ensemble, along with the mean and
+ * percentile curves across runs. Runs that stop early (because no
+ * Infected agents remain) are padded with their last row, so every
+ * curve is as long as the longest run.
+ */
+public class EnsembleResult {
+
+    private List<SimulationRecord> records;
+
+    public EnsembleResult(List<SimulationRecord> records) {
+        this.records = records;
+    }
+
+    public List<SimulationRecord> getRecords() {
+        return records;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * @return the number of recorded steps in the longest run
+     */
+    public int getLength() {
+        int length = 0;
+        for (SimulationRecord r : records) {
+            length = Math.max(length, r.getCounts().size());
+        }
+        return length;
+    }
+
+    /**
+     * Mean of a record column at each step, across all runs.
+     * @param column the index of the column, e.g. 1 for Infected
+     * @return the mean value at each step
+     */
+    public double[] getMean(int column) {
+        int[][] values = getColumn(column);
+        double[] mean = new double[values.length];
+        for (int step = 0; step < values.length; step++) {
+            double sum = 0;
+            for (int v : values[step]) {
+                sum += v;
+            }
+            mean[step] = sum / values[step].length;
+        }
+        return mean;
+    }
+
+    /**
+     * Percentile of a record column at each step, across all runs,
+     * interpolating linearly between the closest ranks.
+     * @param column the index of the column, e.g. 1 for Infected
+     * @param percentile between 0 and 100 inclusive
+     * @return the percentile value at each step
+     */
+    public double[] getPercentile(int column, double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile must be between 0 and 100 inclusive.");
+        int[][] values = getColumn(column);
+        double[] result = new double[values.length];
+        for (int step = 0; step < values.length; step++) {
+            int[] sorted = values[step];
+            Arrays.sort(sorted);
+            double rank = percentile / 100 * (sorted.length - 1);
+            int lower = (int) Math.floor(rank);
+            int upper = (int) Math.ceil(rank);
+            result[step] = sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+        }
+        return result;
+    }
+
+    private int[][] getColumn(int column) {
+        if (records.isEmpty()) {
+            return new int[0][0];
+        }
+        int[][] values = new int[getLength()][records.size()];
+        for (int run = 0; run < records.size(); run++) {
+            List<int[]> data = records.get(run).getCounts();
+            for (int step = 0; step < values.length; step++) {
+                values[step][run] = data.get(Math.min(step, data.size() - 1))[column];
+            }
+        }
+        return values;
+    }
+}
@@ -19,6 +19,8 @@ public class GUIData {
     public static final Color SUS_COL = new Color(0, 0, 255); // blue
     public static final Color INF_COL = new Color(255, 0, 0); // red
     public static final Color REC_COL = new Color(0, 153, 50); // green
+    public static final Color EXP_COL = new Color(255, 140, 0); // orange
+    public static final Color DEAD_COL = new Color(0, 0, 0); // black
     public static final Color OBS_COL = new Color(139, 69, 19); // saddlebrown
     public static final Color EMP_COL = new Color(224, 224, 224); // grey
     public static final Color DEF_COL = new Color(255, 255, 255); // white
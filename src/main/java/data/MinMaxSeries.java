@@ -0,0 +1,205 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Per-step counts thinned for display as they arrive. The steps are
+ * split into a fixed number of equal buckets, and each bucket keeps only
+ * the step with its lowest and the step with its highest count. When
+ * every bucket is full, neighbouring buckets are merged in pairs and the
+ * bucket width doubles. points then picks the steps to draw from those
+ * kept using largest-triangle-three-buckets. Appending a step is
+ * amortised constant time and points costs the same however long the
+ * series is, so a chart can be redrawn from it at a cost set by its
+ * width in pixels rather than by the length of the run.
+ */
+public class MinMaxSeries {
+
+    private final int maxPoints;
+    private final int buckets;
+    private final int[][] minStep;
+    private final int[][] minCount;
+    private final int[][] maxStep;
+    private final int[][] maxCount;
+    private final int[] first;
+    private final int[] last;
+    // steps per bucket
+    private int width = 1;
+    // buckets holding at least one step
+    private int used;
+    private int size;
+
+    /**
+     * @param columnCount the number of counts in each step
+     * @param maxPoints the most points that points returns for a column
+     */
+    public MinMaxSeries(int columnCount, int maxPoints) {
+        if (columnCount < 1)
+            throw new IllegalArgumentException("A series needs at least one column.");
+        if (maxPoints < 3)
+            throw new IllegalArgumentException("At least 3 points must be kept.");
+        this.maxPoints = maxPoints;
+        // about two candidates per point drawn, and an even number of
+        // buckets so they merge in pairs
+        buckets = (maxPoints + 1) / 2 * 2;
+        minStep = new int[columnCount][buckets];
+        minCount = new int[columnCount][buckets];
+        maxStep = new int[columnCount][buckets];
+        maxCount = new int[columnCount][buckets];
+        first = new int[columnCount];
+        last = new int[columnCount];
+    }
+
+    /**
+     * @param row the counts of the next step, one per column
+     */
+    public void append(int[] row) {
+        if (row.length != first.length)
+            throw new IllegalArgumentException("Expected " + first.length + " counts but got " + row.length + ".");
+        if (size == width * buckets) {
+            mergePairs();
+        }
+        int b = size / width;
+        for (int c = 0; c < row.length; c++) {
+            if (b == used) {
+                minStep[c][b] = size;
+                minCount[c][b] = row[c];
+                maxStep[c][b] = size;
+                maxCount[c][b] = row[c];
+            }
+            else if (row[c] < minCount[c][b]) {
+                minStep[c][b] = size;
+                minCount[c][b] = row[c];
+            }
+            else if (row[c] > maxCount[c][b]) {
+                maxStep[c][b] = size;
+                maxCount[c][b] = row[c];
+            }
+            if (size == 0) {
+                first[c] = row[c];
+            }
+            last[c] = row[c];
+        }
+        if (b == used) {
+            used++;
+        }
+        size++;
+    }
+
+    private void mergePairs() {
+        for (int c = 0; c < first.length; c++) {
+            for (int i = 0; i < buckets / 2; i++) {
+                int l = 2 * i;
+                int r = l + 1;
+                // on a tie the earlier step is kept
+                boolean lowerRight = minCount[c][r] < minCount[c][l];
+                minStep[c][i] = lowerRight ? minStep[c][r] : minStep[c][l];
+                minCount[c][i] = lowerRight ? minCount[c][r] : minCount[c][l];
+                boolean higherRight = maxCount[c][r] > maxCount[c][l];
+                maxStep[c][i] = higherRight ? maxStep[c][r] : maxStep[c][l];
+                maxCount[c][i] = higherRight ? maxCount[c][r] : maxCount[c][l];
+            }
+        }
+        used = buckets / 2;
+        width *= 2;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pick at most maxPoints steps of one column that best keep its shape,
+     * always including the first and last.
+     * @return the chosen steps in {x} and their counts in {y}, as {x, y}
+     */
+    public double[][] points(int column) {
+        double[][] kept = candidates(column);
+        return kept[0].length <= maxPoints ? kept : largestTriangles(kept[0], kept[1], maxPoints);
+    }
+
+    /**
+     * The lowest and highest step of each bucket, and the first and last
+     * steps, in step order.
+     */
+    private double[][] candidates(int column) {
+        double[] x = new double[2 * used + 2];
+        double[] y = new double[x.length];
+        int n = 0;
+        if (size > 0 && minStep[column][0] != 0 && maxStep[column][0] != 0) {
+            x[n] = 0;
+            y[n++] = first[column];
+        }
+        for (int b = 0; b < used; b++) {
+            int lo = minStep[column][b];
+            int hi = maxStep[column][b];
+            if (lo == hi) {
+                x[n] = lo;
+                y[n++] = minCount[column][b];
+            }
+            else if (lo < hi) {
+                x[n] = lo;
+                y[n++] = minCount[column][b];
+                x[n] = hi;
+                y[n++] = maxCount[column][b];
+            }
+            else {
+                x[n] = hi;
+                y[n++] = maxCount[column][b];
+                x[n] = lo;
+                y[n++] = minCount[column][b];
+            }
+        }
+        if (n > 0 && x[n - 1] != size - 1) {
+            x[n] = size - 1;
+            y[n++] = last[column];
+        }
+        return new double[][] {Arrays.copyOf(x, n), Arrays.copyOf(y, n)};
+    }
+
+    /**
+     * Largest-triangle-three-buckets: the middle points are split into
+     * maxPoints - 2 buckets, and from each the point making the largest
+     * triangle with the point last taken and the average of the next
+     * bucket is taken.
+     */
+    static double[][] largestTriangles(double[] x, double[] y, int maxPoints) {
+        int n = x.length;
+        double[][] out = new double[2][maxPoints];
+        double every = (double) (n - 2) / (maxPoints - 2);
+        int a = 0;
+        out[0][0] = x[0];
+        out[1][0] = y[0];
+        for (int b = 0; b < maxPoints - 2; b++) {
+            int nextStart = (int) ((b + 1) * every) + 1;
+            int nextEnd = Math.min((int) ((b + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int count = nextEnd - nextStart;
+            avgX /= count;
+            avgY /= count;
+
+            int start = (int) (b * every) + 1;
+            int end = nextStart;
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            out[0][b + 1] = x[chosen];
+            out[1][b + 1] = y[chosen];
+            a = chosen;
+        }
+        out[0][maxPoints - 1] = x[n - 1];
+        out[1][maxPoints - 1] = y[n - 1];
+        return out;
+    }
+}
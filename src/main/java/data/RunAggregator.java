@@ -0,0 +1,243 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary statistics of many runs at each step, gathered one run at a
+ * time, so memory grows with the length of the longest run rather than
+ * with the number of runs. Each step and column keeps RunningStatistics
+ * for its mean, variance, min and max, and a TDigest for its quantiles.
+ *
+ * As with an ensemble, runs that stop early are padded with their last
+ * row, so every step counts every run. The last rows of all runs so far
+ * are kept as statistics of their own, which is what a step beyond the
+ * longest run so far starts from.
+ *
+ * An aggregator is not thread safe. Parallel workers should each fill
+ * their own and merge them when done.
+ */
+public class RunAggregator {
+
+    private final int columns;
+    private final double compression;
+    private final List<RunningStatistics[]> stats = new ArrayList<>();
+    private final List<TDigest[]> digests = new ArrayList<>();
+    // the last row of every run so far
+    private final RunningStatistics[] finalStats;
+    private final TDigest[] finalDigests;
+    private int runs;
+    // the rows of the run being added
+    private int rows = -1;
+    private final double[] last;
+
+    public RunAggregator(int columns) {
+        this(columns, TDigest.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param columns the number of values in each row
+     * @param compression the compression of each TDigest
+     */
+    public RunAggregator(int columns, double compression) {
+        if (columns < 1)
+            throw new IllegalArgumentException("An aggregator needs at least one column.");
+        this.columns = columns;
+        this.compression = compression;
+        finalStats = new RunningStatistics[columns];
+        finalDigests = new TDigest[columns];
+        for (int c = 0; c < columns; c++) {
+            finalStats[c] = new RunningStatistics();
+            finalDigests[c] = new TDigest(compression);
+        }
+        last = new double[columns];
+    }
+
+    /**
+     * Add a whole run, one row per step.
+     */
+    public void addRun(List<int[]> counts) {
+        startRun();
+        double[] row = new double[columns];
+        for (int[] r : counts) {
+            for (int c = 0; c < columns; c++) {
+                row[c] = r[c];
+            }
+            addRow(row);
+        }
+        endRun();
+    }
+
+    /**
+     * Begin a run, whose rows are then added in step order with addRow.
+     */
+    public void startRun() {
+        if (rows >= 0)
+            throw new IllegalStateException("The last run has not been ended.");
+        rows = 0;
+    }
+
+    public void addRow(double[] row) {
+        if (rows < 0)
+            throw new IllegalStateException("No run has been started.");
+        if (row.length < columns)
+            throw new IllegalArgumentException("Row has " + row.length + " columns, not " + columns + ".");
+        if (rows == stats.size()) {
+            extend();
+        }
+        RunningStatistics[] s = stats.get(rows);
+        TDigest[] d = digests.get(rows);
+        for (int c = 0; c < columns; c++) {
+            s[c].add(row[c]);
+            d[c].add(row[c]);
+        }
+        System.arraycopy(row, 0, last, 0, columns);
+        rows++;
+    }
+
+    /**
+     * End a run, padding it with its last row up to the longest run.
+     */
+    public void endRun() {
+        if (rows < 0)
+            throw new IllegalStateException("No run has been started.");
+        if (rows == 0)
+            throw new IllegalStateException("A run needs at least one row.");
+        for (int step = rows; step < stats.size(); step++) {
+            RunningStatistics[] s = stats.get(step);
+            TDigest[] d = digests.get(step);
+            for (int c = 0; c < columns; c++) {
+                s[c].add(last[c]);
+                d[c].add(last[c]);
+            }
+        }
+        for (int c = 0; c < columns; c++) {
+            finalStats[c].add(last[c]);
+            finalDigests[c].add(last[c]);
+        }
+        runs++;
+        rows = -1;
+    }
+
+    /**
+     * Add every run of another aggregator to this one.
+     */
+    public void merge(RunAggregator other) {
+        if (other.columns != columns)
+            throw new IllegalArgumentException("Aggregators have different columns.");
+        if (rows >= 0 || other.rows >= 0)
+            throw new IllegalStateException("Runs are still being added.");
+        int length = stats.size();
+        for (int step = 0; step < Math.max(length, other.getLength()); step++) {
+            if (step == stats.size()) {
+                extend();
+            }
+            // beyond its longest run, each run of either side counts its last row
+            RunningStatistics[] s = step < other.getLength() ? other.stats.get(step) : other.finalStats;
+            TDigest[] d = step < other.getLength() ? other.digests.get(step) : other.finalDigests;
+            for (int c = 0; c < columns; c++) {
+                stats.get(step)[c].merge(s[c]);
+                digests.get(step)[c].merge(d[c]);
+            }
+        }
+        for (int c = 0; c < columns; c++) {
+            finalStats[c].merge(other.finalStats[c]);
+            finalDigests[c].merge(other.finalDigests[c]);
+        }
+        runs += other.runs;
+    }
+
+    /**
+     * Add a step beyond the longest run so far, holding the last row of
+     * every run so far.
+     */
+    private void extend() {
+        RunningStatistics[] s = new RunningStatistics[columns];
+        TDigest[] d = new TDigest[columns];
+        for (int c = 0; c < columns; c++) {
+            s[c] = finalStats[c].copy();
+            d[c] = finalDigests[c].copy();
+        }
+        stats.add(s);
+        digests.add(d);
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return the number of steps in the longest run
+     */
+    public int getLength() {
+        return stats.size();
+    }
+
+    public RunningStatistics getStatistics(int step, int column) {
+        return stats.get(step)[column];
+    }
+
+    /**
+     * @return the mean of a column at each step
+     */
+    public double[] getMean(int column) {
+        double[] v = new double[getLength()];
+        for (int step = 0; step < v.length; step++) {
+            v[step] = stats.get(step)[column].getMean();
+        }
+        return v;
+    }
+
+    public double[] getStandardDeviation(int column) {
+        double[] v = new double[getLength()];
+        for (int step = 0; step < v.length; step++) {
+            v[step] = stats.get(step)[column].getStandardDeviation();
+        }
+        return v;
+    }
+
+    public double[] getMin(int column) {
+        double[] v = new double[getLength()];
+        for (int step = 0; step < v.length; step++) {
+            v[step] = stats.get(step)[column].getMin();
+        }
+        return v;
+    }
+
+    public double[] getMax(int column) {
+        double[] v = new double[getLength()];
+        for (int step = 0; step < v.length; step++) {
+            v[step] = stats.get(step)[column].getMax();
+        }
+        return v;
+    }
+
+    /**
+     * @param level the confidence level, e.g. 0.95
+     * @return half the width of the confidence interval for the mean of
+     *         a column at each step
+     */
+    public double[] getConfidenceHalfWidth(int column, double level) {
+        double[] v = new double[getLength()];
+        for (int step = 0; step < v.length; step++) {
+            v[step] = stats.get(step)[column].getConfidenceHalfWidth(level);
+        }
+        return v;
+    }
+
+    /**
+     * @param q the quantile, between 0 and 1 inclusive, e.g. 0.5 for the median
+     * @return the approximate quantile of a column at each step
+     */
+    public double[] getQuantile(int column, double q) {
+        double[] v = new double[getLength()];
+        for (int step = 0; step < v.length; step++) {
+            v[step] = digests.get(step)[column].quantile(q);
+        }
+        return v;
+    }
+}
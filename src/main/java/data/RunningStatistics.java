@@ -0,0 +1,162 @@
+package data;
+
+/**
+ * Count, mean, variance, minimum and maximum of a stream of values,
+ * updated one value at a time by Welford's method, so the variance
+ * stays accurate however many values are added. Two sets of statistics
+ * gathered separately can be merged into the statistics of both.
+ */
+public class RunningStatistics {
+
+    private long count;
+    private double mean;
+    // sum of squared differences from the mean
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+        if (x < min) { min = x; }
+        if (x > max) { max = x; }
+    }
+
+    /**
+     * Add every value of another set of statistics to this one
+     * (Chan, Golub and LeVeque).
+     */
+    public void merge(RunningStatistics other) {
+        if (other.count == 0) { return; }
+        if (count == 0) {
+            set(other);
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public RunningStatistics copy() {
+        RunningStatistics c = new RunningStatistics();
+        c.set(this);
+        return c;
+    }
+
+    private void set(RunningStatistics other) {
+        count = other.count;
+        mean = other.mean;
+        m2 = other.m2;
+        min = other.min;
+        max = other.max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean, or NaN if no values have been added
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return the sample variance, or 0 for fewer than two values
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return the smallest value, or NaN if no values have been added
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return the largest value, or NaN if no values have been added
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Half the width of a confidence interval for the mean, from
+     * Student's t distribution.
+     * @param level the confidence level, e.g. 0.95
+     * @return the distance either side of the mean, or NaN for fewer
+     *         than two values
+     */
+    public double getConfidenceHalfWidth(double level) {
+        if (level <= 0 || level >= 1)
+            throw new IllegalArgumentException("Confidence level must be between 0 and 1 exclusive.");
+        if (count < 2) { return Double.NaN; }
+        return studentT(1 - (1 - level) / 2, count - 1) * getStandardDeviation() / Math.sqrt(count);
+    }
+
+    /**
+     * Quantile p of Student's t distribution with df degrees of freedom:
+     * exact for one and two degrees of freedom, otherwise the
+     * Cornish-Fisher expansion about the normal quantile (Abramowitz and
+     * Stegun 26.7.5), good to three figures from three degrees of freedom.
+     */
+    static double studentT(double p, long df) {
+        if (df == 1) {
+            return Math.tan(Math.PI * (p - 0.5));
+        }
+        if (df == 2) {
+            return (2 * p - 1) / Math.sqrt(2 * p * (1 - p));
+        }
+        double z = normal(p);
+        double z2 = z * z;
+        double g1 = (z2 + 1) * z / 4;
+        double g2 = ((5 * z2 + 16) * z2 + 3) * z / 96;
+        double g3 = (((3 * z2 + 19) * z2 + 17) * z2 - 15) * z / 384;
+        double g4 = ((((79 * z2 + 776) * z2 + 1482) * z2 - 1920) * z2 - 945) * z / 92160;
+        double n = df;
+        return z + g1 / n + g2 / (n * n) + g3 / (n * n * n) + g4 / (n * n * n * n);
+    }
+
+    /**
+     * Quantile p of the standard normal distribution, by Acklam's
+     * rational approximation, good to about nine figures.
+     */
+    static double normal(double p) {
+        if (p <= 0 || p >= 1)
+            throw new IllegalArgumentException("Probability must be between 0 and 1 exclusive.");
+        double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            return -normal(1 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
@@ -0,0 +1,488 @@
+package data;
+
+import checkpoint.CheckpointInput;
+import checkpoint.CheckpointOutput;
+import environment.*;
+import models.CompartmentModel;
+import models.ModelType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A complete set of simulation parameters, together with the Random
+ * used by the run they describe. SimData reads and writes whichever
+ * SimConfig is bound to the current thread, so several simulations
+ * can run side by side, each with its own configuration and seed.
+ */
+public class SimConfig {
+
+    private Random random;
+    private int depth = 20;
+    private int width = 20;
+    private int seed = 999;
+    private int runDelay = 100;
+    private int runtime = 100;
+    private double agentProb = 0.05;
+    // default probability that an Infected Agent will be generated
+    private double agentZeroProb = 0.01;
+    // default flags for policies
+    private boolean socialDistancing = false;
+    private boolean maskMandate = false;
+    private boolean quarantining = false;
+    private double socialDistancingCompliance = 0.5;
+    private double maskCompliance = 0.9;
+    private double selfQuarantineCompliance = 0.8;
+    // default reduction that mask-wearing provides
+    private double maskWearingReduction = 0.8;
+    private double symptomatic = 0.33;
+    private double infectivity = 0.33;
+    private int infectiousPeriodMin = 14;
+    private int infectiousPeriodMax = 42;
+    private ModelType modelType = ModelType.SIR;
+    private int latentPeriodMin = 2;
+    private int latentPeriodMax = 7;
+    // mean number of steps before a Recovered agent becomes Susceptible again (SIRS)
+    private int immunityPeriod = 90;
+    // probability that an Infected agent dies rather than recovers (SEIRD)
+    private double fatality = 0.01;
+    // compiled from the parameters above when first needed
+    private CompartmentModel model;
+    private Class<?> fieldClass = Grid.class;
+    private FieldType fieldType = FieldType.GRID;
+    private NetworkType networkType = NetworkType.FREESCALE;
+    // threads used to generate a network's topology; the network is the
+    // same for any number, so this is not saved in checkpoints
+    private int generatorThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Create a copy of this configuration. The copy has its own
+     * Random, which is seeded from the copied seed when first used.
+     * @return an independent copy of these parameters
+     */
+    public SimConfig copy() {
+        SimConfig c = new SimConfig();
+        c.depth = depth;
+        c.width = width;
+        c.seed = seed;
+        c.runDelay = runDelay;
+        c.runtime = runtime;
+        c.agentProb = agentProb;
+        c.agentZeroProb = agentZeroProb;
+        c.socialDistancing = socialDistancing;
+        c.maskMandate = maskMandate;
+        c.quarantining = quarantining;
+        c.socialDistancingCompliance = socialDistancingCompliance;
+        c.maskCompliance = maskCompliance;
+        c.selfQuarantineCompliance = selfQuarantineCompliance;
+        c.maskWearingReduction = maskWearingReduction;
+        c.symptomatic = symptomatic;
+        c.infectivity = infectivity;
+        c.infectiousPeriodMin = infectiousPeriodMin;
+        c.infectiousPeriodMax = infectiousPeriodMax;
+        c.modelType = modelType;
+        c.latentPeriodMin = latentPeriodMin;
+        c.latentPeriodMax = latentPeriodMax;
+        c.immunityPeriod = immunityPeriod;
+        c.fatality = fatality;
+        c.fieldClass = fieldClass;
+        c.fieldType = fieldType;
+        c.networkType = networkType;
+        c.generatorThreads = generatorThreads;
+        return c;
+    }
+
+    /**
+     * Save every parameter and the state of the Random to a checkpoint.
+     */
+    public void writeTo(CheckpointOutput out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(width);
+        out.writeInt(seed);
+        out.writeInt(runDelay);
+        out.writeInt(runtime);
+        out.writeDouble(agentProb);
+        out.writeDouble(agentZeroProb);
+        out.writeBoolean(socialDistancing);
+        out.writeBoolean(maskMandate);
+        out.writeBoolean(quarantining);
+        out.writeDouble(socialDistancingCompliance);
+        out.writeDouble(maskCompliance);
+        out.writeDouble(selfQuarantineCompliance);
+        out.writeDouble(maskWearingReduction);
+        out.writeDouble(symptomatic);
+        out.writeDouble(infectivity);
+        out.writeInt(infectiousPeriodMin);
+        out.writeInt(infectiousPeriodMax);
+        out.writeString(modelType.name());
+        out.writeInt(latentPeriodMin);
+        out.writeInt(latentPeriodMax);
+        out.writeInt(immunityPeriod);
+        out.writeDouble(fatality);
+        out.writeString(fieldClass.getName());
+        out.writeString(fieldType.name());
+        out.writeString(networkType.name());
+        // Random keeps its state private, but serialises all of it
+        if (random == null) {
+            out.writeInt(0);
+        }
+        else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream o = new ObjectOutputStream(bytes)) {
+                o.writeObject(random);
+            }
+            out.writeInt(bytes.size());
+            out.writeBytes(bytes.toByteArray(), bytes.size());
+        }
+    }
+
+    /**
+     * Replace every parameter and the Random with those saved by writeTo,
+     * so that the run carries on exactly as it would have.
+     */
+    public void readFrom(CheckpointInput in) throws IOException {
+        depth = in.readInt();
+        width = in.readInt();
+        seed = in.readInt();
+        runDelay = in.readInt();
+        runtime = in.readInt();
+        agentProb = in.readDouble();
+        agentZeroProb = in.readDouble();
+        socialDistancing = in.readBoolean();
+        maskMandate = in.readBoolean();
+        quarantining = in.readBoolean();
+        socialDistancingCompliance = in.readDouble();
+        maskCompliance = in.readDouble();
+        selfQuarantineCompliance = in.readDouble();
+        maskWearingReduction = in.readDouble();
+        symptomatic = in.readDouble();
+        infectivity = in.readDouble();
+        infectiousPeriodMin = in.readInt();
+        infectiousPeriodMax = in.readInt();
+        modelType = ModelType.valueOf(in.readString());
+        latentPeriodMin = in.readInt();
+        latentPeriodMax = in.readInt();
+        immunityPeriod = in.readInt();
+        fatality = in.readDouble();
+        String fieldClassName = in.readString();
+        fieldClass = fieldClassName.equals(MobileNetwork.class.getName()) ? MobileNetwork.class : Grid.class;
+        fieldType = FieldType.valueOf(in.readString());
+        networkType = NetworkType.valueOf(in.readString());
+        model = null;
+        int length = in.readInt();
+        if (length == 0) {
+            random = null;
+        }
+        else {
+            byte[] bytes = new byte[length];
+            in.readBytes(bytes, length);
+            try (ObjectInputStream o = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                random = (Random) o.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("The checkpoint's Random could not be read.", e);
+            }
+        }
+    }
+
+    /**
+     * @return every parameter of this configuration by name, in a fixed
+     *         order, as text
+     */
+    public Map<String, String> getParameters() {
+        Map<String, String> p = new LinkedHashMap<>();
+        p.put("Seed", String.valueOf(seed));
+        p.put("Depth", String.valueOf(depth));
+        p.put("Width", String.valueOf(width));
+        p.put("Agent Probability", String.valueOf(agentProb));
+        p.put("Agent 0 Probability", String.valueOf(agentZeroProb));
+        p.put("Infectiousness", String.valueOf(infectivity));
+        p.put("Social Distancing", String.valueOf(socialDistancing));
+        p.put("Mask Mandate", String.valueOf(maskMandate));
+        p.put("Quarantining", String.valueOf(quarantining));
+        p.put("Social Distancing Compliance", String.valueOf(socialDistancingCompliance));
+        p.put("Mask Compliance", String.valueOf(maskCompliance));
+        p.put("Quarantining Compliance", String.valueOf(selfQuarantineCompliance));
+        p.put("Mask Risk Reduction", String.valueOf(maskWearingReduction));
+        p.put("Symptomatic Probability", String.valueOf(symptomatic));
+        p.put("Infectious Period Min", String.valueOf(infectiousPeriodMin));
+        p.put("Infectious Period Max", String.valueOf(infectiousPeriodMax));
+        p.put("Model", String.valueOf(modelType));
+        p.put("Latent Period Min", String.valueOf(latentPeriodMin));
+        p.put("Latent Period Max", String.valueOf(latentPeriodMax));
+        p.put("Immunity Period", String.valueOf(immunityPeriod));
+        p.put("Fatality Probability", String.valueOf(fatality));
+        p.put("Field type", String.valueOf(fieldType));
+        p.put("Network type", String.valueOf(networkType));
+        return p;
+    }
+
+    /**
+     * @return the Random of this configuration, seeded on first use
+     */
+    public Random getRandom() {
+        if (random == null) {
+            random = new Random(seed);
+        }
+        return random;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+    public void setDepth(int depth) {
+        if (depth < 1) { throw new IllegalArgumentException(); }
+        this.depth = depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+    public void setWidth(int width) {
+        if (width < 1) { throw new IllegalArgumentException(); }
+        this.width = width;
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+    public void setSeed(int seed) {
+        this.seed = seed;
+    }
+
+    public int getRunDelay() {
+        return runDelay;
+    }
+    public void setRunDelay(int runDelay) {
+        if (runDelay < 1 || runDelay > 1000) {
+            throw new IllegalArgumentException("Run Delay must be between 0 and 1000"); }
+        this.runDelay = runDelay;
+    }
+
+    public int getRuntime() {
+        return runtime;
+    }
+    public void setRuntime(int runtime) {
+        if (runtime < 1) { throw new IllegalArgumentException(); }
+        this.runtime = runtime;
+    }
+
+    public double getAgentProbability() {
+        return agentProb;
+    }
+    public void setAgentProbability(double prob) {
+        if (prob < 0 || prob > 1.0)
+            throw new IllegalArgumentException("Agent probability must be between 0 and 1.0");
+        agentProb = prob;
+    }
+
+    public double getAgentZeroProbability() {
+        return agentZeroProb;
+    }
+    public void setAgentZeroProbability(double prob) {
+        if (prob < 0 || prob > 1.0)
+            throw new IllegalArgumentException("Agent Zero probability must be between 0 and 1.0");
+        agentZeroProb = prob;
+    }
+
+    public boolean getSocialDistancing() {
+        return socialDistancing;
+    }
+    public void setSocialDistancing(boolean flag) {
+        socialDistancing = flag;
+    }
+
+    public boolean getMasking() {
+        return maskMandate;
+    }
+    public void setMasking(boolean flag) {
+        maskMandate = flag;
+    }
+
+    public boolean getQuarantining() {
+        return quarantining;
+    }
+    public void setQuarantining(boolean flag) {
+        quarantining = flag;
+    }
+
+    public double getSocialDistancingCompliance() {
+        return socialDistancingCompliance;
+    }
+    public void setSocialDistancingCompliance(double compliance) {
+        if (compliance < 0 || compliance > 1)
+            throw new IllegalArgumentException("Social distancing compliance must be between 0 and 1 inclusive.");
+        socialDistancingCompliance = compliance;
+    }
+
+    public double getMaskCompliance() {
+        return maskCompliance;
+    }
+    public void setMaskCompliance(double compliance) {
+        if (compliance < 0 || compliance > 1)
+            throw new IllegalArgumentException("Mask compliance must be between 0 and 1 inclusive.");
+        maskCompliance = compliance;
+    }
+
+    public double getQuarantineCompliance() {
+        return selfQuarantineCompliance;
+    }
+    public void setQuarantiningCompliance(double compliance) {
+        if (compliance < 0 || compliance > 1)
+            throw new IllegalArgumentException("Quarantining compliance must be between 0 and 1 inclusive.");
+        selfQuarantineCompliance = compliance;
+    }
+
+    public double getMaskRiskReduction() {
+        return maskWearingReduction;
+    }
+    public void setMaskRiskReduction(double reduction) {
+        if (reduction < 0.0 || reduction > 1.0)
+            throw new IllegalArgumentException("Mask reduction must be between 0 and 1 inclusive.");
+        maskWearingReduction = reduction;
+    }
+
+    public double getSymptomaticProbability() {
+        return symptomatic;
+    }
+    public void setSymptomaticProbability(double prob) {
+        if (prob < 0 || prob > 1)
+            throw new IllegalArgumentException(" Symptomatic probability must be between 0 and 1 inclusive.");
+        symptomatic = prob;
+    }
+
+    public double getInfectivity() {
+        return infectivity;
+    }
+    public void setInfectivity(double inf) {
+        if (inf < 0 || inf > 1.0)
+            throw new IllegalArgumentException(" Infectiousness must be between 0 and 1 inclusive.");
+        infectivity = inf;
+    }
+
+    public int getInfectiousPeriodMin() {
+        return infectiousPeriodMin;
+    }
+    public void setInfectiousPeriodMin(int period) {
+        if (period < 1)
+            throw new IllegalArgumentException();
+        if (period > infectiousPeriodMax)
+            throw new IllegalArgumentException("Infectious Min must be less than Infectious Max");
+        infectiousPeriodMin = period;
+        model = null;
+    }
+
+    public int getInfectiousPeriodMax() {
+        return infectiousPeriodMax;
+    }
+    public void setInfectiousPeriodMax(int period) {
+        if (period < 1)
+            throw new IllegalArgumentException();
+        if (period < infectiousPeriodMin)
+            throw new IllegalArgumentException("Infectious Max must be greater than Infectious Min");
+        infectiousPeriodMax = period;
+        model = null;
+    }
+
+    /**
+     * @return the disease model of this configuration, compiled from
+     *         its current parameters
+     */
+    public CompartmentModel getModel() {
+        if (model == null) {
+            model = CompartmentModel.of(this);
+        }
+        return model;
+    }
+
+    public ModelType getModelType() {
+        return modelType;
+    }
+    public void setModelType(ModelType modelType) {
+        if (modelType == null) { throw new IllegalArgumentException(); }
+        this.modelType = modelType;
+        model = null;
+    }
+
+    public int getLatentPeriodMin() {
+        return latentPeriodMin;
+    }
+    public void setLatentPeriodMin(int period) {
+        if (period < 1)
+            throw new IllegalArgumentException();
+        if (period > latentPeriodMax)
+            throw new IllegalArgumentException("Latent Min must be less than Latent Max");
+        latentPeriodMin = period;
+        model = null;
+    }
+
+    public int getLatentPeriodMax() {
+        return latentPeriodMax;
+    }
+    public void setLatentPeriodMax(int period) {
+        if (period < 1)
+            throw new IllegalArgumentException();
+        if (period < latentPeriodMin)
+            throw new IllegalArgumentException("Latent Max must be greater than Latent Min");
+        latentPeriodMax = period;
+        model = null;
+    }
+
+    public int getImmunityPeriod() {
+        return immunityPeriod;
+    }
+    public void setImmunityPeriod(int period) {
+        if (period < 1)
+            throw new IllegalArgumentException("Immunity period must be at least 1 step.");
+        immunityPeriod = period;
+        model = null;
+    }
+
+    public double getFatalityProbability() {
+        return fatality;
+    }
+    public void setFatalityProbability(double prob) {
+        if (prob < 0 || prob > 1)
+            throw new IllegalArgumentException("Fatality probability must be between 0 and 1 inclusive.");
+        fatality = prob;
+        model = null;
+    }
+
+    public Class<?> getFieldClass() {
+        return fieldClass;
+    }
+    public void setFieldClass(Class<?> fieldClass) {
+        if (fieldClass != Grid.class && fieldClass != MobileNetwork.class) {
+            throw new IllegalArgumentException(fieldClass.toString());
+        }
+        this.fieldClass = fieldClass;
+    }
+
+    public FieldType getFieldType() {
+        return fieldType;
+    }
+    public void setFieldType(FieldType fieldType) {
+        this.fieldType = fieldType;
+    }
+
+    public NetworkType getNetworkType() { return networkType; }
+    public void setNetworkType(NetworkType networkType) { this.networkType = networkType; }
+
+    public int getGeneratorThreads() {
+        return generatorThreads;
+    }
+    /**
+     * @param threads the number of threads to generate network topologies
+     *                with; 1 when runs are already side by side on every core
+     */
+    public void setGeneratorThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Generator threads must be at least 1.");
+        generatorThreads = threads;
+    }
+}
@@ -1,223 +1,240 @@
 package data;
 
 import environment.*;
-import obsolete.Network;
+import models.CompartmentModel;
+import models.ModelType;
 
 import java.util.Random;
-
+import java.util.function.Supplier;
+
+/**
+ * Static access to the parameters of the running simulation.
+ * Every accessor reads or writes the SimConfig bound to the calling
+ * thread. Threads that have not bound a configuration share a single
+ * global one, which is what the setup form fills in.
+ */
 public class SimData {
 
-    private static Random RANDOM;
+    private static final SimConfig GLOBAL = new SimConfig();
+    private static final ThreadLocal<SimConfig> CURRENT = ThreadLocal.withInitial(() -> GLOBAL);
 
     /**
-     * Singleton instance of Random.
-     * @return the singleton instance of the Random class
+     * @return the configuration bound to the calling thread
      */
-    public static Random getRandom() {
-        if (RANDOM == null) {
-            RANDOM = new Random(SEED);
+    public static SimConfig current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run a task with the given configuration bound to the calling
+     * thread. The previous binding is restored afterwards, so calls
+     * may be nested, e.g. when a pool thread picks up another run
+     * while it waits on a join.
+     * @param config the configuration the task should see
+     * @param task the work to run
+     * @return the result of the task
+     */
+    public static <T> T runWith(SimConfig config, Supplier<T> task) {
+        SimConfig previous = CURRENT.get();
+        CURRENT.set(config);
+        try {
+            return task.get();
+        } finally {
+            CURRENT.set(previous);
         }
-        return RANDOM;
     }
 
-    private static int DEPTH = 20;
+    /**
+     * @return the Random of the current configuration
+     */
+    public static Random getRandom() {
+        return current().getRandom();
+    }
+
     public static int getDepth() {
-        return DEPTH;
+        return current().getDepth();
     }
     public static void setDepth(int depth) {
-        if (depth < 1) { throw new IllegalArgumentException(); }
-        DEPTH = depth;
+        current().setDepth(depth);
     }
 
-    private static int WIDTH = 20;
     public static int getWidth() {
-        return WIDTH;
+        return current().getWidth();
     }
     public static void setWidth(int width) {
-        if (width < 1) { throw new IllegalArgumentException(); }
-        WIDTH = width;
+        current().setWidth(width);
     }
 
-    private static int SEED = 999;
     public static int getSeed() {
-        return SEED;
+        return current().getSeed();
     }
     public static void setSeed(int seed) {
-        SEED = seed;
+        current().setSeed(seed);
     }
 
-    private static int RUN_DELAY = 100;
     public static int getRunDelay() {
-        return RUN_DELAY;
+        return current().getRunDelay();
     }
     public static void setRunDelay(int runDelay) {
-        if (runDelay < 1 || runDelay > 1000) {
-            throw new IllegalArgumentException("Run Delay must be between 0 and 1000"); }
-        RUN_DELAY = runDelay;
+        current().setRunDelay(runDelay);
     }
 
-    private static int RUNTIME = 100;
     public static int getRuntime() {
-        return RUNTIME;
+        return current().getRuntime();
     }
     public static void setRuntime(int runtime) {
-        if (runtime < 1) { throw new IllegalArgumentException(); }
-        RUNTIME = runtime;
+        current().setRuntime(runtime);
     }
 
-    private static double AGENT_PROB = 0.05;
     public static double getAgentProbability() {
-        return AGENT_PROB;
+        return current().getAgentProbability();
     }
     public static void setAgentProbability(double prob) {
-        if (prob < 0 || prob > 1.0)
-            throw new IllegalArgumentException("Agent probability must be between 0 and 1.0");
-        AGENT_PROB = prob;
+        current().setAgentProbability(prob);
     }
 
-    // default probability that an Infected Agent will be generated
-    private static double AGENT_ZERO_PROB = 0.01;
     public static double getAgentZeroProbability() {
-        return AGENT_ZERO_PROB;
+        return current().getAgentZeroProbability();
     }
     public static void setAgentZeroProbability(double prob) {
-        if (prob < 0 || prob > 1.0)
-            throw new IllegalArgumentException("Agent Zero probability must be between 0 and 1.0");
-        AGENT_ZERO_PROB = prob;
+        current().setAgentZeroProbability(prob);
     }
 
-    // default flags for policies
-    private static boolean SOCIAL_DISTANCING = false;
     public static boolean getSocialDistancing() {
-        return SOCIAL_DISTANCING;
+        return current().getSocialDistancing();
     }
     public static void setSocialDistancing(boolean flag) {
-        SOCIAL_DISTANCING = flag;
+        current().setSocialDistancing(flag);
     }
 
-    private static boolean MASK_MANDATE = false;
     public static boolean getMasking() {
-        return MASK_MANDATE;
+        return current().getMasking();
     }
     public static void setMasking(boolean flag) {
-        MASK_MANDATE = flag;
+        current().setMasking(flag);
     }
 
-    private static boolean QUARANTINING = false;
     public static boolean getQuarantining() {
-        return QUARANTINING;
+        return current().getQuarantining();
     }
     public static void setQuarantining(boolean flag) {
-        QUARANTINING = flag;
+        current().setQuarantining(flag);
     }
 
-    private static double SOCIAL_DISTANCING_COMPLIANCE = 0.5;
     public static double getSocialDistancingCompliance() {
-        return SOCIAL_DISTANCING_COMPLIANCE;
+        return current().getSocialDistancingCompliance();
     }
     public static void setSocialDistancingCompliance(double compliance) {
-        if (compliance < 0 || compliance > 1)
-            throw new IllegalArgumentException("Social distancing compliance must be between 0 and 1 inclusive.");
-        SOCIAL_DISTANCING_COMPLIANCE = compliance;
+        current().setSocialDistancingCompliance(compliance);
     }
 
-    private static double MASK_COMPLIANCE = 0.9;
     public static double getMaskCompliance() {
-        return MASK_COMPLIANCE;
+        return current().getMaskCompliance();
     }
     public static void setMaskCompliance(double compliance) {
-        if (compliance < 0 || compliance > 1)
-            throw new IllegalArgumentException("Mask compliance must be between 0 and 1 inclusive.");
-        MASK_COMPLIANCE = compliance;
+        current().setMaskCompliance(compliance);
     }
 
-    private static double SELF_QUARANTINE_COMPLIANCE = 0.8;
     public static double getQuarantineCompliance() {
-        return SELF_QUARANTINE_COMPLIANCE;
+        return current().getQuarantineCompliance();
     }
     public static void setQuarantiningCompliance(double compliance) {
-        if (compliance < 0 || compliance > 1)
-            throw new IllegalArgumentException("Quarantining compliance must be between 0 and 1 inclusive.");
-        SELF_QUARANTINE_COMPLIANCE = compliance;
+        current().setQuarantiningCompliance(compliance);
     }
 
-    // default reduction that mask-wearing provides
-    private static double MASK_WEARING_REDUCTION = 0.8;
     public static double getMaskRiskReduction() {
-        return MASK_WEARING_REDUCTION;
+        return current().getMaskRiskReduction();
     }
     public static void setMaskRiskReduction(double reduction) {
-        if (reduction < 0.0 || reduction > 1.0)
-            throw new IllegalArgumentException("Mask reduction must be between 0 and 1 inclusive.");
-        MASK_WEARING_REDUCTION = reduction;
+        current().setMaskRiskReduction(reduction);
     }
 
-    private static double SYMPTOMATIC = 0.33;
     public static double getSymptomaticProbability() {
-        return SYMPTOMATIC;
+        return current().getSymptomaticProbability();
     }
     public static void setSymptomaticProbability(double prob) {
-        if (prob < 0 || prob > 1)
-            throw new IllegalArgumentException(" Symptomatic probability must be between 0 and 1 inclusive.");
-        SYMPTOMATIC = prob;
+        current().setSymptomaticProbability(prob);
     }
 
-    private static double INFECTIVITY = 0.33;
     public static double getInfectivity() {
-        return INFECTIVITY;
+        return current().getInfectivity();
     }
     public static void setInfectivity(double inf) {
-        if (inf < 0 || inf > 1.0)
-            throw new IllegalArgumentException(" Infectiousness must be between 0 and 1 inclusive.");
-        INFECTIVITY = inf;
+        current().setInfectivity(inf);
     }
 
-    private static int INFECTIOUS_PERIOD_MIN = 14;
     public static int getInfectiousPeriodMin() {
-        return INFECTIOUS_PERIOD_MIN;
+        return current().getInfectiousPeriodMin();
     }
     public static void setInfectiousPeriodMin(int period) {
-        if (period < 1)
-            throw new IllegalArgumentException();
-        if (period > INFECTIOUS_PERIOD_MAX)
-            throw new IllegalArgumentException("Infectious Min must be less than Infectious Max");
-        INFECTIOUS_PERIOD_MIN = period;
+        current().setInfectiousPeriodMin(period);
     }
 
-    private static int INFECTIOUS_PERIOD_MAX = 42;
     public static int getInfectiousPeriodMax() {
-        return INFECTIOUS_PERIOD_MAX;
+        return current().getInfectiousPeriodMax();
     }
     public static void setInfectiousPeriodMax(int period) {
-        if (period < 1)
-            throw new IllegalArgumentException();
-        if (period < INFECTIOUS_PERIOD_MIN)
-            throw new IllegalArgumentException("Infectious Max must be greater than Infectious Min");
-        INFECTIOUS_PERIOD_MAX = period;
+        current().setInfectiousPeriodMax(period);
+    }
+
+    public static CompartmentModel getModel() {
+        return current().getModel();
+    }
+
+    public static ModelType getModelType() {
+        return current().getModelType();
+    }
+    public static void setModelType(ModelType modelType) {
+        current().setModelType(modelType);
+    }
+
+    public static int getLatentPeriodMin() {
+        return current().getLatentPeriodMin();
+    }
+    public static void setLatentPeriodMin(int period) {
+        current().setLatentPeriodMin(period);
+    }
+
+    public static int getLatentPeriodMax() {
+        return current().getLatentPeriodMax();
+    }
+    public static void setLatentPeriodMax(int period) {
+        current().setLatentPeriodMax(period);
+    }
+
+    public static int getImmunityPeriod() {
+        return current().getImmunityPeriod();
+    }
+    public static void setImmunityPeriod(int period) {
+        current().setImmunityPeriod(period);
+    }
+
+    public static double getFatalityProbability() {
+        return current().getFatalityProbability();
+    }
+    public static void setFatalityProbability(double prob) {
+        current().setFatalityProbability(prob);
     }
 
-    private static Class<?> FIELD_CLASS = Grid.class;
     public static Class<?> getFieldClass() {
-        return FIELD_CLASS;
+        return current().getFieldClass();
     }
     public static void setFieldClass(Class<?> fieldClass) {
-        if (fieldClass != Grid.class && fieldClass != MobileNetwork.class) {
-            throw new IllegalArgumentException(fieldClass.toString());
-        }
-        FIELD_CLASS =  fieldClass;
+        current().setFieldClass(fieldClass);
     }
 
-    private static FieldType FIELD_TYPE = FieldType.GRID;
     public static FieldType getFieldType() {
-        return FIELD_TYPE;
+        return current().getFieldType();
     }
     public static void setFieldType(FieldType fieldType) {
-        FIELD_TYPE = fieldType;
+        current().setFieldType(fieldType);
     }
 
-    private static NetworkType NETWORK_TYPE = NetworkType.FREESCALE;
-    public static NetworkType getNetworkType() { return NETWORK_TYPE; }
-    public static void setNetworkType(NetworkType networkType) { NETWORK_TYPE = networkType; }
+    public static NetworkType getNetworkType() { return current().getNetworkType(); }
+    public static void setNetworkType(NetworkType networkType) { current().setNetworkType(networkType); }
+
+    public static int getGeneratorThreads() { return current().getGeneratorThreads(); }
+    public static void setGeneratorThreads(int threads) { current().setGeneratorThreads(threads); }
 
     public static String DATA_FILE_DIR = "./src/main/resources/";
     public static String DATA_FILE_PATH = "simulation_record_default";
@@ -1,36 +1,188 @@
 package data;
 
+import checkpoint.CheckpointInput;
+import checkpoint.CheckpointOutput;
+import io.StreamingRecordWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Record for storing data from a simulation run.
+ * Each step is kept as a row of primitive counts; text rows are only
+ * produced when the full record is written out.
+ * A record can also stream its rows to a StreamingRecordWriter as they
+ * are added, and can be told not to keep them, so that long runs use
+ * the same memory however many steps they take.
  */
 public class SimulationRecord {
     private List<String[]> headers;
-    private List<String[]> data;
+    private List<int[]> data;
+    private StreamingRecordWriter writer;
+    private boolean retain = true;
+    private int rows;
 
     public SimulationRecord() {
         headers = new ArrayList<>();
         data = new ArrayList<>();
     }
 
+    /**
+     * Stream every header and row to a writer, starting with those
+     * already recorded.
+     * @param writer where to send the rows
+     * @param retain false to stop keeping rows in memory
+     */
+    public void streamTo(StreamingRecordWriter writer, boolean retain) {
+        this.writer = writer;
+        this.retain = retain;
+        try {
+            for (String[] header : headers) {
+                writer.writeHeader(header);
+            }
+            for (int[] row : data) {
+                writer.writeRow(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!retain) {
+            data.clear();
+        }
+    }
+
+    /**
+     * Stop streaming, write out any rows still queued and close the file.
+     */
+    public void closeStream() throws IOException {
+        if (writer != null) {
+            StreamingRecordWriter w = writer;
+            writer = null;
+            w.close();
+        }
+    }
+
     public void addHeader(String[] header) {
         headers.add(header);
+        if (writer != null) {
+            try {
+                writer.writeHeader(header);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public void addRecord(int[] record) {
+        rows++;
+        if (writer != null) {
+            try {
+                writer.writeRow(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (retain) {
+            data.add(record);
+        }
+    }
+
+    /**
+     * Save the headers and the rows kept in memory to a checkpoint.
+     */
+    public void writeTo(CheckpointOutput out) throws IOException {
+        out.writeInt(headers.size());
+        for (String[] header : headers) {
+            out.writeInt(header.length);
+            for (String cell : header) {
+                out.writeString(cell);
+            }
+        }
+        out.writeInt(rows);
+        out.writeInt(data.size());
+        for (int[] row : data) {
+            out.writeInt(row.length);
+            out.writeInts(row, row.length);
+        }
+    }
+
+    /**
+     * Load a record saved by writeTo. Rows that were not kept when it
+     * was saved are counted by size but cannot be brought back.
+     */
+    public static SimulationRecord readFrom(CheckpointInput in) throws IOException {
+        SimulationRecord r = new SimulationRecord();
+        int headerCount = in.readInt();
+        for (int i = 0; i < headerCount; i++) {
+            String[] header = new String[in.readInt()];
+            for (int c = 0; c < header.length; c++) {
+                header[c] = in.readString();
+            }
+            r.headers.add(header);
+        }
+        r.rows = in.readInt();
+        int kept = in.readInt();
+        for (int i = 0; i < kept; i++) {
+            int[] row = new int[in.readInt()];
+            in.readInts(row, row.length);
+            r.data.add(row);
+        }
+        return r;
+    }
+
+    public List<String[]> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return the number of rows added, whether or not they were kept
+     */
+    public int size() {
+        return rows;
+    }
+
+    public boolean isRetained() {
+        return retain;
     }
 
     public void addRecord(String[] record) {
-        data.add(record);
+        int[] row = new int[record.length];
+        for (int i = 0; i < record.length; i++) {
+            row[i] = Integer.parseInt(record[i]);
+        }
+        addRecord(row);
     }
 
-    public List<String[]> getData() {
+    /**
+     * @return the rows of counts recorded so far, one per step; empty
+     *         once the record is streaming without keeping its rows
+     */
+    public List<int[]> getCounts() {
         return data;
     }
 
+    public List<String[]> getData() {
+        List<String[]> rows = new ArrayList<>(data.size());
+        for (int[] row : data) {
+            rows.add(toStrings(row));
+        }
+        return rows;
+    }
+
     public List<String[]> getFullRecord() {
         List<String[]> fullRecord = new ArrayList<>();
         fullRecord.addAll(headers);
-        fullRecord.addAll(data);
+        fullRecord.addAll(getData());
         return fullRecord;
     }
+
+    private static String[] toStrings(int[] row) {
+        String[] strings = new String[row.length];
+        for (int i = 0; i < row.length; i++) {
+            strings[i] = String.valueOf(row[i]);
+        }
+        return strings;
+    }
 }
@@ -0,0 +1,179 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Approximate quantiles of a stream of values in a fixed amount of
+ * memory, as a merging t-digest (Dunning and Ertl). Values are kept as
+ * a sorted list of weighted centroids; centroids near either tail are
+ * held small, so extreme quantiles stay accurate, while those near the
+ * median may absorb many values. New values are buffered and merged
+ * into the centroids a buffer at a time. Two digests can be merged.
+ */
+public class TDigest {
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroids;
+    // values added since the last merge, allocated on first use
+    private double[] buffer;
+    private int buffered;
+    private double total;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compression roughly the most centroids kept; higher is more
+     *                    accurate and larger
+     */
+    public TDigest(double compression) {
+        if (compression < 10)
+            throw new IllegalArgumentException("Compression must be at least 10.");
+        this.compression = compression;
+    }
+
+    public void add(double x) {
+        if (buffer == null) {
+            buffer = new double[(int) (5 * compression)];
+        }
+        buffer[buffered++] = x;
+        total++;
+        if (x < min) { min = x; }
+        if (x > max) { max = x; }
+        if (buffered == buffer.length) {
+            compress();
+        }
+    }
+
+    /**
+     * Add every value of another digest to this one.
+     */
+    public void merge(TDigest other) {
+        other.compress();
+        if (other.centroids == 0) { return; }
+        compress();
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        mergeSorted(other.means, other.weights, other.centroids);
+    }
+
+    public TDigest copy() {
+        compress();
+        TDigest c = new TDigest(compression);
+        c.means = Arrays.copyOf(means, centroids);
+        c.weights = Arrays.copyOf(weights, centroids);
+        c.centroids = centroids;
+        c.total = total;
+        c.min = min;
+        c.max = max;
+        return c;
+    }
+
+    public long getCount() {
+        return (long) total;
+    }
+
+    /**
+     * @param q between 0 and 1 inclusive
+     * @return the approximate value below which a fraction q of the
+     *         values lie, or NaN if no values have been added
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1)
+            throw new IllegalArgumentException("Quantile must be between 0 and 1 inclusive.");
+        compress();
+        if (centroids == 0) { return Double.NaN; }
+        if (centroids == 1) { return means[0]; }
+        // interpolate between the centres of neighbouring centroids, and
+        // between the extreme centroids and the true min and max
+        double index = q * total;
+        double centre = weights[0] / 2;
+        if (index < centre) {
+            return min + (means[0] - min) * index / centre;
+        }
+        for (int i = 0; i + 1 < centroids; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (index < centre + gap) {
+                return means[i] + (means[i + 1] - means[i]) * (index - centre) / gap;
+            }
+            centre += gap;
+        }
+        int last = centroids - 1;
+        return means[last] + (max - means[last]) * Math.min(1, (index - centre) / (weights[last] / 2));
+    }
+
+    private void compress() {
+        if (buffered == 0) { return; }
+        Arrays.sort(buffer, 0, buffered);
+        int n = buffered;
+        buffered = 0;
+        mergeSorted(buffer, null, n);
+    }
+
+    /**
+     * Merge sorted weighted values into the centroids, which must already
+     * count their weight in total, joining neighbours while the joined
+     * centroid spans at most one unit of the scale function.
+     * @param ws the weights, or null if every weight is 1
+     */
+    private void mergeSorted(double[] xs, double[] ws, int n) {
+        double[] outMeans = new double[centroids + n];
+        double[] outWeights = new double[centroids + n];
+        int out = 0;
+        int i = 0;
+        int j = 0;
+        double mean = 0;
+        double weight = 0;
+        double before = 0;
+        double limit = 0;
+        while (i < centroids || j < n) {
+            double x;
+            double w;
+            if (j == n || (i < centroids && means[i] <= xs[j])) {
+                x = means[i];
+                w = weights[i++];
+            }
+            else {
+                x = xs[j];
+                w = ws == null ? 1 : ws[j];
+                j++;
+            }
+            if (weight > 0 && before + weight + w <= limit) {
+                weight += w;
+                mean += (x - mean) * w / weight;
+                continue;
+            }
+            if (weight > 0) {
+                outMeans[out] = mean;
+                outWeights[out++] = weight;
+                before += weight;
+            }
+            limit = total * nextQuantile(before / total);
+            mean = x;
+            weight = w;
+        }
+        outMeans[out] = mean;
+        outWeights[out++] = weight;
+        means = out == outMeans.length ? outMeans : Arrays.copyOf(outMeans, out);
+        weights = out == outWeights.length ? outWeights : Arrays.copyOf(outWeights, out);
+        centroids = out;
+    }
+
+    /**
+     * @return the quantile one unit of the scale function
+     *         k(q) = compression / 2pi * asin(2q - 1) beyond q
+     */
+    private double nextQuantile(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * Math.min(q, 1) - 1) + 1;
+        double angle = k * 2 * Math.PI / compression;
+        return angle >= Math.PI / 2 ? 1 : (Math.sin(angle) + 1) / 2;
+    }
+}
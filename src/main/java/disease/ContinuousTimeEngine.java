@@ -0,0 +1,415 @@
+package disease;
+
+import actors.Agent;
+import actors.Entity;
+import data.SimData;
+import data.SimulationRecord;
+import environment.Field;
+import environment.Location;
+import environment.MobileNetwork;
+import graphs.CsrGraph;
+import models.Compartment;
+import models.CompartmentModel;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Event-driven, continuous-time run of the disease over a field's
+ * contact structure, intended for network fields where most nodes are
+ * unaffected by any given event.
+ *
+ * The contacts between agents are taken once from the field and treated
+ * as static; agents do not move. On a MobileNetwork they are read
+ * straight from its CsrGraph topology. Every compartment with a timed exit is
+ * left at rate one over its mean dwell time, and each Infected agent
+ * passes the disease along each contact at the hazard equivalent to
+ * the per-step infectivity (reduced if the infected agent is masked).
+ *
+ * In NEXT_REACTION mode each node holds at most one pending event in
+ * an EventQueue: its next transition, or, while Susceptible, the
+ * earliest infection proposed by an Infected neighbour before that
+ * neighbour recovers. The cost is proportional to the number of events
+ * times the degree of the node involved, however long the run is. In
+ * TAU_LEAP mode time advances in fixed leaps and each active node and
+ * each of its contacts fires at most once per leap, which is an
+ * approximation that pays off when many events fall in each leap.
+ *
+ * Counts are sampled into a SimulationRecord at every whole unit of
+ * time, so a row matches a step of the discrete simulator, and final
+ * compartments are written back to the agents.
+ */
+public class ContinuousTimeEngine {
+
+    public enum Mode { NEXT_REACTION, TAU_LEAP }
+
+    private final List<Agent> agents;
+    private final CompartmentModel model;
+    private final SplittableRandom rand;
+    // contacts of node i are targets[offsets[i]] to targets[offsets[i + 1] - 1]
+    private final int[] offsets;
+    private final int[] targets;
+    private final byte[] state;
+    // transmission hazard along each contact of an Infected node
+    private final double[] beta;
+    // when an Infected node stops being infectious
+    private final double[] until;
+    private final int[] counts;
+    // nodes in a compartment with a timed exit
+    private final BitSet active;
+    private final EventQueue queue;
+    private final SimulationRecord record;
+    private Mode mode = Mode.NEXT_REACTION;
+    private double tau = 0.1;
+    private double time;
+    private int nextSample;
+    private long events;
+    private boolean started;
+    private boolean ended;
+
+    /**
+     * Take a snapshot of the agents in a field and the contacts between
+     * them, using the parameters of the current SimData configuration.
+     * @param field the populated field
+     */
+    public ContinuousTimeEngine(Field<Entity, Location> field) {
+        agents = field.getAllOf(Agent.class);
+        model = SimData.getModel();
+        rand = new SplittableRandom(SimData.getRandom().nextLong());
+        int n = agents.size();
+        state = new byte[n];
+        beta = new double[n];
+        until = new double[n];
+        counts = new int[Compartment.values().length];
+        active = new BitSet(n);
+        queue = new EventQueue(n);
+
+        if (field instanceof MobileNetwork) {
+            int[][] csr = contactsOf((MobileNetwork) field);
+            offsets = csr[0];
+            targets = csr[1];
+        }
+        else {
+            Map<Agent, Integer> index = new IdentityHashMap<>(n);
+            for (int i = 0; i < n; i++) {
+                index.put(agents.get(i), i);
+            }
+            int[][] contacts = new int[n][];
+            int edges = 0;
+            for (int i = 0; i < n; i++) {
+                contacts[i] = contactsOf(i, field, index);
+                edges += contacts[i].length;
+            }
+            offsets = new int[n + 1];
+            targets = new int[edges];
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] = offsets[i] + contacts[i].length;
+                System.arraycopy(contacts[i], 0, targets, offsets[i], contacts[i].length);
+            }
+        }
+
+        double infectivity = SimData.getInfectivity();
+        double masked = infectivity * SimData.getMaskRiskReduction();
+        for (int i = 0; i < n; i++) {
+            Agent ag = agents.get(i);
+            state[i] = ag.getCompartment().code();
+            counts[state[i]]++;
+            active.set(i, model.hasTimedExit(state[i]));
+            beta[i] = hazard(ag.getMasked() ? masked : infectivity);
+        }
+
+        record = new SimulationRecord();
+        record.addHeader(model.getCompartments().stream()
+                .map(Compartment::getName).toArray(String[]::new));
+    }
+
+    public ContinuousTimeEngine setMode(Mode mode) {
+        if (started) { throw new IllegalStateException("The mode cannot be changed once the run has started."); }
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * @param tau the length of each leap in TAU_LEAP mode, in steps
+     */
+    public ContinuousTimeEngine setTau(double tau) {
+        if (tau <= 0 || tau > 1)
+            throw new IllegalArgumentException("Tau must be greater than 0 and at most 1.");
+        this.tau = tau;
+        return this;
+    }
+
+    /**
+     * Run until the given time, or until no agent is Exposed or
+     * Infected. May be called again to continue the run.
+     * @param endTime the time to stop at, in steps
+     * @return the record of counts sampled at every whole step so far
+     */
+    public SimulationRecord run(double endTime) {
+        if (!started) {
+            started = true;
+            if (mode == Mode.NEXT_REACTION) {
+                scheduleInitialEvents();
+            }
+        }
+        if (mode == Mode.NEXT_REACTION) {
+            runEvents(endTime);
+        }
+        else {
+            runLeaps(endTime);
+        }
+        writeBack();
+        return record;
+    }
+
+    public boolean isViable() {
+        return counts[Compartment.INFECTED.code()] > 0 || counts[Compartment.EXPOSED.code()] > 0;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return the number of transitions that have taken place
+     */
+    public long getEventCount() {
+        return events;
+    }
+
+    /**
+     * @return the number of agents in each compartment, indexed by
+     *         compartment code
+     */
+    public int[] getCounts() {
+        return counts.clone();
+    }
+
+    public SimulationRecord getRecord() {
+        return record;
+    }
+
+    private void scheduleInitialEvents() {
+        byte infected = Compartment.INFECTED.code();
+        for (int i = 0; i < state.length; i++) {
+            double rate = model.getExitRate(state[i]);
+            if (rate > 0) {
+                double t = exponential(rate);
+                queue.schedule(i, t);
+                until[i] = t;
+            }
+        }
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] == infected) {
+                proposeAlongContacts(i, 0);
+            }
+        }
+    }
+
+    private void runEvents(double endTime) {
+        while (isViable() && !queue.isEmpty() && queue.peekTime() <= endTime) {
+            double t = queue.peekTime();
+            sampleUntil(t);
+            int node = queue.poll();
+            time = t;
+            byte code = state[node];
+            if (code == Compartment.SUSCEPTIBLE.code()) {
+                enter(node, model.onInfection().code());
+            }
+            else {
+                enter(node, model.nextState(code, rand.nextDouble()));
+            }
+        }
+        finish(endTime);
+    }
+
+    private void runLeaps(double endTime) {
+        byte infected = Compartment.INFECTED.code();
+        byte susceptible = Compartment.SUSCEPTIBLE.code();
+        BitSet leaving = new BitSet(state.length);
+        BitSet infecting = new BitSet(state.length);
+        while (isViable() && time + tau <= endTime + 1e-9) {
+            sampleUntil(time + 1e-9);
+            for (int i = active.nextSetBit(0); i >= 0; i = active.nextSetBit(i + 1)) {
+                double rate = model.getExitRate(state[i]);
+                if (rand.nextDouble() < -Math.expm1(-rate * tau)) {
+                    leaving.set(i);
+                }
+                if (state[i] == infected) {
+                    double p = -Math.expm1(-beta[i] * tau);
+                    for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                        int j = targets[k];
+                        if (state[j] == susceptible && rand.nextDouble() < p) {
+                            infecting.set(j);
+                        }
+                    }
+                }
+            }
+            time += tau;
+            for (int i = leaving.nextSetBit(0); i >= 0; i = leaving.nextSetBit(i + 1)) {
+                enter(i, model.nextState(state[i], rand.nextDouble()));
+            }
+            for (int i = infecting.nextSetBit(0); i >= 0; i = infecting.nextSetBit(i + 1)) {
+                enter(i, model.onInfection().code());
+            }
+            leaving.clear();
+            infecting.clear();
+        }
+        finish(endTime);
+    }
+
+    /**
+     * Record the samples up to the end time or, if the disease has died
+     * out, one last sample showing that it has.
+     */
+    private void finish(double endTime) {
+        if (isViable()) {
+            sampleUntil(endTime + 1e-9);
+            time = Math.max(time, endTime);
+        }
+        else if (!ended) {
+            ended = true;
+            sampleUntil(nextSample + 1);
+        }
+    }
+
+    /**
+     * Move a node into a compartment and schedule what follows from it.
+     */
+    private void enter(int node, byte code) {
+        counts[state[node]]--;
+        counts[code]++;
+        state[node] = code;
+        active.set(node, model.hasTimedExit(code));
+        events++;
+        if (mode == Mode.TAU_LEAP) {
+            return;
+        }
+        double rate = model.getExitRate(code);
+        if (rate > 0) {
+            until[node] = time + exponential(rate);
+            queue.schedule(node, until[node]);
+        }
+        if (code == Compartment.INFECTED.code()) {
+            proposeAlongContacts(node, time);
+        }
+        else if (code == Compartment.SUSCEPTIBLE.code()) {
+            // immunity has waned, so infected contacts may now reach this node
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int j = targets[k];
+                if (state[j] == Compartment.INFECTED.code()) {
+                    propose(node, time + exponential(beta[j]), until[j]);
+                }
+            }
+        }
+    }
+
+    private void proposeAlongContacts(int node, double from) {
+        byte susceptible = Compartment.SUSCEPTIBLE.code();
+        for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+            int j = targets[k];
+            if (state[j] == susceptible) {
+                propose(j, from + exponential(beta[node]), until[node]);
+            }
+        }
+    }
+
+    /**
+     * Bring a Susceptible node's infection forward to time t, provided
+     * the infecting neighbour is still infectious then.
+     */
+    private void propose(int node, double t, double infectiousUntil) {
+        if (t < infectiousUntil && t < queue.timeOf(node)) {
+            queue.schedule(node, t);
+        }
+    }
+
+    private void sampleUntil(double t) {
+        while (nextSample < t) {
+            List<Compartment> recorded = model.getCompartments();
+            int[] row = new int[recorded.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = counts[recorded.get(i).code()];
+            }
+            record.addRecord(row);
+            nextSample++;
+        }
+    }
+
+    private void writeBack() {
+        for (int i = 0; i < state.length; i++) {
+            agents.get(i).setCompartment(Compartment.of(state[i]));
+        }
+    }
+
+    private double exponential(double rate) {
+        if (rate <= 0) { return Double.POSITIVE_INFINITY; }
+        return -Math.log(1.0 - rand.nextDouble()) / rate;
+    }
+
+    /**
+     * @param p the chance of passing on the disease along a contact in one step
+     * @return the constant hazard giving the same chance over one unit of time
+     */
+    private static double hazard(double p) {
+        return p >= 1 ? Double.MAX_VALUE : -Math.log1p(-p);
+    }
+
+    /**
+     * Restrict a network's topology to the nodes holding agents, without
+     * going through the Field API.
+     * @return the offsets and targets of the contacts between agents
+     */
+    private int[][] contactsOf(MobileNetwork net) {
+        CsrGraph g = net.getTopology();
+        int[] agentAt = new int[g.nodeCount()];
+        Arrays.fill(agentAt, -1);
+        int[] nodeOf = new int[agents.size()];
+        for (int i = 0; i < agents.size(); i++) {
+            nodeOf[i] = net.nodeOf(agents.get(i).getLocation());
+            agentAt[nodeOf[i]] = i;
+        }
+        int[] offsets = new int[agents.size() + 1];
+        for (int i = 0; i < agents.size(); i++) {
+            int degree = 0;
+            for (int k = g.begin(nodeOf[i]); k < g.end(nodeOf[i]); k++) {
+                if (agentAt[g.target(k)] >= 0) { degree++; }
+            }
+            offsets[i + 1] = offsets[i] + degree;
+        }
+        int[] targets = new int[offsets[agents.size()]];
+        int write = 0;
+        for (int i = 0; i < agents.size(); i++) {
+            for (int k = g.begin(nodeOf[i]); k < g.end(nodeOf[i]); k++) {
+                int j = agentAt[g.target(k)];
+                if (j >= 0) { targets[write++] = j; }
+            }
+        }
+        return new int[][] { offsets, targets };
+    }
+
+    private int[] contactsOf(int i, Field<Entity, Location> field, Map<Agent, Integer> index) {
+        Agent ag = agents.get(i);
+        List<Agent> neighbours = field.getAllNeighbours(ag.getLocation(), Agent.class);
+        int[] ids = new int[neighbours.size()];
+        int size = 0;
+        for (Agent n : neighbours) {
+            Integer j = index.get(n);
+            if (j != null && j != i) {
+                ids[size++] = j;
+            }
+        }
+        Arrays.sort(ids, 0, size);
+        int unique = 0;
+        for (int k = 0; k < size; k++) {
+            if (unique == 0 || ids[unique - 1] != ids[k]) {
+                ids[unique++] = ids[k];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+}
@@ -3,9 +3,8 @@ package disease;
 import actors.Agent;
 import data.SimData;
 import environment.Field;
-import models.Infected;
+import models.Compartment;
 import models.SIR;
-import models.Susceptible;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -17,7 +16,7 @@ public class DiseaseSpreadController {
         List<Agent> contacts = new ArrayList<>();
         for (Iterator<Agent> it = allAgents.iterator(); it.hasNext();) {
             Agent ag = it.next();
-            if (ag.getStatus().getClass() == Susceptible.class && nearInfected(field, ag)) {
+            if (ag.getCompartment() == Compartment.SUSCEPTIBLE && nearInfected(field, ag)) {
                 contacts.add(ag);
             }
         }
@@ -54,9 +53,10 @@ public class DiseaseSpreadController {
 
     public static void infectAll(List<Agent> toInfect) {
 //        List<Agent> infected = new ArrayList<>();
+        Compartment target = SimData.getModel().onInfection();
         for (Agent ag : toInfect) {
-            if (ag.getStatus().getClass() == Susceptible.class) {
-                ag.setStatus(ag.getStatus().nextState());
+            if (ag.getCompartment() == Compartment.SUSCEPTIBLE) {
+                ag.setCompartment(target);
             }
 //            infected.add(ag);
         }
@@ -64,7 +64,7 @@ public class DiseaseSpreadController {
     }
 
     public static boolean isInfected(Agent ag) {
-        return ag.getStatus().getClass() == Infected.class;
+        return ag.getCompartment() == Compartment.INFECTED;
     }
 
     public static boolean nearInfected(Field f, Agent ag) {
@@ -0,0 +1,143 @@
+package disease;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of event times, holding at most one pending
+ * event per node. An event can be rescheduled or cancelled in O(log n)
+ * through the node's position in the heap, which is what the
+ * next-reaction method needs when an infection is brought forward.
+ */
+public class EventQueue {
+
+    private final int[] heap;
+    private final int[] position;
+    private final double[] time;
+    private int size;
+
+    /**
+     * @param nodes the number of nodes, ids 0 to nodes - 1
+     */
+    public EventQueue(int nodes) {
+        heap = new int[nodes];
+        position = new int[nodes];
+        time = new double[nodes];
+        Arrays.fill(position, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return position[node] >= 0;
+    }
+
+    /**
+     * @return the time of the node's pending event, or positive infinity
+     *         if it has none
+     */
+    public double timeOf(int node) {
+        return contains(node) ? time[node] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Schedule an event for a node, replacing any event it already has.
+     */
+    public void schedule(int node, double t) {
+        if (!contains(node)) {
+            position[node] = size;
+            heap[size++] = node;
+            time[node] = t;
+            siftUp(position[node]);
+        }
+        else {
+            double old = time[node];
+            time[node] = t;
+            if (t < old) { siftUp(position[node]); }
+            else { siftDown(position[node]); }
+        }
+    }
+
+    public void cancel(int node) {
+        int i = position[node];
+        if (i < 0) { return; }
+        int last = heap[--size];
+        position[node] = -1;
+        if (i < size) {
+            heap[i] = last;
+            position[last] = i;
+            siftUp(i);
+            siftDown(position[last]);
+        }
+    }
+
+    /**
+     * @return the node with the earliest event
+     */
+    public int peek() {
+        if (size == 0) { throw new IllegalStateException("No events are scheduled."); }
+        return heap[0];
+    }
+
+    public double peekTime() {
+        return time[peek()];
+    }
+
+    /**
+     * Remove the earliest event.
+     * @return the node it belonged to
+     */
+    public int poll() {
+        int node = peek();
+        cancel(node);
+        return node;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        double t = time[node];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (time[p] <= t) { break; }
+            heap[i] = p;
+            position[p] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        position[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        double t = time[node];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && time[heap[right]] < time[c]) {
+                child = right;
+                c = heap[child];
+            }
+            if (t <= time[c]) { break; }
+            heap[i] = c;
+            position[c] = i;
+            i = child;
+        }
+        heap[i] = node;
+        position[node] = i;
+    }
+}
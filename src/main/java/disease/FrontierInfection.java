@@ -0,0 +1,128 @@
+package disease;
+
+import actors.Agent;
+import data.SimData;
+import environment.Field;
+import models.Compartment;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Infection pass whose cost follows the active frontier of the
+ * epidemic rather than the size of the population. The engine keeps
+ * the set of Infected agents between steps and only looks at their
+ * neighbourhoods. Each Susceptible agent found there is exposed, and
+ * its chance of escaping infection is multiplied down by every
+ * Infected neighbour in a single pass.
+ *
+ * The set is maintained as agents change state. Agents this engine
+ * infected are picked up on the next step, and agents that have stopped
+ * being Infected are dropped. Because neighbourhoods are looked up from
+ * each Infected agent's current location, movement needs no extra
+ * bookkeeping. The full agent list is only scanned when the engine
+ * first sees it.
+ *
+ * Agents in contact are drawn for in the order of the agent list, like
+ * SerialInfection, so both engines consume SimData's Random in the
+ * same way.
+ */
+public class FrontierInfection implements InfectionEngine {
+
+    private List<Agent> agents;
+    private Map<Agent, Integer> index;
+    // agents, by position in the agent list, that are currently Infected
+    private BitSet infected;
+    // agents infected by the last pass that have not yet turned Infected
+    private BitSet pending;
+    // agents exposed during the current pass, with their chance of escaping
+    private BitSet exposed;
+    private double[] pUninfected;
+
+    @Override
+    public List<Agent> getNewlyInfected(List<Agent> agents, Field field) {
+        if (agents != this.agents || agents.size() != index.size()) {
+            track(agents);
+        }
+        updateInfected();
+
+        double infectivity = SimData.getInfectivity();
+        double maskReduction = SimData.getMaskRiskReduction();
+        for (int i = infected.nextSetBit(0); i >= 0; i = infected.nextSetBit(i + 1)) {
+            Agent source = agents.get(i);
+            double rateOfInfection = infectivity;
+            if (source.getMasked()) {
+                rateOfInfection *= maskReduction;
+            }
+            List<Agent> neighbours = field.getAllNeighbours(source.getLocation(), Agent.class);
+            for (Agent n : neighbours) {
+                if (n.getCompartment() != Compartment.SUSCEPTIBLE) {
+                    continue;
+                }
+                int j = index.get(n);
+                if (!exposed.get(j)) {
+                    exposed.set(j);
+                    pUninfected[j] = 1.0;
+                }
+                pUninfected[j] *= (1.0 - rateOfInfection);
+            }
+        }
+
+        Random rand = SimData.getRandom();
+        List<Agent> newlyInfected = new ArrayList<>();
+        for (int j = exposed.nextSetBit(0); j >= 0; j = exposed.nextSetBit(j + 1)) {
+            if (rand.nextDouble() <= 1.0 - pUninfected[j]) {
+                newlyInfected.add(agents.get(j));
+                pending.set(j);
+            }
+        }
+        exposed.clear();
+        return newlyInfected;
+    }
+
+    /**
+     * @return the number of agents currently known to be Infected
+     */
+    public int getInfectedCount() {
+        return infected == null ? 0 : infected.cardinality();
+    }
+
+    private void track(List<Agent> agents) {
+        this.agents = agents;
+        index = new IdentityHashMap<>(agents.size());
+        infected = new BitSet(agents.size());
+        pending = new BitSet(agents.size());
+        exposed = new BitSet(agents.size());
+        pUninfected = new double[agents.size()];
+        for (int i = 0; i < agents.size(); i++) {
+            Agent ag = agents.get(i);
+            index.put(ag, i);
+            if (ag.getCompartment() == Compartment.INFECTED) {
+                infected.set(i);
+            }
+            else if (ag.getCompartment() == Compartment.EXPOSED) {
+                pending.set(i);
+            }
+        }
+    }
+
+    private void updateInfected() {
+        for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+            Compartment c = agents.get(i).getCompartment();
+            // Exposed agents stay pending until they become Infected
+            if (c != Compartment.SUSCEPTIBLE && c != Compartment.EXPOSED) {
+                pending.clear(i);
+                infected.set(i);
+            }
+        }
+        for (int i = infected.nextSetBit(0); i >= 0; i = infected.nextSetBit(i + 1)) {
+            if (agents.get(i).getCompartment() != Compartment.INFECTED) {
+                infected.clear(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package disease;
+
+import actors.Agent;
+import environment.Field;
+
+import java.util.List;
+
+/**
+ * Decides which Susceptible agents become infected during a step.
+ * The field must not change while an engine is working on it.
+ */
+public interface InfectionEngine {
+    List<Agent> getNewlyInfected(List<Agent> agents, Field field);
+}
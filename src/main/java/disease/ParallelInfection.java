@@ -0,0 +1,153 @@
+package disease;
+
+import actors.Agent;
+import data.SimData;
+import environment.Field;
+import models.Compartment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Infection pass that splits the agent list into fixed-size chunks and
+ * processes them on a ForkJoinPool. Each step draws one seed from
+ * SimData's Random, and every chunk derives its own random stream from
+ * that seed and the chunk's index. Chunk boundaries do not depend on
+ * the number of threads, so the result for a given seed is the same
+ * however many threads the pool has.
+ * An engine that made its own pool shuts it down when closed; a pool
+ * passed in is left to its owner.
+ */
+public class ParallelInfection implements InfectionEngine, AutoCloseable {
+
+    static final int CHUNK_SIZE = 512;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    public ParallelInfection(ForkJoinPool pool) {
+        this(pool, false);
+    }
+
+    public ParallelInfection(int parallelism) {
+        this(new ForkJoinPool(parallelism), true);
+    }
+
+    private ParallelInfection(ForkJoinPool pool, boolean ownsPool) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    @Override
+    public List<Agent> getNewlyInfected(List<Agent> agents, Field field) {
+        long stepSeed = SimData.getRandom().nextLong();
+        Agent[] all = agents.toArray(new Agent[0]);
+        int chunks = (all.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks == 0) {
+            return new ArrayList<>();
+        }
+        // each task sets only its own chunk's slot
+        List<List<Agent>> results = new ArrayList<>(Collections.nCopies(chunks, null));
+        // SimData is bound per thread, so read the parameters here
+        // rather than on the pool's threads
+        double infectivity = SimData.getInfectivity();
+        double maskReduction = SimData.getMaskRiskReduction();
+        pool.invoke(new ChunkTask(all, field, results, 0, chunks, stepSeed, infectivity, maskReduction));
+        List<Agent> newlyInfected = new ArrayList<>();
+        for (List<Agent> chunk : results) {
+            newlyInfected.addAll(chunk);
+        }
+        return newlyInfected;
+    }
+
+    /**
+     * Shut down the pool if this engine made it.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Derive the seed of a chunk's random stream from the step seed,
+     * using the SplitMix64 finaliser so neighbouring chunks get
+     * unrelated streams.
+     */
+    static long chunkSeed(long stepSeed, int chunk) {
+        long z = stepSeed + (chunk + 1) * 0xD1B54A32D192ED03L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class ChunkTask extends RecursiveAction {
+        private final Agent[] agents;
+        private final Field field;
+        private final List<List<Agent>> results;
+        private final int from;
+        private final int to;
+        private final long stepSeed;
+        private final double infectivity;
+        private final double maskReduction;
+
+        ChunkTask(Agent[] agents, Field field, List<List<Agent>> results, int from, int to,
+                  long stepSeed, double infectivity, double maskReduction) {
+            this.agents = agents;
+            this.field = field;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.stepSeed = stepSeed;
+            this.infectivity = infectivity;
+            this.maskReduction = maskReduction;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                results.set(from, infectChunk(from));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                    new ChunkTask(agents, field, results, from, mid, stepSeed, infectivity, maskReduction),
+                    new ChunkTask(agents, field, results, mid, to, stepSeed, infectivity, maskReduction));
+        }
+
+        private List<Agent> infectChunk(int chunk) {
+            SplittableRandom random = new SplittableRandom(chunkSeed(stepSeed, chunk));
+            List<Agent> newlyInfected = new ArrayList<>();
+            int end = Math.min(agents.length, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                Agent ag = agents[i];
+                if (ag.getCompartment() != Compartment.SUSCEPTIBLE) {
+                    continue;
+                }
+                // one neighbour scan serves both the contact test and the risk
+                List<Agent> neighbours = field.getAllNeighbours(ag.getLocation(), Agent.class);
+                double pUninfected = 1.0;
+                boolean contact = false;
+                for (Agent n : neighbours) {
+                    if (DiseaseSpreadController.isInfected(n)) {
+                        contact = true;
+                        double rateOfInfection = infectivity;
+                        if (n.getMasked()) {
+                            rateOfInfection *= maskReduction;
+                        }
+                        pUninfected *= (1.0 - rateOfInfection);
+                    }
+                }
+                if (contact && random.nextDouble() <= 1.0 - pUninfected) {
+                    newlyInfected.add(ag);
+                }
+            }
+            return newlyInfected;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package disease;
+
+import actors.Agent;
+import environment.Field;
+
+import java.util.List;
+
+/**
+ * The original infection pass: find every Susceptible agent in contact
+ * with an Infected one, then draw for each contact in turn from
+ * SimData's Random.
+ */
+public class SerialInfection implements InfectionEngine {
+    @Override
+    public List<Agent> getNewlyInfected(List<Agent> agents, Field field) {
+        List<Agent> contacts = DiseaseSpreadController.getInfectedContacts(agents, field);
+        return DiseaseSpreadController.getNewlyInfected(contacts, field);
+    }
+}
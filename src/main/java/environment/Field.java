@@ -1,5 +1,6 @@
 package environment;
 
+import actors.AgentStore;
 import actors.Entity;
 
 import java.util.List;
@@ -22,10 +23,26 @@ public interface Field<E, L> extends Zone {
     List<L> getAllAdjacentLocations(L l);
     List<L> getAllFreeAdjacentLocations(L l);
     L freeAdjacentLocation(L l);
+
+    /**
+     * The free location adjacent to l with the fewest agents around it,
+     * ties going to whichever getAllFreeAdjacentLocations lists first.
+     * @param outsideZone true to pass over locations in a quarantine zone
+     * @return the location, or null if there is none
+     */
+    L leastCrowdedFreeAdjacentLocation(L l, boolean outsideZone);
     <T extends E> boolean isNeighbourTo(L l, Class<T> c);
     <T extends E> List<T> getAllNeighbours(L l, Class<T> c);
     int getDimensions();
     List<E> getAllEntities();
+
+    /**
+     * @return the store holding the state and compartment counts of
+     *         the agents in this field, or null if the field has none
+     */
+    default AgentStore getAgentStore() {
+        return null;
+    }
     default <T extends E> List<T> getAllOf(Class<T> c) {
         List<E> allEntities = getAllEntities();
         return allEntities
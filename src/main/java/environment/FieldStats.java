@@ -5,8 +5,11 @@ import java.util.Iterator;
 import java.util.List;
 
 import actors.Agent;
+import actors.AgentStore;
 import actors.Entity;
 import data.Counter;
+import models.Compartment;
+import models.Exposed;
 import models.Infected;
 
 /**
@@ -106,22 +109,45 @@ public class FieldStats {
     /**
      * Determine whether the simulation is still viable.
      * i.e., should it continue to run.
-     * @return true if there are still Infected agents
+     * @return true if there are still Exposed or Infected agents
      */
     public boolean isViable() {
-        Counter c = counters.get(Infected.class);
-        return c.getCount() > 0;
+        return countOf(Infected.class) > 0 || countOf(Exposed.class) > 0;
+    }
+
+    private int countOf(Class<?> c) {
+        Counter counter = counters.get(c);
+        return counter == null ? 0 : counter.getCount();
     }
 
     private void generateCounts(Field field) {
         reset();
-        List<Entity> entities = field.getAllEntities();
-        for (Entity e : entities) {
-            incrementCount(e);
+        AgentStore store = field.getAgentStore();
+        if (store != null) {
+            // the store keeps its counts up to date, so there is no need to scan the field
+            setCount(Agent.class, store.getAgentCount());
+            for (Compartment c : Compartment.values()) {
+                setCount(c.getState().getClass(), store.getCount(c));
+            }
+        }
+        else {
+            List<Entity> entities = field.getAllEntities();
+            for (Entity e : entities) {
+                incrementCount(e);
+            }
         }
         valid = true;
     }
 
+    private void setCount(Class<?> cl, int count) {
+        Counter counter = counters.get(cl);
+        if (counter == null) {
+            counter = new Counter(cl.getSimpleName());
+            counters.put(cl, counter);
+        }
+        counter.set(count);
+    }
+
     public String getPopulationDetails(Field field) {
         StringBuffer buffer = new StringBuffer();
         if (!valid) {
@@ -1,11 +1,16 @@
 package environment;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import actors.Agent;
 import actors.AgentGenerator;
+import actors.AgentStore;
 import actors.Entity;
 import actors.EntityGenerator;
+import checkpoint.CheckpointInput;
+import checkpoint.CheckpointOutput;
+import data.SimData;
 
 /**
  * @author David J. Barnes and Michael Kolling
@@ -15,10 +20,19 @@ import actors.EntityGenerator;
  */
 public class Grid implements Field<Entity, Location> {
 
+    // marks an unoccupied cell
+    private static final int EMPTY = -1;
+
     private int depth;
     private int width;
-    private Entity[][] matrix;
-    private Set<Location> quZone;
+    // id (within the store) of the occupant of each cell, indexed by row * width + col
+    private int[] cells;
+    private AgentStore store;
+    private TorusNeighbourhood hood;
+    // the number of agents around each cell, not counting the cell itself;
+    // at most 8 with a radius of 1
+    private byte[] crowding;
+    private ZoneIndex zone;
 
     /**
      * Create field grid where depth = number of rows,
@@ -29,8 +43,12 @@ public class Grid implements Field<Entity, Location> {
     public Grid(int depth, int width) {
         this.depth = depth;
         this.width = width;
-        matrix = new Entity[depth][width];
-        quZone = new HashSet<>();
+        cells = new int[depth * width];
+        Arrays.fill(cells, EMPTY);
+        store = new AgentStore();
+        hood = new TorusNeighbourhood(depth, width, 1);
+        crowding = new byte[depth * width];
+        zone = new ZoneIndex(depth * width);
     }
 
     /**
@@ -53,7 +71,43 @@ public class Grid implements Field<Entity, Location> {
      * @param location: where to place the person.
      */
     private void placeByLocation(Entity entity, Location location) {
-        matrix[location.getRow()][location.getCol()] = entity;
+        int cell = index(location.getRow(), location.getCol());
+        leave(cell);
+        cells[cell] = store.idOf(entity);
+        store.enter(cells[cell]);
+        if (entity instanceof Agent) {
+            crowd(cell, 1);
+        }
+    }
+
+    private void leave(int cell) {
+        if (cells[cell] != EMPTY) {
+            if (store.get(cells[cell]) instanceof Agent) {
+                crowd(cell, -1);
+            }
+            store.leave(cells[cell]);
+        }
+    }
+
+    /**
+     * Add delta to the crowding of every cell around a cell.
+     */
+    private void crowd(int cell, int delta) {
+        int row = cell / width;
+        int col = cell % width;
+        for (int i = 0; i < hood.span(); i++) {
+            int r = hood.wrappedRow(row, i);
+            for (int j = 0; j < hood.span(); j++) {
+                int c = index(r, hood.wrappedCol(col, j));
+                if (c != cell) {
+                    crowding[c] += delta;
+                }
+            }
+        }
+    }
+
+    private int index(int row, int col) {
+        return row * width + col;
     }
 
     /**
@@ -66,7 +120,7 @@ public class Grid implements Field<Entity, Location> {
         EntityGenerator<Entity> gen = new AgentGenerator();
         for (int row = 0; row < getDimensions(); row++) {
             for (int col = 0; col < getDimensions(); col++) {
-                if (matrix[row][col] == null) {
+                if (cells[index(row, col)] == EMPTY) {
                     Location l = new Location(row, col);
                     Entity ag = gen.generate(l);
                     if (ag instanceof Agent) {
@@ -80,11 +134,10 @@ public class Grid implements Field<Entity, Location> {
 
     @Override
     public void clearAll() {
-        for (int row = 0; row < depth; row++) {
-            for (int col = 0; col < width; col++) {
-                matrix[row][col] = null;
-            }
-        }
+        Arrays.fill(cells, EMPTY);
+        Arrays.fill(crowding, (byte) 0);
+        store.clear();
+        zone.reset(cells.length);
     }
 
     @Override
@@ -100,7 +153,9 @@ public class Grid implements Field<Entity, Location> {
      */
     @Override
     public void clearLocation(Location location) {
-        matrix[location.getRow()][location.getCol()] = null;
+        int cell = index(location.getRow(), location.getCol());
+        leave(cell);
+        cells[cell] = EMPTY;
     }
 
     /**
@@ -115,10 +170,14 @@ public class Grid implements Field<Entity, Location> {
 
     @Override
     public List<Location> getAllAdjacentLocations(Location location) {
-        List<Location> allLocs = new ArrayList<>();
-        for (Iterator<Location> it = adjacentLocations(location); it.hasNext(); ) {
-            Location loc = it.next();
-            allLocs.add(loc);
+        List<Location> allLocs = new ArrayList<>(hood.size());
+        int row = location.getRow();
+        int col = location.getCol();
+        for (int i = 0; i < hood.span(); i++) {
+            int r = hood.wrappedRow(row, i);
+            for (int j = 0; j < hood.span(); j++) {
+                allLocs.add(new Location(r, hood.wrappedCol(col, j)));
+            }
         }
         return allLocs;
     }
@@ -130,7 +189,13 @@ public class Grid implements Field<Entity, Location> {
      * @return The person at the given location, or null if there is none.
      */
     public Entity getObjectAt(int row, int col) {
-        return matrix[row][col];
+        int id = cells[index(row, col)];
+        return id == EMPTY ? null : store.get(id);
+    }
+
+    @Override
+    public AgentStore getAgentStore() {
+        return store;
     }
 
     /**
@@ -142,17 +207,47 @@ public class Grid implements Field<Entity, Location> {
      */
     @Override
     public ArrayList<Location> getAllFreeAdjacentLocations(Location location) {
-        Iterator<Location> adjacent = adjacentLocations(location);
         ArrayList<Location> freeLocations = new ArrayList<Location>();
-        while(adjacent.hasNext()) {
-            Location next = adjacent.next();
-            if(matrix[next.getRow()][next.getCol()] == null) {
-                freeLocations.add(next);
+        int row = location.getRow();
+        int col = location.getCol();
+        for (int i = 0; i < hood.span(); i++) {
+            int r = hood.wrappedRow(row, i);
+            for (int j = 0; j < hood.span(); j++) {
+                int c = hood.wrappedCol(col, j);
+                if (cells[index(r, c)] == EMPTY) {
+                    freeLocations.add(new Location(r, c));
+                }
             }
         }
         return freeLocations;
     }
 
+    @Override
+    public Location leastCrowdedFreeAdjacentLocation(Location location, boolean outsideZone) {
+        int row = location.getRow();
+        int col = location.getCol();
+        int best = EMPTY;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < hood.span(); i++) {
+            int r = hood.wrappedRow(row, i);
+            for (int j = 0; j < hood.span(); j++) {
+                int cell = index(r, hood.wrappedCol(col, j));
+                if (cells[cell] == EMPTY && crowding[cell] < fewest && !(outsideZone && zone.contains(cell))) {
+                    best = cell;
+                    fewest = crowding[cell];
+                }
+            }
+        }
+        return best == EMPTY ? null : new Location(best / width, best % width);
+    }
+
+    /**
+     * @return the number of agents around a cell, not counting the cell itself
+     */
+    public int getCrowding(int row, int col) {
+        return crowding[index(row, col)];
+    }
+
     /**
      * Try to find a free location that is adjacent to the
      * given location. If there is none, then return the current
@@ -166,24 +261,30 @@ public class Grid implements Field<Entity, Location> {
      */
     @Override
     public Location freeAdjacentLocation(Location location) {
-        Iterator<Location> adjacent = adjacentLocations(location);
-        List<Location> adjs = new ArrayList<>();
-        while (adjacent.hasNext()) {
-            Location next = adjacent.next();
-            if (matrix[next.getRow()][next.getCol()] == null) {
-//                return next;
-                adjs.add(next);
+        Random rand = SimData.getRandom();
+        int row = location.getRow();
+        int col = location.getCol();
+        // reservoir sampling: each free cell seen so far is kept with equal probability
+        int seen = 0;
+        int chosen = EMPTY;
+        for (int i = 0; i < hood.span(); i++) {
+            int r = hood.wrappedRow(row, i);
+            for (int j = 0; j < hood.span(); j++) {
+                int cell = index(r, hood.wrappedCol(col, j));
+                if (cells[cell] == EMPTY && rand.nextInt(++seen) == 0) {
+                    chosen = cell;
+                }
             }
         }
-        if (matrix[location.getRow()][location.getCol()] == null) {
-//            return location;
-            adjs.add(location);
+        // the current location is also a candidate, as it always has been
+        int centre = index(row, col);
+        if (cells[centre] == EMPTY && rand.nextInt(++seen) == 0) {
+            chosen = centre;
         }
-        if (!adjs.isEmpty()) {
-            Collections.shuffle(adjs);
-            return adjs.get(0);
+        if (chosen == EMPTY) {
+            return null;
         }
-        return null;
+        return chosen == centre ? location : new Location(chosen / width, chosen % width);
     }
 
     /**
@@ -193,14 +294,17 @@ public class Grid implements Field<Entity, Location> {
      */
     @Override
     public <T extends Entity> boolean isNeighbourTo(Location location, Class<T> c) {
-        Iterator<Location> it = adjacentLocations(location, 1);
-        while(it.hasNext()) {
-            Location loc = it.next();
-            if (loc.equals(location)) continue;
-            Entity e = getObjectAt(loc);
-//            Entity e = getObjectAt(it.next());
-            if (e != null && e.getClass() == c)
-                return true;
+        int row = location.getRow();
+        int col = location.getCol();
+        int centre = index(row, col);
+        for (int i = 0; i < hood.span(); i++) {
+            int r = hood.wrappedRow(row, i);
+            for (int j = 0; j < hood.span(); j++) {
+                int cell = index(r, hood.wrappedCol(col, j));
+                if (cell == centre || cells[cell] == EMPTY) continue;
+                if (store.get(cells[cell]).getClass() == c)
+                    return true;
+            }
         }
         return false;
     }
@@ -222,13 +326,18 @@ public class Grid implements Field<Entity, Location> {
     @Override
     public <T extends Entity> List<T> getAllNeighbours(Location location, Class<T> c) {
         ArrayList<T> neighbours = new ArrayList<>();
-        Iterator<Location> it = adjacentLocations(location, 1);
-        while (it.hasNext()) {
-            Location adjLoc = it.next();
-            if (adjLoc.equals(location)) { continue; }
-            Entity e = getObjectAt(adjLoc);
-            if (e != null && e.getClass() == c) {
-                neighbours.add((T) e);
+        int row = location.getRow();
+        int col = location.getCol();
+        int centre = index(row, col);
+        for (int i = 0; i < hood.span(); i++) {
+            int r = hood.wrappedRow(row, i);
+            for (int j = 0; j < hood.span(); j++) {
+                int cell = index(r, hood.wrappedCol(col, j));
+                if (cell == centre || cells[cell] == EMPTY) { continue; }
+                Entity e = store.get(cells[cell]);
+                if (e.getClass() == c) {
+                    neighbours.add((T) e);
+                }
             }
         }
         return neighbours;
@@ -237,11 +346,9 @@ public class Grid implements Field<Entity, Location> {
     @Override
     public List<Entity> getAllEntities() {
         List<Entity> es = new ArrayList<>();
-        for (int row = 0; row < getDepth(); row++) {
-            for (int col = 0; col < getWidth(); col++) {
-                if (matrix[row][col] != null) {
-                    es.add(matrix[row][col]);
-                }
+        for (int id : cells) {
+            if (id != EMPTY) {
+                es.add(store.get(id));
             }
         }
         return es;
@@ -256,65 +363,22 @@ public class Grid implements Field<Entity, Location> {
     }
 
     /**
-     * Generate an iterator over a shuffled list of locations within
-     * "manhattan distance" w to the given one. The list will not include
-     * the location itself.
-     * All locations will lie within the grid.
-     * The topology of the grid is torus shaped.
-     * This means that it is like a chessboard but when a piece goes beyond the
-     * bottom row it reappears from the first row and vice versa.
-     * Similarly, when it goes beyond the rightmost column it reappears from the
-     * leftmost column and vice versa.
-     * @param location The location from which to generate adjacencies.
-     * @param w The "manhattan" radius of the neighbourhood.
-     * @return An iterator over locations adjacent to that given.
+     * @return the precomputed torus-wrapped neighbourhood of radius 1,
+     *         i.e. each cell and the 8 cells around it
      */
-    private Iterator<Location> adjacentLocations(Location location, int w) {
-        int row = location.getRow();
-        int col = location.getCol();
-        LinkedList<Location> locations = new LinkedList<Location>();
-        for (int roffset = -w; roffset <= w; roffset++) {
-            int nextRow = row + roffset;
-            for (int coffset = -w; coffset <= w; coffset++) {
-                int nextCol = col + coffset;
-                if (nextCol < 0)
-                    nextCol = nextCol + width;
-                if (nextCol >= width)
-                    nextCol = nextCol - width;
-                if (nextRow < 0)
-                    nextRow = nextRow + depth;
-                if (nextRow >= depth)
-                    nextRow = nextRow - depth;
-                locations.add(new Location(nextRow, nextCol));
-            }
-        }
-        return locations.iterator();
-    }
-
-    /**
-     * Generate an iterator over a shuffled list of locations adjacent
-     * to the given one. The list will not include the location itself.
-     * All locations will lie within the grid.
-     * The topology of the grid is torus shaped.
-     * This means that it is like a chessboard but when a piece goes beyond the
-     * bottom row it reappears from the first row and vice versa.
-     * Similarly when it goes beyond the rightmost column it reappears from the
-     * leftmost column and vice versa.
-     * @param location The location from which to generate adjacencies.
-     * @return An iterator over locations adjacent to that given.
-     */
-    private Iterator<Location> adjacentLocations(Location location) {
-        return adjacentLocations(location, 1);
+    public TorusNeighbourhood getNeighbourhood() {
+        return hood;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("[");
-        for (int col = 0; col < matrix.length; col++) {
-            for (int row = 0; row < matrix[0].length; row++) {
-                if (matrix[row][col] != null) {
-                    if (matrix[row][col] instanceof Agent) {
-                        Agent ag = (Agent) matrix[row][col];
+        for (int col = 0; col < depth; col++) {
+            for (int row = 0; row < width; row++) {
+                Entity e = getObjectAt(row, col);
+                if (e != null) {
+                    if (e instanceof Agent) {
+                        Agent ag = (Agent) e;
                         sb.append(" " + ag.getStatus().toString() + " ");
                     }
                     else sb.append(" X ");
@@ -323,23 +387,94 @@ public class Grid implements Field<Entity, Location> {
             }
             sb.append("]");
             sb.append("\n");
-            if (col != matrix.length - 1) sb.append("[");
+            if (col != depth - 1) sb.append("[");
         }
         return sb.toString();
     }
 
+    /**
+     * Save the grid, its agents and the quarantine zone.
+     */
+    public void writeTo(CheckpointOutput out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(width);
+        out.writeInts(cells, cells.length);
+        store.writeTo(out);
+        zone.writeTo(out);
+    }
+
+    /**
+     * Load a grid saved by writeTo.
+     */
+    public static Grid readFrom(CheckpointInput in) throws IOException {
+        Grid g = new Grid(in.readInt(), in.readInt());
+        in.readInts(g.cells, g.cells.length);
+        g.store = AgentStore.readFrom(in);
+        g.zone = ZoneIndex.readFrom(in);
+        for (int cell = 0; cell < g.cells.length; cell++) {
+            if (g.cells[cell] != EMPTY && g.store.get(g.cells[cell]) instanceof Agent) {
+                g.crowd(cell, 1);
+            }
+        }
+        return g;
+    }
+
+    /**
+     * @return the index of a location, or -1 if it is off the grid
+     */
+    private int zoneIndexOf(Location l) {
+        int row = l.getRow();
+        int col = l.getCol();
+        return row >= 0 && row < depth && col >= 0 && col < width ? index(row, col) : -1;
+    }
+
     @Override
     public void registerZone(Set<Location> zoneLocations) {
-        quZone.addAll(zoneLocations);
+        for (Location l : zoneLocations) {
+            int i = zoneIndexOf(l);
+            if (i >= 0) { zone.add(i); }
+        }
     }
 
     @Override
     public void deregisterZone(Set<Location> zoneLocations) {
-        quZone.removeAll(zoneLocations);
+        for (Location l : zoneLocations) {
+            int i = zoneIndexOf(l);
+            if (i >= 0) { zone.remove(i); }
+        }
+    }
+
+    @Override
+    public void registerZoneAround(Location l) {
+        hood.forEach(l.getRow(), l.getCol(), cell -> {
+            zone.add(cell);
+            return true;
+        });
+    }
+
+    @Override
+    public void deregisterZoneAround(Location l) {
+        hood.forEach(l.getRow(), l.getCol(), cell -> {
+            zone.remove(cell);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean isInZone(Location l) {
+        int i = zoneIndexOf(l);
+        return i >= 0 && zone.contains(i);
+    }
+
+    /**
+     * @return true if the cell is part of a quarantine zone
+     */
+    public boolean isInZone(int row, int col) {
+        return zone.contains(index(row, col));
     }
 
     @Override
     public Set<Location> getZone() {
-        return quZone;
+        return zone.asSet(i -> new Location(i / width, i % width), this::zoneIndexOf);
     }
 }
\ No newline at end of file
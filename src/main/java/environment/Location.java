@@ -1,6 +1,5 @@
 package environment;
 
-import actors.Entity;
 import data.SimData;
 
 /**
@@ -14,12 +13,10 @@ import data.SimData;
 public class Location {
     private int row;
     private int col;
-    private Entity occupant;
 
     public Location(int row, int col) {
         this.row = row;
         this.col = col;
-        occupant = null;
     }
 
     @Override
@@ -48,14 +45,4 @@ public class Location {
     public int hashCode() {
         return (row << 16) + col;
     }
-
-    public Entity getOccupant() {
-        return occupant;
-    }
-
-    public void setOccupant(Entity e) { occupant = e; }
-
-    public boolean occupied() {
-        return occupant != null;
-    }
 }
\ No newline at end of file
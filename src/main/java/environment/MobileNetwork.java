@@ -2,59 +2,111 @@ package environment;
 
 import actors.Agent;
 import actors.AgentGenerator;
+import actors.AgentStore;
 import actors.Entity;
 import actors.Obstacle;
+import checkpoint.CheckpointInput;
+import checkpoint.CheckpointOutput;
 import com.google.common.base.Function;
 import data.GUIData;
 import data.SimData;
-import edu.uci.ics.jung.algorithms.generators.random.BarabasiAlbertGenerator;
-import edu.uci.ics.jung.algorithms.generators.random.KleinbergSmallWorldGenerator;
 import edu.uci.ics.jung.graph.Graph;
 import com.google.common.base.Supplier;
+import graphs.CsrGraph;
+import graphs.GraphGenerators;
 import graphs.ModifiableSparseGraph;
-import models.Infected;
-import models.Susceptible;
 
 import java.awt.*;
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
 
+/**
+ * A field whose locations are the nodes of a contact network. The
+ * topology is held as an immutable CsrGraph over integer node ids,
+ * where node i is Location(i, i), and the occupant of each node is kept
+ * as an id into the AgentStore, so neighbour scans are loops over
+ * arrays. A JUNG graph is only built when one is asked for, e.g. to
+ * draw the network.
+ */
 public class MobileNetwork implements Field<Entity, Location> {
 
+    // marks an unoccupied node
+    private static final int EMPTY = -1;
+    // mean degree of random and ring networks, matching a free-scale network with 3 edges per node
+    private static final int MEAN_DEGREE = 6;
+    private static final double REWIRING = 0.1;
+
+    private CsrGraph topology;
+    private Location[] nodes;
+    // id (within the store) of the occupant of each node
+    private int[] occupants;
+    // the number of agents on the neighbours of each node
+    private int[] crowding;
     private ModifiableSparseGraph<Location, Edge> gg;
-    private Supplier<Location> nodeSupplier;
     private Supplier<Edge> edgeSupplier;
     private Function<Location, Paint> nodePainter;
-    private Set<Location> quZone;
+    private ZoneIndex zone;
+    private AgentStore store;
 
     public MobileNetwork() {
-        quZone = new HashSet<>();
+        zone = new ZoneIndex(0);
+        store = new AgentStore();
+        edgeSupplier = new EdgeFactory();
+        topology = new CsrGraph.Builder(0).build();
+        nodes = new Location[0];
+        occupants = new int[0];
+        crowding = new int[0];
+    }
+
+    @Override
+    public AgentStore getAgentStore() {
+        return store;
     }
 
     @Override
     public void registerZone(Set<Location> zoneLocations) {
-        quZone.addAll(zoneLocations);
+        for (Location l : zoneLocations) {
+            int node = nodeOf(l);
+            if (node != EMPTY) { zone.add(node); }
+        }
     }
 
     @Override
     public void deregisterZone(Set<Location> zoneLocations) {
-        quZone.addAll(zoneLocations);
+        for (Location l : zoneLocations) {
+            int node = nodeOf(l);
+            if (node != EMPTY) { zone.remove(node); }
+        }
     }
 
     @Override
-    public Set<Location> getZone() {
-        return quZone;
+    public void registerZoneAround(Location l) {
+        int node = nodeOf(l);
+        if (node == EMPTY) { return; }
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            zone.add(topology.target(k));
+        }
     }
 
-    class GraphFactory implements Supplier<Graph<Location, Edge>> {
-        @Override
-        public Graph<Location, Edge> get() {
-            return new ModifiableSparseGraph<>();
+    @Override
+    public void deregisterZoneAround(Location l) {
+        int node = nodeOf(l);
+        if (node == EMPTY) { return; }
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            zone.remove(topology.target(k));
         }
     }
 
-    public void setNodeSupplier(Supplier<Location> nodeSupplier) {
-        this.nodeSupplier = nodeSupplier;
+    @Override
+    public boolean isInZone(Location l) {
+        int node = nodeOf(l);
+        return node != EMPTY && zone.contains(node);
+    }
+
+    @Override
+    public Set<Location> getZone() {
+        return zone.asSet(node -> nodes[node], this::nodeOf);
     }
 
     public void setEdgeSupplier(Supplier<Edge> edgeSupplier) {
@@ -67,60 +119,145 @@ public class MobileNetwork implements Field<Entity, Location> {
 
     public Function<Location, Paint> getPainter() { return this.nodePainter; }
 
+    /**
+     * @return the network as a JUNG graph, built from the topology on
+     *         first use, for display
+     */
     public Graph<Location, Edge> getGraph() {
+        if (gg == null) {
+            gg = new ModifiableSparseGraph<>();
+            for (Location l : nodes) {
+                gg.addVertex(l);
+            }
+            for (int v = 0; v < nodes.length; v++) {
+                for (int k = topology.begin(v); k < topology.end(v); k++) {
+                    int w = topology.target(k);
+                    if (v < w) {
+                        gg.addEdge(edgeSupplier.get(), nodes[v], nodes[w]);
+                    }
+                }
+            }
+        }
         return gg;
     }
 
+    public CsrGraph getTopology() {
+        return topology;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public Location getNode(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * @return the node id of a location, or -1 if it is not in the network
+     */
+    public int nodeOf(Location l) {
+        if (l == null) { return EMPTY; }
+        int node = l.getRow();
+        return node >= 0 && node < nodes.length && l.getCol() == node ? node : EMPTY;
+    }
+
+    /**
+     * @return the store id of the occupant of a node, or -1 if it is empty
+     */
+    public int getOccupantId(int node) {
+        return occupants[node];
+    }
+
     @Override
     public void initialise() {
-        setNodeSupplier(new NodeFactory());
         setEdgeSupplier(new EdgeFactory());
         setPaint(new NodePainter());
-        if (SimData.getNetworkType() == NetworkType.FREESCALE) {
-            createFreeScaleWorld(3);
-        }
-        else {
-            createSmallWorld();
+        switch (SimData.getNetworkType()) {
+            case FREESCALE:  createFreeScaleWorld(3); break;
+            case SMALLWORLD: createSmallWorld(); break;
+            case RANDOM:     createRandomWorld(MEAN_DEGREE); break;
+            case RING:       createRingWorld(MEAN_DEGREE, REWIRING); break;
         }
+        populate();
     }
 
     @Override
     public void clearAll() {
-        List<Location> vertices = gg.getVertices().stream().toList();
-        for (Location l : vertices) {
-            l.setOccupant(null);
-        }
+        Arrays.fill(occupants, EMPTY);
+        Arrays.fill(crowding, 0);
+        store.clear();
+        zone.reset(occupants.length);
     }
 
     @Override
     public void place(Location l, Entity e) {
-        if (gg.containsVertex(l)) {
-            l.setOccupant(e);
+        int node = nodeOf(l);
+        if (node != EMPTY) {
+            leave(node);
+            occupants[node] = store.idOf(e);
+            store.enter(occupants[node]);
+            if (e instanceof Agent) {
+                crowd(node, 1);
+            }
         }
     }
 
     // Remove the occupant of the location
     @Override
     public void clearLocation(Location l) {
-        if (gg.containsVertex(l)) {
-            l.setOccupant(null);
+        int node = nodeOf(l);
+        if (node != EMPTY) {
+            leave(node);
+            occupants[node] = EMPTY;
         }
     };
 
+    private void leave(int node) {
+        if (occupants[node] != EMPTY) {
+            if (store.get(occupants[node]) instanceof Agent) {
+                crowd(node, -1);
+            }
+            store.leave(occupants[node]);
+        }
+    }
+
+    /**
+     * Add delta to the crowding of every neighbour of a node.
+     */
+    private void crowd(int node, int delta) {
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            crowding[topology.target(k)] += delta;
+        }
+    }
+
+    /**
+     * @return the number of agents on the neighbours of a node
+     */
+    public int getCrowding(int node) {
+        return crowding[node];
+    }
+
     @Override
     public Entity getObjectAt(Location l) {
-        if (gg.containsVertex(l)) {
-            return l.getOccupant();
+        int node = nodeOf(l);
+        if (node == EMPTY || occupants[node] == EMPTY) {
+            return null;
         }
-        return null;
+        return store.get(occupants[node]);
     }
 
     @Override
     public List<Location> getAllAdjacentLocations(Location location) {
-        if (gg.containsVertex(location)) {
-            return gg.getNeighbors(location).stream().toList();
+        int node = nodeOf(location);
+        if (node == EMPTY) {
+            return null;
         }
-        return null;
+        List<Location> adjs = new ArrayList<>(topology.degree(node));
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            adjs.add(nodes[topology.target(k)]);
+        }
+        return adjs;
     }
 
     /**
@@ -135,17 +272,34 @@ public class MobileNetwork implements Field<Entity, Location> {
      */
     @Override
     public List<Location> getAllFreeAdjacentLocations(Location l) {
-        if (gg.containsVertex(l)) {
-            List<Location> free = new ArrayList<>();
-            List<Location> adjs = new ArrayList<>(gg.getNeighbors(l));
-            for (Location loc : adjs) {
-                if (!loc.occupied()) {
-                    free.add(loc);
-                }
+        int node = nodeOf(l);
+        if (node == EMPTY) {
+            return Collections.EMPTY_LIST;
+        }
+        List<Location> free = new ArrayList<>();
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            int w = topology.target(k);
+            if (occupants[w] == EMPTY) {
+                free.add(nodes[w]);
             }
-            return free;
         }
-        return Collections.EMPTY_LIST;
+        return free;
+    }
+
+    @Override
+    public Location leastCrowdedFreeAdjacentLocation(Location l, boolean outsideZone) {
+        int node = nodeOf(l);
+        if (node == EMPTY) { return null; }
+        int best = EMPTY;
+        int fewest = Integer.MAX_VALUE;
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            int w = topology.target(k);
+            if (occupants[w] == EMPTY && crowding[w] < fewest && !(outsideZone && zone.contains(w))) {
+                best = w;
+                fewest = crowding[w];
+            }
+        }
+        return best == EMPTY ? null : nodes[best];
     }
 
     /**
@@ -157,16 +311,31 @@ public class MobileNetwork implements Field<Entity, Location> {
      */
     @Override
     public Location freeAdjacentLocation(Location l) {
-        List<Location> frees = getAllFreeAdjacentLocations(l);
-        if (frees.isEmpty()) { return null; }
-        return frees.get(SimData.getRandom().nextInt(frees.size()));
+        int node = nodeOf(l);
+        if (node == EMPTY) { return null; }
+        int free = 0;
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            if (occupants[topology.target(k)] == EMPTY) { free++; }
+        }
+        if (free == 0) { return null; }
+        // pick the chosen free node on a second pass rather than collecting them
+        int choice = SimData.getRandom().nextInt(free);
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            int w = topology.target(k);
+            if (occupants[w] == EMPTY && choice-- == 0) {
+                return nodes[w];
+            }
+        }
+        return null;
     }
 
     @Override
     public <T extends Entity> boolean isNeighbourTo(Location l, Class<T> c) {
-        List<T> neighbours = getAllNeighbours(l, c);
-        for (Entity e : neighbours) {
-            if (e.getClass() == c) {
+        int node = nodeOf(l);
+        if (node == EMPTY) { return false; }
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            int id = occupants[topology.target(k)];
+            if (id != EMPTY && store.get(id).getClass() == c) {
                 return true;
             }
         }
@@ -176,12 +345,14 @@ public class MobileNetwork implements Field<Entity, Location> {
     @Override
     public <T extends Entity> List<T> getAllNeighbours(Location location, Class<T> c) {
         List<T> allNeighbours = new ArrayList<>();
-        Collection<Location> interim = gg.getNeighbors(location);
-        if (interim != null) {
-            List<Location> n = new ArrayList<>(interim);
-            for (Location l : n) {
-                if (l.occupied() && l.getOccupant().getClass() == c) {
-                    allNeighbours.add((T) l.getOccupant());
+        int node = nodeOf(location);
+        if (node == EMPTY) { return allNeighbours; }
+        for (int k = topology.begin(node); k < topology.end(node); k++) {
+            int id = occupants[topology.target(k)];
+            if (id != EMPTY) {
+                Entity e = store.get(id);
+                if (e.getClass() == c) {
+                    allNeighbours.add((T) e);
                 }
             }
         }
@@ -196,49 +367,115 @@ public class MobileNetwork implements Field<Entity, Location> {
     @Override
     public List<Entity> getAllEntities() {
         List<Entity> entities = new ArrayList<>();
-        List<Location> nodes = gg.getVertices().stream().toList();
-        for (Location l : nodes) {
-            if (l.occupied()) {
-                entities.add(l.getOccupant());
+        for (int id : occupants) {
+            if (id != EMPTY) {
+                entities.add(store.get(id));
             }
         }
         return entities;
     }
 
     public void createSmallWorld() {
-        int lattice = SimData.getWidth();
-        double clustering = 0.5;
-        KleinbergSmallWorldGenerator<Location, Edge> gen = new KleinbergSmallWorldGenerator<>(
-                new GraphFactory(), nodeSupplier, edgeSupplier, lattice, clustering
-        );
-        gg = (ModifiableSparseGraph<Location, Edge>) gen.get();
+        setTopology(GraphGenerators.kleinberg(SimData.getWidth(), 0.5, SimData.getSeed(), SimData.getGeneratorThreads()));
     }
 
     public void createFreeScaleWorld(int numEdges) {
-        BarabasiAlbertGenerator<Location, Edge> gen = new BarabasiAlbertGenerator<>(
-                new GraphFactory(), nodeSupplier, edgeSupplier, 3, numEdges, SimData.getSeed(), new HashSet<>()
-        );
-        gen.evolveGraph(SimData.getWidth() * 10);
-        gg = (ModifiableSparseGraph<Location, Edge>) gen.get();
+        setTopology(GraphGenerators.barabasiAlbert(nodeCount(), numEdges, SimData.getSeed()));
+    }
+
+    public void createRandomWorld(int meanDegree) {
+        int n = nodeCount();
+        setTopology(GraphGenerators.erdosRenyi(n, Math.min(1.0, meanDegree / (n - 1.0)), SimData.getSeed(), SimData.getGeneratorThreads()));
+    }
+
+    public void createRingWorld(int degree, double rewiring) {
+        setTopology(GraphGenerators.wattsStrogatz(nodeCount(), degree, rewiring, SimData.getSeed(), SimData.getGeneratorThreads()));
+    }
+
+    /**
+     * @return the number of nodes in free-scale, random and ring networks
+     */
+    private int nodeCount() {
+        return 3 + SimData.getWidth() * 10;
+    }
+
+    /**
+     * Save the topology, its occupants and the quarantine zone.
+     */
+    public void writeTo(CheckpointOutput out) throws IOException {
+        topology.writeTo(out);
+        out.writeInts(occupants, occupants.length);
+        store.writeTo(out);
+        zone.writeTo(out);
     }
 
-    static class NodePainter implements Function<Location, Paint> {
+    /**
+     * Load a network saved by writeTo.
+     */
+    public static MobileNetwork readFrom(CheckpointInput in) throws IOException {
+        MobileNetwork net = new MobileNetwork();
+        net.setEdgeSupplier(new EdgeFactory());
+        net.setPaint(net.new NodePainter());
+        net.setTopology(CsrGraph.readFrom(in));
+        in.readInts(net.occupants, net.occupants.length);
+        net.store = AgentStore.readFrom(in);
+        // give occupants the node's own Location, as placing them would
+        for (int node = 0; node < net.occupants.length; node++) {
+            if (net.occupants[node] != EMPTY) {
+                net.store.get(net.occupants[node]).setLocation(net.nodes[node]);
+                if (net.store.get(net.occupants[node]) instanceof Agent) {
+                    net.crowd(node, 1);
+                }
+            }
+        }
+        net.zone = ZoneIndex.readFrom(in);
+        return net;
+    }
+
+    private void setTopology(CsrGraph generated) {
+        topology = generated;
+        int n = generated.nodeCount();
+        nodes = new Location[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new Location(i, i);
+        }
+        occupants = new int[n];
+        Arrays.fill(occupants, EMPTY);
+        crowding = new int[n];
+        zone.reset(n);
+        gg = null;
+    }
+
+    /**
+     * Fill the nodes, in id order, with whatever the AgentGenerator makes.
+     */
+    private void populate() {
+        clearAll();
+        AgentGenerator gen = new AgentGenerator();
+        for (int i = 0; i < nodes.length; i++) {
+            Entity e = gen.generate(nodes[i]);
+            if (e != null) {
+                place(nodes[i], e);
+            }
+        }
+    }
+
+    class NodePainter implements Function<Location, Paint> {
         @Override
         public Paint apply(Location loc) {
-            Entity e = loc.getOccupant();
+            Entity e = getObjectAt(loc);
             if (e == null) {
                 return GUIData.EMP_COL;
             }
             if (e instanceof Agent) {
                 Agent ag = (Agent) e;
-                if (ag.getStatus().getClass() == Susceptible.class) {
-                    return GUIData.SUS_COL;
+                switch (ag.getCompartment()) {
+                    case SUSCEPTIBLE: return GUIData.SUS_COL;
+                    case EXPOSED:     return GUIData.EXP_COL;
+                    case INFECTED:    return GUIData.INF_COL;
+                    case DEAD:        return GUIData.DEAD_COL;
+                    default:          return GUIData.REC_COL;
                 }
-                if (ag.getStatus().getClass() == Infected.class) {
-                    return GUIData.INF_COL;
-                }
-                // else, Recovered
-                return GUIData.REC_COL;
             }
             if (e instanceof Obstacle) {
                 return GUIData.OBS_COL;
@@ -254,17 +491,4 @@ public class MobileNetwork implements Field<Entity, Location> {
             return new Edge(relation);
         }
     }
-
-    static class NodeFactory implements Supplier<Location> {
-        AgentGenerator gen = new AgentGenerator();
-        int row = 0;
-        int col = 0;
-        @Override
-        public Location get() {
-            Location loc = new Location(row++, col++);
-            Entity e = gen.generate(loc);
-            loc.setOccupant(e);
-            return loc;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -1,5 +1,5 @@
 package environment;
 
 public enum NetworkType {
-    FREESCALE, SMALLWORLD
+    FREESCALE, SMALLWORLD, RANDOM, RING
 }
@@ -0,0 +1,100 @@
+package environment;
+
+/**
+ * Precomputed neighbourhood of every cell on a torus-shaped grid.
+ * For a radius w, the neighbourhood of (row, col) is the square of
+ * (2w+1)^2 cells around it, including the cell itself, with rows and
+ * columns wrapping around the edges of the grid. The wrapped row and
+ * column indices are looked up from two small tables, so visiting a
+ * neighbourhood needs no arithmetic beyond an index and allocates
+ * nothing.
+ *
+ * Typical use, visiting neighbours in row-major order:
+ * <pre>
+ *     for (int i = 0; i &lt; hood.span(); i++) {
+ *         int r = hood.wrappedRow(row, i);
+ *         for (int j = 0; j &lt; hood.span(); j++) {
+ *             int c = hood.wrappedCol(col, j);
+ *             ...
+ *         }
+ *     }
+ * </pre>
+ */
+public class TorusNeighbourhood {
+
+    /**
+     * Receives the index (row * width + col) of each cell in a
+     * neighbourhood.
+     */
+    public interface CellVisitor {
+        /**
+         * @param cell the index of the cell
+         * @return false to stop visiting
+         */
+        boolean visit(int cell);
+    }
+
+    private final int width;
+    private final int span;
+    // rows[row * span + i] is the i-th row of the neighbourhood of row
+    private final int[] rows;
+    // cols[col * span + j] is the j-th column of the neighbourhood of col
+    private final int[] cols;
+
+    public TorusNeighbourhood(int depth, int width, int radius) {
+        if (radius < 0) { throw new IllegalArgumentException("Radius must not be negative."); }
+        this.width = width;
+        this.span = 2 * radius + 1;
+        rows = wrapTable(depth, radius);
+        cols = wrapTable(width, radius);
+    }
+
+    private int[] wrapTable(int length, int radius) {
+        int[] table = new int[length * span];
+        for (int x = 0; x < length; x++) {
+            for (int offset = -radius; offset <= radius; offset++) {
+                table[x * span + offset + radius] = Math.floorMod(x + offset, length);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return the number of rows (and columns) in a neighbourhood
+     */
+    public int span() {
+        return span;
+    }
+
+    /**
+     * @return the number of cells in a neighbourhood, including the centre
+     */
+    public int size() {
+        return span * span;
+    }
+
+    public int wrappedRow(int row, int i) {
+        return rows[row * span + i];
+    }
+
+    public int wrappedCol(int col, int j) {
+        return cols[col * span + j];
+    }
+
+    /**
+     * Visit every cell in the neighbourhood of (row, col), the centre
+     * included, in row-major order.
+     * @return false if the visitor stopped early
+     */
+    public boolean forEach(int row, int col, CellVisitor visitor) {
+        for (int i = row * span, iEnd = i + span; i < iEnd; i++) {
+            int rowStart = rows[i] * width;
+            for (int j = col * span, jEnd = j + span; j < jEnd; j++) {
+                if (!visitor.visit(rowStart + cols[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
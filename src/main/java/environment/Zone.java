@@ -2,8 +2,30 @@ package environment;
 
 import java.util.Set;
 
+/**
+ * Quarantine zones over the locations of a field. Zones may overlap, and
+ * a location stays in the zone until every zone covering it has been
+ * deregistered.
+ */
 public interface Zone {
     public void registerZone(Set<Location> zoneLocations);
     public void deregisterZone(Set<Location> zoneLocations);
+
+    /**
+     * Register the zone around a quarantining agent at l, that is the
+     * locations adjacent to it.
+     */
+    public void registerZoneAround(Location l);
+
+    /**
+     * Deregister a zone registered by registerZoneAround(l).
+     */
+    public void deregisterZoneAround(Location l);
+
+    public boolean isInZone(Location l);
+
+    /**
+     * @return a read-only view of every location in some zone
+     */
     public Set<Location> getZone();
 }
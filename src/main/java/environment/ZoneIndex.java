@@ -0,0 +1,143 @@
+package environment;
+
+import checkpoint.CheckpointInput;
+import checkpoint.CheckpointOutput;
+
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * The quarantine zones of a field, held as a count for each location of
+ * how many zones cover it, indexed like the field's own arrays: by cell
+ * on a Grid and by node on a MobileNetwork. Each overlapping zone adds
+ * one, so removing a zone leaves the locations other zones still cover,
+ * and asking whether a location is in a zone is a single array read.
+ */
+public class ZoneIndex {
+
+    private int[] counts;
+    // the number of locations with a count above zero
+    private int size;
+
+    /**
+     * @param locations the number of locations in the field
+     */
+    public ZoneIndex(int locations) {
+        counts = new int[locations];
+    }
+
+    /**
+     * Add one to the count of a location.
+     */
+    public void add(int location) {
+        if (counts[location]++ == 0) { size++; }
+    }
+
+    /**
+     * Take one from the count of a location. A location that no zone
+     * covers is left alone.
+     */
+    public void remove(int location) {
+        if (counts[location] > 0 && --counts[location] == 0) { size--; }
+    }
+
+    public boolean contains(int location) {
+        return counts[location] > 0;
+    }
+
+    /**
+     * @return the number of zones covering a location
+     */
+    public int count(int location) {
+        return counts[location];
+    }
+
+    /**
+     * @return the number of locations covered by at least one zone
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every zone, and size the index for a field of the given
+     * number of locations.
+     */
+    public void reset(int locations) {
+        if (counts.length == locations) {
+            Arrays.fill(counts, 0);
+        }
+        else {
+            counts = new int[locations];
+        }
+        size = 0;
+    }
+
+    public void writeTo(CheckpointOutput out) throws IOException {
+        out.writeInt(counts.length);
+        out.writeInts(counts, counts.length);
+    }
+
+    public static ZoneIndex readFrom(CheckpointInput in) throws IOException {
+        ZoneIndex zone = new ZoneIndex(in.readInt());
+        in.readInts(zone.counts, zone.counts.length);
+        for (int c : zone.counts) {
+            if (c > 0) { zone.size++; }
+        }
+        return zone;
+    }
+
+    /**
+     * @param toLocation the Location of an index
+     * @param toIndex the index of a Location, or -1 if it is not in the field
+     * @return a read-only view of the covered locations
+     */
+    public Set<Location> asSet(IntFunction<Location> toLocation, ToIntFunction<Location> toIndex) {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Location)) { return false; }
+                int i = toIndex.applyAsInt((Location) o);
+                return i >= 0 && counts[i] > 0;
+            }
+
+            @Override
+            public Iterator<Location> iterator() {
+                return new Iterator<>() {
+                    private int next = advance(0);
+
+                    private int advance(int from) {
+                        while (from < counts.length && counts[from] == 0) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < counts.length;
+                    }
+
+                    @Override
+                    public Location next() {
+                        if (!hasNext()) { throw new NoSuchElementException(); }
+                        Location l = toLocation.apply(next);
+                        next = advance(next + 1);
+                        return l;
+                    }
+                };
+            }
+        };
+    }
+}
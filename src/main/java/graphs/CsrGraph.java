@@ -0,0 +1,179 @@
+package graphs;
+
+import checkpoint.CheckpointInput;
+import checkpoint.CheckpointOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Immutable undirected graph over the nodes 0 to n - 1, stored in
+ * compressed sparse row form. The neighbours of node v are
+ * targets[offsets[v]] to targets[offsets[v + 1] - 1], so a neighbour
+ * scan is a loop over a slice of one array:
+ *
+ * <pre>
+ *     for (int k = g.begin(v); k &lt; g.end(v); k++) {
+ *         int w = g.target(k);
+ *     }
+ * </pre>
+ *
+ * Self-loops and repeated edges are dropped when the graph is built,
+ * and each node's neighbours are kept in ascending order.
+ */
+public class CsrGraph {
+
+    private final int[] offsets;
+    private final int[] targets;
+
+    private CsrGraph(int[] offsets, int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    public int nodeCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return the number of undirected edges
+     */
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * @return the index of the first neighbour of v
+     */
+    public int begin(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * @return one past the index of the last neighbour of v
+     */
+    public int end(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * @param k an index between begin(v) and end(v) of some node v
+     * @return the neighbour stored at that index
+     */
+    public int target(int k) {
+        return targets[k];
+    }
+
+    public boolean hasEdge(int u, int v) {
+        return Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v) >= 0;
+    }
+
+    public void writeTo(CheckpointOutput out) throws IOException {
+        out.writeInt(offsets.length);
+        out.writeInts(offsets, offsets.length);
+        out.writeInt(targets.length);
+        out.writeInts(targets, targets.length);
+    }
+
+    public static CsrGraph readFrom(CheckpointInput in) throws IOException {
+        int[] offsets = new int[in.readInt()];
+        in.readInts(offsets, offsets.length);
+        int[] targets = new int[in.readInt()];
+        in.readInts(targets, targets.length);
+        return new CsrGraph(offsets, targets);
+    }
+
+    /**
+     * Compile a list of undirected edges held as pairs of node ids.
+     * @param nodes the number of nodes
+     * @param pairs the edges, as pairs[2i] to pairs[2i + 1]
+     * @param edges the number of edges in pairs to use
+     */
+    public static CsrGraph fromPairs(int nodes, int[] pairs, int edges) {
+        // counting sort of both directions of every edge by source node
+        int[] offsets = new int[nodes + 1];
+        for (int e = 0; e < 2 * edges; e += 2) {
+            if (pairs[e] != pairs[e + 1]) {
+                offsets[pairs[e] + 1]++;
+                offsets[pairs[e + 1] + 1]++;
+            }
+        }
+        for (int v = 0; v < nodes; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] targets = new int[offsets[nodes]];
+        int[] fill = Arrays.copyOf(offsets, nodes);
+        for (int e = 0; e < 2 * edges; e += 2) {
+            int u = pairs[e];
+            int v = pairs[e + 1];
+            if (u != v) {
+                targets[fill[u]++] = v;
+                targets[fill[v]++] = u;
+            }
+        }
+        // sort each node's neighbours and squeeze out repeated edges
+        int[] compact = new int[nodes + 1];
+        int write = 0;
+        for (int v = 0; v < nodes; v++) {
+            int begin = offsets[v];
+            int end = offsets[v + 1];
+            Arrays.sort(targets, begin, end);
+            compact[v] = write;
+            for (int k = begin; k < end; k++) {
+                if (k == begin || targets[k] != targets[k - 1]) {
+                    targets[write++] = targets[k];
+                }
+            }
+        }
+        compact[nodes] = write;
+        return new CsrGraph(compact, write == targets.length ? targets : Arrays.copyOf(targets, write));
+    }
+
+    /**
+     * Collects undirected edges and compiles them into a CsrGraph.
+     */
+    public static class Builder {
+        private final int nodes;
+        private int[] pairs;
+        private int size;
+
+        public Builder(int nodes) {
+            this(nodes, 16);
+        }
+
+        /**
+         * @param nodes the number of nodes
+         * @param expectedEdges a hint for how many edges will be added
+         */
+        public Builder(int nodes, int expectedEdges) {
+            if (nodes < 0)
+                throw new IllegalArgumentException("Node count must not be negative.");
+            this.nodes = nodes;
+            pairs = new int[2 * Math.max(expectedEdges, 1)];
+        }
+
+        public int nodeCount() {
+            return nodes;
+        }
+
+        public Builder addEdge(int u, int v) {
+            if (u < 0 || u >= nodes || v < 0 || v >= nodes)
+                throw new IllegalArgumentException("Edge (" + u + ", " + v + ") is outside the graph.");
+            if (2 * size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[2 * size] = u;
+            pairs[2 * size + 1] = v;
+            size++;
+            return this;
+        }
+
+        public CsrGraph build() {
+            return fromPairs(nodes, pairs, size);
+        }
+    }
+}
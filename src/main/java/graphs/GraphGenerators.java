@@ -0,0 +1,317 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Seeded random graph generators that write straight into a CsrGraph,
+ * without building vertex or edge objects. The same seed always gives
+ * the same graph.
+ *
+ * The Erdos-Renyi, Watts-Strogatz and Kleinberg generators split their
+ * nodes into fixed-size chunks, each drawing from its own random stream
+ * seeded from the chunk number, so they may be run on several threads
+ * and still give the same graph as a run on one.
+ */
+public class GraphGenerators {
+
+    // nodes per chunk of parallel generation
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private GraphGenerators() {}
+
+    /**
+     * Barabasi-Albert preferential attachment. The graph starts as a
+     * clique of m + 1 nodes; every later node joins with m edges whose
+     * other ends are chosen with probability proportional to degree, by
+     * picking uniformly from the list of every edge endpoint so far.
+     * @param n the number of nodes
+     * @param m the number of edges each new node brings
+     */
+    public static CsrGraph barabasiAlbert(int n, int m, long seed) {
+        if (m < 1 || n < m + 1)
+            throw new IllegalArgumentException("Barabasi-Albert needs m >= 1 and n > m.");
+        SplittableRandom rand = new SplittableRandom(seed);
+        int initial = m + 1;
+        long edges = (long) initial * m / 2 + (long) (n - initial) * m;
+        if (edges > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Too many edges for one graph.");
+        // every edge is appended as a pair of endpoints, so picking a uniform
+        // entry picks a node with probability proportional to its degree
+        int[] endpoints = new int[(int) (2 * edges)];
+        int size = 0;
+        for (int u = 0; u < initial; u++) {
+            for (int v = u + 1; v < initial; v++) {
+                endpoints[size++] = u;
+                endpoints[size++] = v;
+            }
+        }
+        int[] chosen = new int[m];
+        for (int v = initial; v < n; v++) {
+            int found = 0;
+            int existing = size;
+            while (found < m) {
+                int target = endpoints[rand.nextInt(existing)];
+                if (!contains(chosen, found, target)) {
+                    chosen[found++] = target;
+                }
+            }
+            for (int i = 0; i < m; i++) {
+                endpoints[size++] = v;
+                endpoints[size++] = chosen[i];
+            }
+        }
+        return CsrGraph.fromPairs(n, endpoints, size / 2);
+    }
+
+    /**
+     * Watts-Strogatz small world: a ring where each node is joined to its
+     * k / 2 nearest nodes on either side, after which the far end of each
+     * edge is moved to a uniformly chosen node with probability beta.
+     * Rewired edges that land on an existing edge are merged.
+     * @param n the number of nodes
+     * @param k the even degree of the initial ring
+     * @param beta the probability of rewiring each edge
+     * @param parallelism the number of threads to generate with
+     */
+    public static CsrGraph wattsStrogatz(int n, int k, double beta, long seed, int parallelism) {
+        if (k < 2 || k % 2 != 0 || k >= n)
+            throw new IllegalArgumentException("Watts-Strogatz needs an even k with 2 <= k < n.");
+        if (beta < 0 || beta > 1)
+            throw new IllegalArgumentException("Rewiring probability must be between 0 and 1 inclusive.");
+        int half = k / 2;
+        return generate(n, seed, parallelism, (lo, hi, rand, out) -> {
+            for (int u = lo; u < hi; u++) {
+                for (int j = 1; j <= half; j++) {
+                    int v = (u + j) % n;
+                    if (rand.nextDouble() < beta) {
+                        do {
+                            v = rand.nextInt(n);
+                        } while (v == u);
+                    }
+                    out.add(u, v);
+                }
+            }
+        });
+    }
+
+    /**
+     * Kleinberg small world on a side x side torus lattice. Each node is
+     * joined to its four lattice neighbours and has one long-range edge
+     * to a node at lattice distance d, chosen with probability
+     * proportional to d^-exponent.
+     * @param side the number of nodes along each side of the lattice
+     * @param exponent the clustering exponent
+     * @param parallelism the number of threads to generate with
+     */
+    public static CsrGraph kleinberg(int side, double exponent, long seed, int parallelism) {
+        if (side < 3)
+            throw new IllegalArgumentException("Kleinberg lattice must be at least 3 x 3.");
+        int n = side * side;
+        // on a torus, the nodes at distance d from any node lie on a diamond
+        // of 4d points, as long as d is at most half the side
+        int maxDistance = side / 2;
+        double[] cumulative = new double[maxDistance + 1];
+        for (int d = 1; d <= maxDistance; d++) {
+            cumulative[d] = cumulative[d - 1] + 4.0 * d * Math.pow(d, -exponent);
+        }
+        return generate(n, seed, parallelism, (lo, hi, rand, out) -> {
+            for (int u = lo; u < hi; u++) {
+                int row = u / side;
+                int col = u % side;
+                out.add(u, row * side + (col + 1) % side);
+                out.add(u, ((row + 1) % side) * side + col);
+                int d = pickDistance(cumulative, rand.nextDouble() * cumulative[maxDistance]);
+                // walk round the diamond of points at distance d
+                int t = rand.nextInt(4 * d);
+                int side4 = t / d;
+                int step = t % d;
+                int dr;
+                int dc;
+                switch (side4) {
+                    case 0:  dr = step;      dc = d - step;  break;
+                    case 1:  dr = d - step;  dc = -step;     break;
+                    case 2:  dr = -step;     dc = step - d;  break;
+                    default: dr = step - d;  dc = step;      break;
+                }
+                int r = Math.floorMod(row + dr, side);
+                int c = Math.floorMod(col + dc, side);
+                out.add(u, r * side + c);
+            }
+        });
+    }
+
+    /**
+     * Erdos-Renyi G(n, p), generated in time proportional to the number
+     * of edges by skipping a geometrically distributed number of node
+     * pairs between edges (Batagelj and Brandes).
+     * @param n the number of nodes
+     * @param p the probability of each edge
+     * @param parallelism the number of threads to generate with
+     */
+    public static CsrGraph erdosRenyi(int n, double p, long seed, int parallelism) {
+        if (p < 0 || p > 1)
+            throw new IllegalArgumentException("Edge probability must be between 0 and 1 inclusive.");
+        double expected = p * n * (n - 1.0) / 2;
+        if (expected > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Too many expected edges for one graph.");
+        return generate(n, seed, parallelism, (lo, hi, rand, out) -> {
+            if (p == 0) { return; }
+            // node v may join any w < v; walk the pairs (v, w) of this chunk in order
+            double logq = Math.log(1.0 - p);
+            int v = Math.max(lo, 1);
+            long w = -1;
+            while (v < hi) {
+                if (p == 1) { w++; }
+                else { w += 1 + (long) Math.floor(Math.log(1.0 - rand.nextDouble()) / logq); }
+                while (w >= v && v < hi) {
+                    w -= v;
+                    v++;
+                }
+                if (v < hi) {
+                    out.add(v, (int) w);
+                }
+            }
+        });
+    }
+
+    /**
+     * Erased configuration model: each node gets as many edge stubs as
+     * its degree, the stubs are shuffled and paired off in order, and
+     * self-loops and repeated edges are then dropped.
+     * @param degrees the degree of each node; must sum to an even number
+     */
+    public static CsrGraph configurationModel(int[] degrees, long seed) {
+        long total = 0;
+        for (int d : degrees) {
+            if (d < 0) { throw new IllegalArgumentException("Degrees must not be negative."); }
+            total += d;
+        }
+        if (total % 2 != 0)
+            throw new IllegalArgumentException("Degrees must sum to an even number.");
+        int[] stubs = new int[(int) total];
+        int size = 0;
+        for (int v = 0; v < degrees.length; v++) {
+            for (int i = 0; i < degrees[v]; i++) {
+                stubs[size++] = v;
+            }
+        }
+        SplittableRandom rand = new SplittableRandom(seed);
+        for (int i = stubs.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int s = stubs[i];
+            stubs[i] = stubs[j];
+            stubs[j] = s;
+        }
+        CsrGraph.Builder b = new CsrGraph.Builder(degrees.length, stubs.length / 2);
+        for (int i = 0; i + 1 < stubs.length; i += 2) {
+            b.addEdge(stubs[i], stubs[i + 1]);
+        }
+        return b.build();
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) { return true; }
+        }
+        return false;
+    }
+
+    private static int pickDistance(double[] cumulative, double x) {
+        int lo = 1;
+        int hi = cumulative.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] < x) { lo = mid + 1; }
+            else { hi = mid; }
+        }
+        return lo;
+    }
+
+    /**
+     * Edges produced by one chunk of nodes.
+     */
+    private static class EdgeList {
+        int[] pairs = new int[128];
+        int size;
+
+        void add(int u, int v) {
+            if (2 * size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[2 * size] = u;
+            pairs[2 * size + 1] = v;
+            size++;
+        }
+    }
+
+    private interface ChunkGenerator {
+        void generate(int lo, int hi, SplittableRandom rand, EdgeList out);
+    }
+
+    private static CsrGraph generate(int n, long seed, int parallelism, ChunkGenerator gen) {
+        if (n < 1)
+            throw new IllegalArgumentException("A graph needs at least one node.");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        EdgeList[] lists = new EdgeList[chunks];
+        Runnable[] tasks = new Runnable[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int chunk = c;
+            tasks[c] = () -> {
+                EdgeList out = new EdgeList();
+                int lo = chunk * CHUNK_SIZE;
+                gen.generate(lo, Math.min(n, lo + CHUNK_SIZE), new SplittableRandom(chunkSeed(seed, chunk)), out);
+                lists[chunk] = out;
+            };
+        }
+        if (parallelism == 1 || chunks == 1) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+        else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                List<ForkJoinTask<?>> running = new ArrayList<>(chunks);
+                for (Runnable task : tasks) {
+                    running.add(pool.submit(task));
+                }
+                for (ForkJoinTask<?> t : running) {
+                    t.join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        long total = 0;
+        for (EdgeList list : lists) {
+            total += list.size;
+        }
+        if (total > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Too many edges for one graph.");
+        int[] pairs = new int[(int) (2 * total)];
+        int at = 0;
+        for (EdgeList list : lists) {
+            System.arraycopy(list.pairs, 0, pairs, at, 2 * list.size);
+            at += 2 * list.size;
+            list.pairs = null;
+        }
+        return CsrGraph.fromPairs(n, pairs, (int) total);
+    }
+
+    /**
+     * Mix the seed and a chunk number into the seed of the chunk's stream.
+     */
+    private static long chunkSeed(long seed, int chunk) {
+        long z = seed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,61 +1,128 @@
 package io;
 
-import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import data.RunAggregator;
+
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Averages saved simulation CSVs step by step across runs. Each run is
+ * fed into a RunAggregator as it is added rather than kept, so any
+ * number of runs may be averaged. The header rows at the top of each
+ * run are skipped: either a given number of them, or every row before
+ * the first whose cells are all numbers.
+ */
 public class CSVCalculator {
 
-    private int cols;
-    private List<List<List<String>>> relations;
+    public static final int DETECT_HEADERS = MappedCSVReader.DETECT_HEADERS;
+
+    private final int cols;
+    private final int headerRows;
+    private final RunAggregator aggregator;
 
     public CSVCalculator(int cols) {
+        this(cols, DETECT_HEADERS);
+    }
+
+    /**
+     * @param headerRows the number of header rows of each run, or DETECT_HEADERS
+     */
+    public CSVCalculator(int cols, int headerRows) {
+        if (headerRows < DETECT_HEADERS)
+            throw new IllegalArgumentException("Header rows must not be negative.");
         this.cols = cols;
-        relations = new ArrayList<>();
-    };
+        this.headerRows = headerRows;
+        aggregator = new RunAggregator(cols);
+    }
 
+    /**
+     * Add one run, as read by CSVReader.
+     */
     public void addRelation(List<List<String>> list) {
-        relations.add(list);
+        int first = headerRows;
+        if (headerRows == DETECT_HEADERS) {
+            first = 0;
+            while (first < list.size() && !isNumeric(list.get(first))) {
+                first++;
+            }
+        }
+        if (first >= list.size())
+            throw new IllegalArgumentException("Run has no rows of counts.");
+        double[] row = new double[cols];
+        aggregator.startRun();
+        for (int i = first; i < list.size(); i++) {
+            List<String> line = list.get(i);
+            for (int k = 0; k < cols; k++) {
+                row[k] = Double.parseDouble(line.get(k).trim());
+            }
+            aggregator.addRow(row);
+        }
+        aggregator.endRun();
     }
 
-    public List<List<String>> computeAverage() {
-        List<List<String>> average = new ArrayList<List<String>>();
-        int dim = getBiggestRelation();
-        for (int i = 3; i < dim; i++) {
-            List<List<String>> rows = new ArrayList<>();
-            for (List<List<String>> relation : relations) {
-                if (i < relation.size())
-                    rows.add(relation.get(i));
-                else {
-                    List<String> zeroes = new ArrayList<>();
-                    rows.add(relation.get(relation.size() - 1));
-                }
+    /**
+     * Add one run, as read by MappedCSVReader.
+     */
+    public void addTable(CSVTable table) {
+        if (table.getRowCount() == 0)
+            throw new IllegalArgumentException("Run has no rows of counts.");
+        if (table.getColumnCount() < cols)
+            throw new IllegalArgumentException("Run has " + table.getColumnCount() + " columns, not " + cols + ".");
+        double[] row = new double[cols];
+        aggregator.startRun();
+        for (int i = 0; i < table.getRowCount(); i++) {
+            for (int k = 0; k < cols; k++) {
+                row[k] = table.get(i, k);
             }
+            aggregator.addRow(row);
+        }
+        aggregator.endRun();
+    }
+
+    /**
+     * @return the mean of each column at each step, to one decimal place;
+     *         runs that stopped early count their last row
+     */
+    public List<List<String>> computeAverage() {
+        List<List<String>> average = new ArrayList<>();
+        for (int step = 0; step < aggregator.getLength(); step++) {
             List<String> averageRow = new ArrayList<>();
             for (int k = 0; k < cols; k++) {
-                double sum = 0;
-                double res = 0;
-                for (List<String> row : rows) {
-                    sum += Double.parseDouble(row.get(k));
-                }
-                res = sum / relations.size();
-                BigDecimal bd = BigDecimal.valueOf(res).setScale(1, RoundingMode.HALF_EVEN);
-                averageRow.add(String.valueOf(bd));
+                averageRow.add(tenths(aggregator.getStatistics(step, k).getMean()));
             }
             average.add(averageRow);
         }
         return average;
     }
 
-    private int getBiggestRelation() {
-        int rows = 0;
-        for (List<List<String>> relation : relations) {
-            if (relation.size() > rows) {
-                rows = relation.size();
+    /**
+     * @return the statistics of every run added so far
+     */
+    public RunAggregator getAggregator() {
+        return aggregator;
+    }
+
+    /**
+     * Every cell is checked, not only the first cols, since the row of
+     * parameter values in a saved record starts with numbers.
+     */
+    private boolean isNumeric(List<String> line) {
+        if (line.size() < cols) { return false; }
+        try {
+            for (String cell : line) {
+                Double.parseDouble(cell.trim());
             }
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
         }
-        return rows;
     }
-}
\ No newline at end of file
+
+    /**
+     * Round to one decimal place, half to even, without exponent notation.
+     */
+    private static String tenths(double x) {
+        long t = (long) Math.rint(x * 10);
+        return (t < 0 ? "-" : "") + Math.abs(t / 10) + "." + Math.abs(t % 10);
+    }
+}
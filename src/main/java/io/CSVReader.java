@@ -1,30 +1,35 @@
 package io;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class CSVReader {
 
-    public static List<List<String>> readCSV(String filePath) {
-        List<List<String>> records = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(",");
-                records.add(Arrays.asList(values));
+    /**
+     * Read a whole CSV file as text, one list of cells per row, undoing
+     * any quoting. To read the counts of saved records as numbers, use
+     * MappedCSVReader, which makes no String per cell.
+     * @throws IOException if the file cannot be read
+     */
+    public static List<List<String>> readCSV(String filePath) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE)
+                throw new IOException(filePath + " is too large to read as text.");
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            List<List<String>> records = new ArrayList<>();
+            int n = map.limit();
+            int i = 0;
+            while (i < n) {
+                List<String> cells = new ArrayList<>();
+                i = MappedCSVReader.readRow(map, i, n, cells);
+                records.add(cells);
             }
-        } catch (FileNotFoundException e) {
-            System.out.println("CSVReader::readCSV -> could not find the file.");
-            e.printStackTrace();
-        } catch (IOException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            return records;
         }
-        return records;
     }
-}
\ No newline at end of file
+}
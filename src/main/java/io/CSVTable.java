@@ -0,0 +1,76 @@
+package io;
+
+import java.util.List;
+
+/**
+ * A CSV file read by MappedCSVReader: its header rows as text, and the
+ * numeric rows below them as one primitive array per column. A column
+ * is held as ints if every value in it is an int, and as doubles
+ * otherwise.
+ */
+public class CSVTable {
+
+    private final List<String[]> headers;
+    private final int rows;
+    // for each column, exactly one of these is non-null
+    private final int[][] ints;
+    private final double[][] doubles;
+
+    CSVTable(List<String[]> headers, int rows, int[][] ints, double[][] doubles) {
+        this.headers = headers;
+        this.rows = rows;
+        this.ints = ints;
+        this.doubles = doubles;
+    }
+
+    /**
+     * @return the rows above the numbers, e.g. the parameter names,
+     *         their values, and the compartment names of a saved record
+     */
+    public List<String[]> getHeaders() {
+        return headers;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return ints.length;
+    }
+
+    /**
+     * @return whether every value of a column is an int
+     */
+    public boolean isIntColumn(int column) {
+        return ints[column] != null;
+    }
+
+    /**
+     * @return the values of an int column, without copying
+     * @throws IllegalStateException if the column holds doubles
+     */
+    public int[] getInts(int column) {
+        if (ints[column] == null)
+            throw new IllegalStateException("Column " + column + " holds doubles.");
+        return ints[column];
+    }
+
+    /**
+     * @return the values of a column as doubles; an int column is copied
+     */
+    public double[] getDoubles(int column) {
+        if (doubles[column] != null) {
+            return doubles[column];
+        }
+        double[] v = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            v[i] = ints[column][i];
+        }
+        return v;
+    }
+
+    public double get(int row, int column) {
+        return ints[column] != null ? ints[column][row] : doubles[column][row];
+    }
+}
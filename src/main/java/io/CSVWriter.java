@@ -5,26 +5,68 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /** methods taken from https://www.baeldung.com/java-csv
  */
 public class CSVWriter {
 
     private static String convertToCSV(String[] data) {
-        return Stream.of(data)
-                .map(CSVWriter::escapeSpecialCharacters)
-                .collect(Collectors.joining(","));
+        StringBuilder sb = new StringBuilder();
+        appendRow(sb, data);
+        return sb.toString();
     }
 
-    private static String escapeSpecialCharacters(String data) {
-        String escapedData = data.replaceAll("\\R", " ");
-        if (data.contains(",") || data.contains("\"") || data.contains("'")) {
-            data = data.replace("\"", "\"\"");
-            escapedData = "\"" + data + "\"";
+    /**
+     * Append a row of cells, separated by commas, to a StringBuilder.
+     */
+    public static void appendRow(StringBuilder sb, String[] data) {
+        for (int i = 0; i < data.length; i++) {
+            if (i > 0) { sb.append(','); }
+            appendEscaped(sb, data[i]);
+        }
+    }
+
+    /**
+     * Append a single cell to a StringBuilder in one pass. Line breaks
+     * become spaces, and a cell containing a comma or a quote is
+     * quoted, with any double quotes doubled.
+     */
+    public static void appendEscaped(StringBuilder sb, String data) {
+        boolean quote = false;
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c == ',' || c == '"' || c == '\'') {
+                quote = true;
+                break;
+            }
+        }
+        if (quote) { sb.append('"'); }
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c == '"') {
+                sb.append("\"\"");
+            }
+            else if (isLineBreak(c)) {
+                // a CR LF pair is a single line break
+                if (c == '\r' && i + 1 < data.length() && data.charAt(i + 1) == '\n') { i++; }
+                sb.append(' ');
+            }
+            else {
+                sb.append(c);
+            }
         }
-        return escapedData;
+        if (quote) { sb.append('"'); }
+    }
+
+    static String escapeSpecialCharacters(String data) {
+        StringBuilder sb = new StringBuilder(data.length() + 2);
+        appendEscaped(sb, data);
+        return sb.toString();
+    }
+
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\f'
+                || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
 
     /**
@@ -51,4 +93,4 @@ public class CSVWriter {
         }
         writeCSV(l, filePath);
     }
-}
\ No newline at end of file
+}
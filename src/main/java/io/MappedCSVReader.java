@@ -0,0 +1,473 @@
+package io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads CSV files through a read-only memory map, scanning the bytes
+ * directly. Header rows are decoded as text. By default these are the
+ * rows before the first row whose cells are all numbers. The rows
+ * below them are parsed straight into a primitive array per column,
+ * without making a String for each cell.
+ *
+ * Cells may be quoted, with any quote inside doubled, as CSVWriter
+ * writes them. The numeric rows of a large file are split at line
+ * breaks and parsed in parallel. They therefore must not hold a line
+ * break inside quotes. CSVWriter never writes one.
+ */
+public class MappedCSVReader {
+
+    /**
+     * Treat every row before the first all-numeric row as a header.
+     */
+    public static final int DETECT_HEADERS = -1;
+
+    // the fewest bytes of numeric rows worth giving a thread of its own
+    private static final long MIN_CHUNK = 1 << 20;
+    // the most bytes one mapping may cover
+    private static final long MAX_CHUNK = 1 << 30;
+    // powers of ten that are exact as doubles
+    private static final double[] POWERS = new double[23];
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    private MappedCSVReader() {}
+
+    public static CSVTable read(Path path) throws IOException {
+        return read(path, DETECT_HEADERS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param headerRows the number of header rows, or DETECT_HEADERS
+     * @param parallelism the most threads to parse with
+     * @throws IOException if the file cannot be read, a cell below the
+     *         headers is not a number, or the rows differ in length
+     */
+    public static CSVTable read(Path path, int headerRows, int parallelism) throws IOException {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            List<String[]> headers = new ArrayList<>();
+            long start = readHeaders(ch, size, headerRows, headers);
+            long[] bounds = split(ch, start, size, parallelism);
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            Runnable[] tasks = new Runnable[chunks.length];
+            for (int c = 0; c < chunks.length; c++) {
+                int chunk = c;
+                MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, bounds[c], bounds[c + 1] - bounds[c]);
+                tasks[c] = () -> {
+                    try {
+                        chunks[chunk] = Chunk.parse(map, bounds[chunk]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+            }
+            try {
+                run(tasks, parallelism);
+            } catch (UncheckedIOException e) {
+                throw new IOException(path + ": " + e.getCause().getMessage(), e.getCause());
+            }
+            return join(path, headers, chunks);
+        }
+    }
+
+    /**
+     * Decode the header rows.
+     * @return the offset of the first row after the headers
+     */
+    private static long readHeaders(FileChannel ch, long size, int headerRows, List<String[]> headers)
+            throws IOException {
+        if (headerRows == 0 || size == 0) { return 0; }
+        MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_CHUNK));
+        int n = map.limit();
+        int i = 0;
+        List<String> cells = new ArrayList<>();
+        while (i < n && (headerRows < 0 || headers.size() < headerRows)) {
+            cells.clear();
+            int next = readRow(map, i, n, cells);
+            if (headerRows < 0 && isNumeric(cells)) { break; }
+            if (!(cells.size() == 1 && cells.get(0).isEmpty())) {
+                headers.add(cells.toArray(new String[0]));
+            }
+            i = next;
+        }
+        if (i == n && n < size)
+            throw new IOException("Header rows are longer than " + MAX_CHUNK + " bytes.");
+        return i;
+    }
+
+    private static boolean isNumeric(List<String> cells) {
+        try {
+            for (String cell : cells) {
+                Double.parseDouble(cell);
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Decode one row of text cells, undoing any quoting.
+     * @param i the offset of the start of the row
+     * @param n the offset of the end of the text
+     * @return the offset of the start of the next row
+     */
+    static int readRow(ByteBuffer buf, int i, int n, List<String> cells) {
+        ByteArrayOutputStream cell = new ByteArrayOutputStream();
+        while (true) {
+            if (i < n && buf.get(i) == '"') {
+                i++;
+                while (i < n) {
+                    byte b = buf.get(i++);
+                    if (b != '"') {
+                        cell.write(b);
+                    }
+                    else if (i < n && buf.get(i) == '"') {
+                        cell.write('"');
+                        i++;
+                    }
+                    else {
+                        break;
+                    }
+                }
+            }
+            while (i < n && buf.get(i) != ',' && buf.get(i) != '\n' && buf.get(i) != '\r') {
+                cell.write(buf.get(i++));
+            }
+            cells.add(new String(cell.toByteArray(), StandardCharsets.UTF_8));
+            cell.reset();
+            if (i < n && buf.get(i) == ',') {
+                i++;
+                continue;
+            }
+            if (i < n && buf.get(i) == '\r') { i++; }
+            if (i < n && buf.get(i) == '\n') { i++; }
+            return i;
+        }
+    }
+
+    /**
+     * Cut the numeric rows into chunks, each ending just after a line
+     * break.
+     * @return the offsets of the chunks' starts, then the end of the file
+     */
+    private static long[] split(FileChannel ch, long start, long size, int parallelism) throws IOException {
+        long length = size - start;
+        int chunks = (int) Math.max(Math.min(parallelism, length / MIN_CHUNK), (length + MAX_CHUNK - 1) / MAX_CHUNK);
+        chunks = Math.max(chunks, 1);
+        long[] bounds = new long[chunks + 1];
+        int count = 0;
+        bounds[count++] = start;
+        ByteBuffer window = ByteBuffer.allocate(1 << 13);
+        for (int c = 1; c < chunks; c++) {
+            long pos = Math.max(start + length * c / chunks, bounds[count - 1]);
+            pos = nextLine(ch, pos, size, window);
+            if (pos > bounds[count - 1] && pos < size) {
+                bounds[count++] = pos;
+            }
+        }
+        bounds[count++] = size;
+        long[] trimmed = new long[count];
+        System.arraycopy(bounds, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * @return the offset just after the first line break at or after pos
+     */
+    private static long nextLine(FileChannel ch, long pos, long size, ByteBuffer window) throws IOException {
+        while (pos < size) {
+            window.clear();
+            int read = ch.read(window, pos);
+            if (read < 0) { break; }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private static void run(Runnable[] tasks, int parallelism) {
+        if (parallelism == 1 || tasks.length == 1) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, tasks.length));
+        try {
+            List<ForkJoinTask<?>> running = new ArrayList<>(tasks.length);
+            for (Runnable task : tasks) {
+                running.add(pool.submit(task));
+            }
+            for (ForkJoinTask<?> t : running) {
+                t.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Put the chunks' columns end to end.
+     */
+    private static CSVTable join(Path path, List<String[]> headers, Chunk[] chunks) throws IOException {
+        int columns = -1;
+        int rows = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.rows == 0) { continue; }
+            if (columns >= 0 && chunk.columns.size() != columns)
+                throw new IOException(path + ": rows have " + columns + " and " + chunk.columns.size() + " cells.");
+            columns = chunk.columns.size();
+            if ((long) rows + chunk.rows > Integer.MAX_VALUE)
+                throw new IOException(path + " has too many rows.");
+            rows += chunk.rows;
+        }
+        columns = Math.max(columns, 0);
+        int[][] ints = new int[columns][];
+        double[][] doubles = new double[columns][];
+        for (int c = 0; c < columns; c++) {
+            boolean isDouble = false;
+            for (Chunk chunk : chunks) {
+                isDouble |= chunk.rows > 0 && chunk.columns.get(c).doubles != null;
+            }
+            if (isDouble) { doubles[c] = new double[rows]; }
+            else { ints[c] = new int[rows]; }
+            int at = 0;
+            for (Chunk chunk : chunks) {
+                if (chunk.rows == 0) { continue; }
+                Column col = chunk.columns.get(c);
+                if (!isDouble) {
+                    System.arraycopy(col.ints, 0, ints[c], at, col.size);
+                }
+                else if (col.doubles != null) {
+                    System.arraycopy(col.doubles, 0, doubles[c], at, col.size);
+                }
+                else {
+                    for (int i = 0; i < col.size; i++) {
+                        doubles[c][at + i] = col.ints[i];
+                    }
+                }
+                at += col.size;
+            }
+        }
+        return new CSVTable(headers, rows, ints, doubles);
+    }
+
+    /**
+     * The values of one column of a chunk, held as ints until the first
+     * value that is not an int.
+     */
+    private static class Column {
+        int[] ints = new int[1024];
+        double[] doubles;
+        int size;
+
+        void add(int v) {
+            if (doubles != null) {
+                add((double) v);
+                return;
+            }
+            if (size == ints.length) {
+                ints = Arrays.copyOf(ints, size * 2);
+            }
+            ints[size++] = v;
+        }
+
+        void add(double v) {
+            if (doubles == null) {
+                doubles = new double[ints.length];
+                for (int i = 0; i < size; i++) {
+                    doubles[i] = ints[i];
+                }
+                ints = null;
+            }
+            if (size == doubles.length) {
+                doubles = Arrays.copyOf(doubles, size * 2);
+            }
+            doubles[size++] = v;
+        }
+    }
+
+    /**
+     * The numeric rows between two line breaks of the file.
+     */
+    private static class Chunk {
+        final List<Column> columns = new ArrayList<>();
+        int rows;
+
+        /**
+         * @param base the offset of the chunk in the file, for messages
+         */
+        static Chunk parse(ByteBuffer buf, long base) throws IOException {
+            Chunk chunk = new Chunk();
+            int n = buf.limit();
+            int i = 0;
+            while (i < n) {
+                byte b = buf.get(i);
+                if (b == '\n' || b == '\r') {
+                    i++;
+                    continue;
+                }
+                int rowStart = i;
+                int col = 0;
+                while (true) {
+                    if (col == chunk.columns.size()) {
+                        if (chunk.rows > 0)
+                            throw new IOException("Row at byte " + (base + rowStart) + " has too many cells.");
+                        chunk.columns.add(new Column());
+                    }
+                    i = chunk.parseCell(buf, i, n, chunk.columns.get(col++), base);
+                    if (i < n && buf.get(i) == ',') {
+                        i++;
+                        continue;
+                    }
+                    break;
+                }
+                if (col != chunk.columns.size())
+                    throw new IOException("Row at byte " + (base + rowStart) + " has " + col + " cells, not "
+                            + chunk.columns.size() + ".");
+                chunk.rows++;
+            }
+            return chunk;
+        }
+
+        /**
+         * Parse one number and add it to a column.
+         * @return the offset of the comma or line break after the cell
+         */
+        int parseCell(ByteBuffer buf, int i, int n, Column column, long base) throws IOException {
+            int start = i;
+            boolean quoted = i < n && buf.get(i) == '"';
+            if (quoted) { i++; }
+            boolean negative = false;
+            if (i < n && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                negative = buf.get(i) == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int significant = 0;
+            int exponent = 0;
+            boolean digits = false;
+            boolean exact = true;
+            boolean isDouble = false;
+            int d;
+            while (i < n && (d = buf.get(i) - '0') >= 0 && d <= 9) {
+                digits = true;
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + d;
+                    if (mantissa != 0) { significant++; }
+                }
+                else {
+                    exponent++;
+                    exact = false;
+                }
+                i++;
+            }
+            if (i < n && buf.get(i) == '.') {
+                isDouble = true;
+                i++;
+                while (i < n && (d = buf.get(i) - '0') >= 0 && d <= 9) {
+                    digits = true;
+                    if (significant < 18) {
+                        mantissa = mantissa * 10 + d;
+                        if (mantissa != 0) { significant++; }
+                        exponent--;
+                    }
+                    else {
+                        exact = false;
+                    }
+                    i++;
+                }
+            }
+            if (digits && i < n && (buf.get(i) == 'e' || buf.get(i) == 'E')) {
+                isDouble = true;
+                i++;
+                boolean negativeExponent = false;
+                if (i < n && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                    negativeExponent = buf.get(i) == '-';
+                    i++;
+                }
+                int e = 0;
+                boolean expDigits = false;
+                while (i < n && (d = buf.get(i) - '0') >= 0 && d <= 9) {
+                    expDigits = true;
+                    e = Math.min(e * 10 + d, 100_000);
+                    i++;
+                }
+                if (!expDigits) { digits = false; }
+                exponent += negativeExponent ? -e : e;
+            }
+            if (quoted && i < n && buf.get(i) == '"') { i++; }
+            else if (quoted) { digits = false; }
+            if (!digits || (i < n && buf.get(i) != ',' && buf.get(i) != '\n' && buf.get(i) != '\r')) {
+                return parseSlowly(buf, start, n, column, base);
+            }
+            long value = negative ? -mantissa : mantissa;
+            if (!isDouble && exact && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                column.add((int) value);
+            }
+            else if (exact && mantissa < (1L << 53) && Math.abs(exponent) < POWERS.length) {
+                // both the mantissa and the power of ten are exact, so one
+                // multiplication or division rounds correctly
+                column.add(exponent >= 0 ? value * POWERS[exponent] : value / POWERS[-exponent]);
+            }
+            else {
+                return parseSlowly(buf, start, n, column, base);
+            }
+            return i;
+        }
+
+        /**
+         * Parse a cell the fast path cannot, such as one with surrounding
+         * spaces or too many digits, through its text.
+         */
+        int parseSlowly(ByteBuffer buf, int i, int n, Column column, long base) throws IOException {
+            List<String> cell = new ArrayList<>(1);
+            int end = i;
+            boolean inQuotes = false;
+            while (end < n) {
+                byte b = buf.get(end);
+                if (b == '"') { inQuotes = !inQuotes; }
+                else if (!inQuotes && (b == ',' || b == '\n' || b == '\r')) { break; }
+                end++;
+            }
+            readRow(buf, i, end, cell);
+            String text = cell.get(0).trim();
+            try {
+                column.add(Integer.parseInt(text));
+                return end;
+            } catch (NumberFormatException e) {
+                // not an int, so perhaps a double
+            }
+            try {
+                column.add(Double.parseDouble(text));
+            } catch (NumberFormatException e) {
+                throw new IOException("Cell at byte " + (base + i) + " is not a number: " + cell.get(0));
+            }
+            return end;
+        }
+    }
+}
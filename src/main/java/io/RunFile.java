@@ -0,0 +1,184 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A simulation run stored in the binary run format, read through a
+ * read-only memory map. Nothing is decoded up front beyond the header;
+ * counts are read from the mapped file as they are asked for.
+ *
+ * The format, in little-endian byte order, is:
+ * <pre>
+ *     "SIMRUN"               magic, 6 bytes
+ *     short   version
+ *     int     n, then n bytes of UTF-8 "name=value\n" parameter lines
+ *     int     columns, then for each a length and UTF-8 name
+ *     int     steps
+ *     padding to a multiple of 4 bytes
+ *     int[columns][steps]    counts, one column after another
+ * </pre>
+ */
+public class RunFile {
+
+    static final byte[] MAGIC = "SIMRUN".getBytes(StandardCharsets.US_ASCII);
+    static final short VERSION = 1;
+
+    private final Path path;
+    private final Map<String, String> parameters;
+    private final String[] columns;
+    private final int steps;
+    private final IntBuffer data;
+
+    private RunFile(Path path, Map<String, String> parameters, String[] columns, int steps, IntBuffer data) {
+        this.path = path;
+        this.parameters = parameters;
+        this.columns = columns;
+        this.steps = steps;
+        this.data = data;
+    }
+
+    /**
+     * Map a run file. The mapping outlives the open channel and is
+     * released once the RunFile is no longer reachable.
+     * @throws IOException if the file cannot be read or is not a run file
+     */
+    public static RunFile open(Path path) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        ByteBuffer b = map.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            for (byte m : MAGIC) {
+                if (b.get() != m) { throw new IOException(path + " is not a run file."); }
+            }
+            short version = b.getShort();
+            if (version != VERSION) {
+                throw new IOException(path + " has unsupported run file version " + version + ".");
+            }
+            Map<String, String> parameters = new LinkedHashMap<>();
+            String text = readString(b);
+            for (String line : text.split("\n")) {
+                int eq = line.indexOf('=');
+                if (eq > 0) {
+                    parameters.put(line.substring(0, eq), line.substring(eq + 1));
+                }
+            }
+            String[] columns = new String[b.getInt()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = readString(b);
+            }
+            int steps = b.getInt();
+            b.position(align(b.position()));
+            if (b.remaining() < 4L * columns.length * steps) {
+                throw new IOException(path + " is truncated.");
+            }
+            IntBuffer data = b.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            return new RunFile(path, Collections.unmodifiableMap(parameters), columns, steps, data);
+        } catch (RuntimeException e) {
+            throw new IOException(path + " is not a valid run file.", e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the simulation parameters of the run, by name
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    public String[] getColumnNames() {
+        return columns.clone();
+    }
+
+    /**
+     * @return the index of the named column, or -1 if there is none
+     */
+    public int columnOf(String name) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equals(name)) { return i; }
+        }
+        return -1;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @return the number of recorded rows, i.e. steps including the start
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    public int get(int column, int step) {
+        return data.get(column * steps + step);
+    }
+
+    /**
+     * @return a read-only view of one column, backed by the mapped file
+     */
+    public IntBuffer getColumn(int column) {
+        return data.slice(column * steps, steps).asReadOnlyBuffer();
+    }
+
+    /**
+     * Write the run out as CSV in the layout of a saved simulation
+     * record: parameter names, parameter values, column names, then one
+     * row of counts per step.
+     * @param csvPath the CSV file to write
+     */
+    public void toCsv(Path csvPath) throws IOException {
+        try (StreamingRecordWriter w = new StreamingRecordWriter(csvPath)) {
+            w.writeHeader(parameters.keySet().toArray(new String[0]));
+            w.writeHeader(parameters.values().toArray(new String[0]));
+            w.writeHeader(columns);
+            int[] row = new int[columns.length];
+            for (int step = 0; step < steps; step++) {
+                for (int c = 0; c < columns.length; c++) {
+                    row[c] = get(c, step);
+                }
+                w.writeRow(row);
+            }
+        }
+    }
+
+    static int align(int position) {
+        return (position + 3) & ~3;
+    }
+
+    private static String readString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getInt()];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Memory-map several run files, e.g. every run of an ensemble.
+     */
+    public static List<RunFile> openAll(List<Path> paths) throws IOException {
+        List<RunFile> runs = new ArrayList<>(paths.size());
+        for (Path p : paths) {
+            runs.add(open(p));
+        }
+        return runs;
+    }
+}
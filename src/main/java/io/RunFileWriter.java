@@ -0,0 +1,85 @@
+package io;
+
+import data.SimConfig;
+import data.SimulationRecord;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes simulation runs in the binary run format read by RunFile. The
+ * whole file is written through a single memory-mapped region, with
+ * each column's counts laid down one after another.
+ */
+public class RunFileWriter {
+
+    private RunFileWriter() {}
+
+    /**
+     * Write a simulation record with the parameters of the configuration
+     * it was run under. The last header row of the record names the
+     * columns.
+     */
+    public static void write(Path path, SimConfig config, SimulationRecord record) throws IOException {
+        List<String[]> headers = record.getHeaders();
+        if (headers.isEmpty())
+            throw new IllegalArgumentException("The record has no column names.");
+        if (!record.isRetained())
+            throw new IllegalArgumentException("The record did not keep its rows.");
+        write(path, config.getParameters(), headers.get(headers.size() - 1), record.getCounts());
+    }
+
+    /**
+     * @param path the file to write, replacing any existing one
+     * @param parameters the simulation parameters, by name
+     * @param columns the name of each column
+     * @param rows one row of counts per step, each with a count per column
+     */
+    public static void write(Path path, Map<String, String> parameters, String[] columns, List<int[]> rows)
+            throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : parameters.entrySet()) {
+            sb.append(e.getKey()).append('=').append(e.getValue()).append('\n');
+        }
+        byte[] params = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[][] names = new byte[columns.length][];
+        long header = RunFile.MAGIC.length + 2 + 4 + params.length + 4;
+        for (int i = 0; i < columns.length; i++) {
+            names[i] = columns[i].getBytes(StandardCharsets.UTF_8);
+            header += 4 + names[i].length;
+        }
+        header += 4;
+        int start = RunFile.align((int) header);
+        long size = start + 4L * columns.length * rows.size();
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            map.put(RunFile.MAGIC);
+            map.putShort(RunFile.VERSION);
+            map.putInt(params.length);
+            map.put(params);
+            map.putInt(columns.length);
+            for (byte[] name : names) {
+                map.putInt(name.length);
+                map.put(name);
+            }
+            map.putInt(rows.size());
+            map.position(start);
+            for (int c = 0; c < columns.length; c++) {
+                for (int[] row : rows) {
+                    map.putInt(row[c]);
+                }
+            }
+            map.force();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aggregates a column across many run files straight from their
+ * memory maps. As with an ensemble, runs that stopped early are padded
+ * with their last row, so the summary is as long as the longest run.
+ */
+public class RunFiles {
+
+    private final double[] mean;
+    private final int[] min;
+    private final int[] max;
+    private final int runs;
+
+    private RunFiles(double[] mean, int[] min, int[] max, int runs) {
+        this.mean = mean;
+        this.min = min;
+        this.max = max;
+        this.runs = runs;
+    }
+
+    /**
+     * Summarise a column, such as "Infected", over a set of run files.
+     * Files are mapped one at a time, and each only once, so any number
+     * may be summarised.
+     * @throws IOException if a file cannot be read, has no steps or lacks
+     *                     the column
+     */
+    public static RunFiles summarise(List<Path> paths, String column) throws IOException {
+        int length = 0;
+        double[] sum = new double[0];
+        int[] min = new int[0];
+        int[] max = new int[0];
+        // the last values of the runs so far, which pad them past their end
+        double lastSum = 0;
+        int lastMin = Integer.MAX_VALUE;
+        int lastMax = Integer.MIN_VALUE;
+        for (Path p : paths) {
+            RunFile run = RunFile.open(p);
+            int c = run.columnOf(column);
+            if (c < 0) {
+                throw new IOException(p + " has no column " + column + ".");
+            }
+            int steps = run.getSteps();
+            if (steps == 0) {
+                throw new IOException(p + " has no steps.");
+            }
+            if (steps > length) {
+                // every earlier run has ended by now
+                sum = Arrays.copyOf(sum, steps);
+                min = Arrays.copyOf(min, steps);
+                max = Arrays.copyOf(max, steps);
+                Arrays.fill(sum, length, steps, lastSum);
+                Arrays.fill(min, length, steps, lastMin);
+                Arrays.fill(max, length, steps, lastMax);
+                length = steps;
+            }
+            int last = 0;
+            for (int step = 0; step < length; step++) {
+                int v = step < steps ? run.get(c, step) : last;
+                last = v;
+                sum[step] += v;
+                min[step] = Math.min(min[step], v);
+                max[step] = Math.max(max[step], v);
+            }
+            lastSum += last;
+            lastMin = Math.min(lastMin, last);
+            lastMax = Math.max(lastMax, last);
+        }
+        for (int step = 0; step < length; step++) {
+            sum[step] /= paths.size();
+        }
+        return new RunFiles(sum, min, max, paths.size());
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public int getLength() {
+        return mean.length;
+    }
+
+    public double[] getMean() {
+        return mean.clone();
+    }
+
+    public int[] getMin() {
+        return min.clone();
+    }
+
+    public int[] getMax() {
+        return max.clone();
+    }
+}
@@ -0,0 +1,190 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes the rows of a simulation record to a CSV file as they are
+ * produced. Rows are handed to a dedicated writer thread through a
+ * bounded queue, so the simulation only waits when it gets more than
+ * a queue's worth of rows ahead of the disk. The writer formats counts
+ * straight into a byte buffer and writes it out whenever it catches up
+ * with the queue, so a crashed run keeps everything up to its last few
+ * steps. Closing the writer drains the queue and forces the file to disk.
+ */
+public class StreamingRecordWriter implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Object END = new Object();
+
+    private final FileChannel channel;
+    private final BlockingQueue<Object> queue;
+    private final Thread thread;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[11];
+    private volatile IOException failure;
+    private boolean closed;
+
+    public StreamingRecordWriter(Path path) throws IOException {
+        this(path, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Open a file for writing, replacing any existing one.
+     * @param path the file to write
+     * @param capacity the number of rows that may wait to be written
+     */
+    public StreamingRecordWriter(Path path, int capacity) throws IOException {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Queue capacity must be at least 1.");
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        queue = new ArrayBlockingQueue<>(capacity);
+        thread = new Thread(this::drain, "record-writer-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a header row, whose cells are escaped as CSV text.
+     */
+    public void writeHeader(String[] header) throws IOException {
+        put(header.clone());
+    }
+
+    /**
+     * Queue a row of counts. Blocks while the queue is full.
+     */
+    public void writeRow(int[] row) throws IOException {
+        put(row.clone());
+    }
+
+    /**
+     * Write out every queued row, force the file to disk and close it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) { return; }
+        closed = true;
+        try {
+            queue.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing the record writer.", e);
+        } finally {
+            if (failure == null && channel.isOpen()) {
+                try {
+                    channel.force(true);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void put(Object item) throws IOException {
+        if (closed) { throw new IOException("The record writer has been closed."); }
+        if (failure != null) { throw failure; }
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing a row.", e);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Object item = queue.take();
+                if (item == END) { break; }
+                format(item);
+                if (queue.isEmpty()) {
+                    flush();
+                }
+            }
+            flush();
+        } catch (IOException e) {
+            failure = e;
+            // keep taking rows so that the simulation is not blocked
+            discardUntilEnd();
+        } catch (InterruptedException e) {
+            failure = new IOException("The record writer was interrupted.", e);
+        }
+    }
+
+    private void discardUntilEnd() {
+        try {
+            while (queue.take() != END) {
+                // the failure is reported on the next write or on close
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void format(Object item) throws IOException {
+        if (item instanceof int[]) {
+            int[] row = (int[]) item;
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) { putByte((byte) ','); }
+                putInt(row[i]);
+            }
+        }
+        else {
+            StringBuilder sb = new StringBuilder();
+            CSVWriter.appendRow(sb, (String[]) item);
+            byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            for (byte b : bytes) {
+                putByte(b);
+            }
+        }
+        putByte((byte) '\n');
+    }
+
+    private void putInt(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            for (byte b : "-2147483648".getBytes(StandardCharsets.US_ASCII)) { putByte(b); }
+            return;
+        }
+        if (value < 0) {
+            putByte((byte) '-');
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (n > 0) {
+            putByte(digits[--n]);
+        }
+    }
+
+    private void putByte(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
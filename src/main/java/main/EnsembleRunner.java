@@ -0,0 +1,113 @@
+package main;
+
+import data.EnsembleResult;
+import data.SimConfig;
+import data.SimData;
+import data.SimulationRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs many replicates of the same scenario concurrently on a
+ * work-stealing pool. Every replicate gets its own copy of the
+ * scenario's SimConfig, and therefore its own Random, seeded with
+ * the scenario seed plus the index of the replicate.
+ */
+public class EnsembleRunner {
+
+    public static class EnsembleBuilder {
+        private SimConfig scenario;
+        private int runs = 1;
+        private int steps = 0;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * @param scenario the parameters shared by every run; copied
+         *                 when the runner is built
+         */
+        public EnsembleBuilder setScenario(SimConfig scenario) {
+            this.scenario = scenario;
+            return this;
+        }
+
+        public EnsembleBuilder setRuns(int runs) {
+            if (runs < 1) { throw new IllegalArgumentException("An ensemble needs at least one run."); }
+            this.runs = runs;
+            return this;
+        }
+
+        /**
+         * @param steps the maximum number of steps per run, or 0 to run
+         *              each simulation until no Infected agents remain
+         */
+        public EnsembleBuilder setSteps(int steps) {
+            if (steps < 0) { throw new IllegalArgumentException(); }
+            this.steps = steps;
+            return this;
+        }
+
+        public EnsembleBuilder setParallelism(int parallelism) {
+            if (parallelism < 1) { throw new IllegalArgumentException(); }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public EnsembleRunner build() {
+            EnsembleRunner runner = new EnsembleRunner();
+            runner.scenario = (scenario == null ? SimData.current() : scenario).copy();
+            runner.runs = runs;
+            runner.steps = steps;
+            runner.parallelism = parallelism;
+            return runner;
+        }
+    }
+
+    private SimConfig scenario;
+    private int runs;
+    private int steps;
+    private int parallelism;
+
+    /**
+     * Run every replicate and wait for them all to finish.
+     * @return the records of each run, in order of seed
+     */
+    public EnsembleResult run() {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<SimulationRecord>> tasks = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                SimConfig config = scenario.copy();
+                config.setSeed(scenario.getSeed() + i);
+                // the runs already share the cores between them
+                config.setGeneratorThreads(1);
+                tasks.add(pool.submit(() -> SimData.runWith(config, () -> runOnce(config))));
+            }
+            List<SimulationRecord> records = new ArrayList<>();
+            for (ForkJoinTask<SimulationRecord> task : tasks) {
+                records.add(task.join());
+            }
+            return new EnsembleResult(records);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private SimulationRecord runOnce(SimConfig config) {
+        Simulator sim = new Simulator.SimulationBuilder()
+                .setDepth(config.getDepth())
+                .setWidth(config.getWidth())
+                .setField(config.getFieldType())
+                .setHeadless(true)
+                .build();
+        if (steps > 0) {
+            sim.simulate(steps);
+        }
+        else {
+            sim.simulate();
+        }
+        return sim.getRecord();
+    }
+}
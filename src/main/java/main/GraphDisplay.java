@@ -2,20 +2,26 @@ package main;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.awt.Color;
 import java.util.List;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import org.knowm.xchart.*;
 import org.knowm.xchart.BitmapEncoder.BitmapFormat;
 
+import data.MinMaxSeries;
 import data.GUIData;
+import models.Compartment;
 import org.knowm.xchart.style.markers.Circle;
 
 public class GraphDisplay extends JFrame implements PropertyChangeListener {
 
     private static final long serialVersionUID = -1236441407025451806L;
+    // most points drawn per series; about one per pixel of the chart
+    private static final int MAX_POINTS = 500;
     private int[][] initData;
     JPanel g;
 
@@ -27,21 +33,28 @@ public class GraphDisplay extends JFrame implements PropertyChangeListener {
             .yAxisTitle("Number of person(s)")
             .build();
 
-    public GraphDisplay() {
-        initData = new int[][] { {0}, {0} };
+    private final String[] names;
+    // appended to on the simulation thread and read on the EDT; both
+    // hold its lock
+    private final MinMaxSeries series;
+    // whether a redraw is already queued on the EDT; guarded by series
+    private boolean redrawQueued;
 
-        XYSeries sus = graph.addSeries("Susceptible", initData[0], initData[1]);
-        sus.setMarker(new Circle()).setMarkerColor(GUIData.SUS_COL);
-        sus.setLineColor(GUIData.SUS_COL);
-//        sus.setSmooth(true);
-        XYSeries inf = graph.addSeries("Infected", initData[0], initData[1]);
-        inf.setMarker(new Circle()).setMarkerColor(GUIData.INF_COL);
-        inf.setLineColor(GUIData.INF_COL);
-//        inf.setSmooth(true);
-        XYSeries rec = graph.addSeries("Recovered", initData[0], initData[1]);
-        rec.setMarker(new Circle()).setMarkerColor(GUIData.REC_COL);
-        rec.setLineColor(GUIData.REC_COL);
-//        rec.setSmooth(true);
+    /**
+     * @param compartments the compartments to plot, in the order their
+     *                     counts appear in each record row
+     */
+    public GraphDisplay(List<Compartment> compartments) {
+        initData = new int[][] { {0}, {0} };
+        names = new String[compartments.size()];
+        series = new MinMaxSeries(names.length, MAX_POINTS);
+        for (int i = 0; i < names.length; i++) {
+            Compartment c = compartments.get(i);
+            names[i] = c.getName();
+            XYSeries series = graph.addSeries(names[i], initData[0], initData[1]);
+            series.setMarker(new Circle()).setMarkerColor(colourOf(c));
+            series.setLineColor(colourOf(c));
+        }
         setTitle("Simulation Graph");
         setLocation(GUIData.GRAPH_X, GUIData.GRAPH_Y);
         g = new XChartPanel<XYChart>(graph);
@@ -50,8 +63,25 @@ public class GraphDisplay extends JFrame implements PropertyChangeListener {
         setVisible(true);
     }
 
+    private static Color colourOf(Compartment c) {
+        switch (c) {
+            case SUSCEPTIBLE: return GUIData.SUS_COL;
+            case EXPOSED:     return GUIData.EXP_COL;
+            case INFECTED:    return GUIData.INF_COL;
+            case RECOVERED:   return GUIData.REC_COL;
+            default:          return GUIData.DEAD_COL;
+        }
+    }
+
     public void captureGraphImage(String imagePath) {
         try {
+            // draw any rows still waiting for a redraw first
+            if (SwingUtilities.isEventDispatchThread()) {
+                redraw();
+            }
+            else {
+                SwingUtilities.invokeAndWait(this::redraw);
+            }
             BitmapEncoder.saveBitmap(graph, imagePath, BitmapFormat.PNG);
         } catch (Exception e) {
             System.out.println("GraphDisplay::captureGraphImage failed. Unable to save image.");
@@ -59,24 +89,38 @@ public class GraphDisplay extends JFrame implements PropertyChangeListener {
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Append the counts of one step, sent by the Simulator as a "row"
+     * property change, and queue a redraw on the EDT unless one is
+     * already waiting. Rows that arrive faster than the EDT can draw
+     * them share a single redraw.
+     */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        List<String[]> newData = (List<String[]>) evt.getNewValue();
-        double[] stepsX = new double[newData.size()];
-        double[] susValuesY = new double[newData.size()];
-        double[] infValuesY = new double[newData.size()];
-        double[] recValuesY = new double[newData.size()];
-        for (int i = 0; i < newData.size(); i++) {
-            String[] line = newData.get(i);
-            stepsX[i] = i;
-            susValuesY[i] = Integer.parseInt(line[0]);
-            infValuesY[i] = Integer.parseInt(line[1]);
-            recValuesY[i] = Integer.parseInt(line[2]);
+        if (!"row".equals(evt.getPropertyName())) { return; }
+        synchronized (series) {
+            series.append((int[]) evt.getNewValue());
+            if (redrawQueued) { return; }
+            redrawQueued = true;
+        }
+        SwingUtilities.invokeLater(this::redraw);
+    }
+
+    /**
+     * Redraw from at most MAX_POINTS per series. Called on the EDT.
+     */
+    private void redraw() {
+        double[][][] xy = new double[names.length][][];
+        synchronized (series) {
+            redrawQueued = false;
+            if (series.size() == 0) { return; }
+            for (int c = 0; c < names.length; c++) {
+                xy[c] = series.points(c);
+            }
+        }
+        for (int c = 0; c < names.length; c++) {
+            graph.updateXYSeries(names[c], xy[c][0], xy[c][1], null);
         }
-        graph.updateXYSeries("Susceptible", stepsX, susValuesY, null);
-        graph.updateXYSeries("Infected", stepsX, infValuesY, null);
-        graph.updateXYSeries("Recovered", stepsX, recValuesY, null);
-        g.updateUI();
+        g.repaint();
     }
 }
\ No newline at end of file
@@ -10,6 +10,8 @@ import data.SimData;
 import environment.*;
 import exceptions.IllegalParameterException;
 import models.Infected;
+import models.Dead;
+import models.Exposed;
 import models.Recovered;
 import models.Susceptible;
 
@@ -343,6 +345,8 @@ public class Main {
                     .setClassColour(Susceptible.class, GUIData.SUS_COL)
                     .setClassColour(Infected.class, GUIData.INF_COL)
                     .setClassColour(Recovered.class, GUIData.REC_COL)
+                    .setClassColour(Exposed.class, GUIData.EXP_COL)
+                    .setClassColour(Dead.class, GUIData.DEAD_COL)
                     .build();
 
         } catch (IllegalParameterException e) {
@@ -0,0 +1,494 @@
+package main;
+
+import data.RunningStatistics;
+import data.SimConfig;
+import data.SimData;
+import io.CSVWriter;
+import models.Compartment;
+import models.ModelType;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a scenario at every point of an experimental design over some of
+ * its parameters, several replicates per point, on a fixed pool of
+ * threads. The design is either the Cartesian product of each
+ * dimension's levels, or a Latin hypercube of a given number of samples.
+ *
+ * Replicate r of every point is seeded with the scenario seed plus r, so
+ * points are compared over the same random streams. Runs are handed to
+ * the pool a few at a time rather than queued up front, and each run is
+ * reduced to a handful of outcomes as soon as it ends. When the last
+ * replicate of a point finishes, the mean, standard deviation, half
+ * width of the 95% confidence interval for the mean, minimum and maximum
+ * of each outcome are written as one row of the output, in point order
+ * whatever order the runs finish in.
+ */
+public class ParameterSweep {
+
+    public enum Design {
+        CARTESIAN, LATIN_HYPERCUBE
+    }
+
+    public static class SweepBuilder {
+        private SimConfig scenario;
+        private final List<SweepDimension> dimensions = new ArrayList<>();
+        private Design design = Design.CARTESIAN;
+        private int samples = 10;
+        private int replicates = 1;
+        private int steps = 0;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Path output;
+
+        /**
+         * @param scenario the parameters shared by every run; copied
+         *                 when the sweep is built
+         */
+        public SweepBuilder setScenario(SimConfig scenario) {
+            this.scenario = scenario;
+            return this;
+        }
+
+        public SweepBuilder addDimension(SweepDimension dimension) {
+            for (SweepDimension d : dimensions) {
+                if (d.getParameter() == dimension.getParameter())
+                    throw new IllegalArgumentException(d.getParameter().getLabel() + " is already being swept.");
+            }
+            dimensions.add(dimension);
+            return this;
+        }
+
+        public SweepBuilder setDesign(Design design) {
+            if (design == null) { throw new IllegalArgumentException(); }
+            this.design = design;
+            return this;
+        }
+
+        /**
+         * @param samples the number of points of a Latin hypercube design
+         */
+        public SweepBuilder setSamples(int samples) {
+            if (samples < 1) { throw new IllegalArgumentException("A sweep needs at least one sample."); }
+            this.samples = samples;
+            return this;
+        }
+
+        public SweepBuilder setReplicates(int replicates) {
+            if (replicates < 1) { throw new IllegalArgumentException("A sweep needs at least one replicate."); }
+            this.replicates = replicates;
+            return this;
+        }
+
+        /**
+         * @param steps the maximum number of steps per run, or 0 to run
+         *              each simulation until no Infected agents remain
+         */
+        public SweepBuilder setSteps(int steps) {
+            if (steps < 0) { throw new IllegalArgumentException(); }
+            this.steps = steps;
+            return this;
+        }
+
+        public SweepBuilder setParallelism(int parallelism) {
+            if (parallelism < 1) { throw new IllegalArgumentException(); }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param output the CSV file to write a summary row per point to,
+         *               or null to only return the rows
+         */
+        public SweepBuilder setOutput(Path output) {
+            this.output = output;
+            return this;
+        }
+
+        /**
+         * Expand the design into its points. Every point's parameters are
+         * checked here, so a bad value fails before anything runs.
+         */
+        public ParameterSweep build() {
+            ParameterSweep sweep = new ParameterSweep();
+            sweep.scenario = (scenario == null ? SimData.current() : scenario).copy();
+            sweep.dimensions = new ArrayList<>(dimensions);
+            sweep.replicates = replicates;
+            sweep.steps = steps;
+            sweep.parallelism = parallelism;
+            sweep.output = output;
+            sweep.points = design == Design.CARTESIAN
+                    ? cartesian(dimensions)
+                    : latinHypercube(dimensions, samples, sweep.scenario.getSeed());
+            sweep.configs = new ArrayList<>(sweep.points.size());
+            for (String[] point : sweep.points) {
+                SimConfig config = sweep.scenario.copy();
+                for (int d = 0; d < dimensions.size(); d++) {
+                    dimensions.get(d).getParameter().apply(config, point[d]);
+                }
+                sweep.configs.add(config);
+            }
+            sweep.compartments = sweep.scenario.getModel().getCompartments();
+            return sweep;
+        }
+    }
+
+    // outcomes of a run, after one final count per compartment
+    private static final String[] OUTCOMES = {"Peak Infected", "Peak Step", "Steps"};
+    private static final String[] STATISTICS = {"Mean", "SD", "CI95", "Min", "Max"};
+
+    private SimConfig scenario;
+    private List<SweepDimension> dimensions;
+    private List<String[]> points;
+    private List<SimConfig> configs;
+    private List<Compartment> compartments;
+    private int replicates;
+    private int steps;
+    private int parallelism;
+    private Path output;
+
+    /**
+     * @return the value of each dimension at each point, in the order the
+     *         dimensions were added
+     */
+    public List<String[]> getPoints() {
+        return points;
+    }
+
+    /**
+     * @return the names of the outcomes recorded for each run
+     */
+    public String[] getOutcomes() {
+        String[] names = new String[compartments.size() + OUTCOMES.length];
+        for (int c = 0; c < compartments.size(); c++) {
+            names[c] = "Final " + compartments.get(c).getName();
+        }
+        System.arraycopy(OUTCOMES, 0, names, compartments.size(), OUTCOMES.length);
+        return names;
+    }
+
+    /**
+     * @return the header of the summary rows
+     */
+    public String[] getColumns() {
+        List<String> columns = new ArrayList<>();
+        columns.add("Point");
+        for (SweepDimension d : dimensions) {
+            columns.add(d.getParameter().getLabel());
+        }
+        columns.add("Runs");
+        for (String outcome : getOutcomes()) {
+            for (String statistic : STATISTICS) {
+                columns.add(outcome + " " + statistic);
+            }
+        }
+        return columns.toArray(new String[0]);
+    }
+
+    /**
+     * Run every replicate of every point and wait for them all to finish.
+     * If a run fails, no more runs are started and its exception is thrown
+     * once the runs already going have finished.
+     * @return the summary row of each point, in point order
+     */
+    public List<String[]> run() throws IOException {
+        Summaries summaries = new Summaries(output == null ? null : Files.newBufferedWriter(output));
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "sweep-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // enough runs in hand to keep every thread busy, without queueing them all
+        Semaphore slots = new Semaphore(2 * parallelism);
+        try {
+            summaries.write(getColumns());
+            submit:
+            for (int p = 0; p < points.size(); p++) {
+                for (int r = 0; r < replicates; r++) {
+                    slots.acquire();
+                    if (summaries.failure != null) {
+                        slots.release();
+                        break submit;
+                    }
+                    SimConfig config = configs.get(p).copy();
+                    config.setSeed(scenario.getSeed() + r);
+                    // the runs already share the cores between them
+                    config.setGeneratorThreads(1);
+                    int point = p;
+                    int replicate = r;
+                    pool.execute(() -> {
+                        try {
+                            summaries.add(point, replicate, SimData.runWith(config, () -> runOnce(config)));
+                        } catch (Throwable e) {
+                            summaries.fail(e);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                }
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sweeping.");
+        } finally {
+            pool.shutdownNow();
+            summaries.close();
+        }
+        Throwable failure = summaries.failure;
+        if (failure instanceof IOException) { throw (IOException) failure; }
+        if (failure instanceof RuntimeException) { throw (RuntimeException) failure; }
+        if (failure instanceof Error) { throw (Error) failure; }
+        return summaries.rows;
+    }
+
+    /**
+     * Run one replicate and reduce it to its outcomes.
+     */
+    private double[] runOnce(SimConfig config) {
+        Simulator sim = new Simulator.SimulationBuilder()
+                .setDepth(config.getDepth())
+                .setWidth(config.getWidth())
+                .setField(config.getFieldType())
+                .setHeadless(true)
+                .build();
+        if (steps > 0) {
+            sim.simulate(steps);
+        }
+        else {
+            sim.simulate();
+        }
+        List<int[]> counts = sim.getRecord().getCounts();
+        int infected = compartments.indexOf(Compartment.INFECTED);
+        int peak = -1;
+        int peakStep = 0;
+        for (int step = 0; step < counts.size(); step++) {
+            if (counts.get(step)[infected] > peak) {
+                peak = counts.get(step)[infected];
+                peakStep = step;
+            }
+        }
+        double[] outcomes = new double[compartments.size() + OUTCOMES.length];
+        int[] last = counts.get(counts.size() - 1);
+        for (int c = 0; c < compartments.size(); c++) {
+            outcomes[c] = last[c];
+        }
+        outcomes[compartments.size()] = peak;
+        outcomes[compartments.size() + 1] = peakStep;
+        outcomes[compartments.size() + 2] = sim.getStep();
+        return outcomes;
+    }
+
+    /**
+     * Collects the outcomes of each point's replicates, and writes out
+     * each point's summary once it and every point before it is done.
+     */
+    private class Summaries {
+        private final Writer out;
+        private final Map<Integer, double[][]> pending = new HashMap<>();
+        private final int[] finished = new int[points.size()];
+        private final String[][] done = new String[points.size()][];
+        private final List<String[]> rows = new ArrayList<>(points.size());
+        private final StringBuilder line = new StringBuilder();
+        private volatile Throwable failure;
+
+        Summaries(Writer out) {
+            this.out = out;
+        }
+
+        synchronized void add(int point, int replicate, double[] outcomes) throws IOException {
+            double[][] values = pending.computeIfAbsent(point, k -> new double[outcomes.length][replicates]);
+            for (int o = 0; o < outcomes.length; o++) {
+                values[o][replicate] = outcomes[o];
+            }
+            if (++finished[point] < replicates) {
+                return;
+            }
+            pending.remove(point);
+            done[point] = summarise(point, values);
+            for (int p = rows.size(); p < done.length && done[p] != null; p++) {
+                rows.add(done[p]);
+                write(done[p]);
+                done[p] = null;
+            }
+        }
+
+        synchronized void fail(Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        synchronized void write(String[] row) throws IOException {
+            if (out == null) { return; }
+            line.setLength(0);
+            CSVWriter.appendRow(line, row);
+            line.append(System.lineSeparator());
+            out.write(line.toString());
+            // a long sweep that is stopped part way keeps every finished point
+            out.flush();
+        }
+
+        void close() throws IOException {
+            if (out != null) {
+                out.close();
+            }
+        }
+
+        private String[] summarise(int point, double[][] values) {
+            List<String> row = new ArrayList<>();
+            row.add(String.valueOf(point));
+            row.addAll(Arrays.asList(points.get(point)));
+            row.add(String.valueOf(replicates));
+            for (double[] v : values) {
+                RunningStatistics stats = new RunningStatistics();
+                for (double x : v) {
+                    stats.add(x);
+                }
+                row.add(String.valueOf(stats.getMean()));
+                row.add(String.valueOf(stats.getStandardDeviation()));
+                row.add(replicates > 1 ? String.valueOf(stats.getConfidenceHalfWidth(0.95)) : "");
+                row.add(String.valueOf(stats.getMin()));
+                row.add(String.valueOf(stats.getMax()));
+            }
+            return row.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Every combination of the dimensions' levels, the last dimension
+     * varying fastest.
+     */
+    static List<String[]> cartesian(List<SweepDimension> dimensions) {
+        long total = 1;
+        for (SweepDimension d : dimensions) {
+            total *= d.levelCount();
+            if (total > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Too many points in the sweep.");
+        }
+        List<String[]> points = new ArrayList<>((int) total);
+        for (int i = 0; i < total; i++) {
+            String[] point = new String[dimensions.size()];
+            int rest = i;
+            for (int d = dimensions.size() - 1; d >= 0; d--) {
+                int levels = dimensions.get(d).levelCount();
+                point[d] = dimensions.get(d).level(rest % levels);
+                rest /= levels;
+            }
+            points.add(point);
+        }
+        return points;
+    }
+
+    /**
+     * A Latin hypercube of the dimensions: each dimension is cut into as
+     * many equal strata as there are samples, and every stratum of every
+     * dimension is used by exactly one sample.
+     */
+    static List<String[]> latinHypercube(List<SweepDimension> dimensions, int samples, long seed) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        String[][] values = new String[samples][dimensions.size()];
+        int[] strata = new int[samples];
+        for (int d = 0; d < dimensions.size(); d++) {
+            for (int i = 0; i < samples; i++) {
+                strata[i] = i;
+            }
+            for (int i = samples - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int s = strata[i];
+                strata[i] = strata[j];
+                strata[j] = s;
+            }
+            for (int i = 0; i < samples; i++) {
+                values[i][d] = dimensions.get(d).sample((strata[i] + rand.nextDouble()) / samples);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    /**
+     * Run a sweep from the command line and write its summary CSV.
+     *
+     * Options, each followed by a value:
+     * <pre>
+     *     --vary         a swept parameter, as name=a,b,c or name=min:max:count;
+     *                    may be given more than once
+     *     --set          a fixed parameter, as name=value; may be given more than once
+     *     --design       cartesian or lhs
+     *     --samples      the number of points of a Latin hypercube
+     *     --replicates   the number of runs at each point
+     *     --steps        the most steps to run each simulation for, or 0 for no limit
+     *     --depth        the depth of the field
+     *     --width        the width of the field
+     *     --model        the disease model, e.g. SEIR
+     *     --seed         the seed of the first replicate
+     *     --threads      the number of simulations to run at once
+     *     --out          the summary file to write
+     * </pre>
+     * For example, a 10,000 run policy study:
+     * <pre>
+     *     --vary mask-compliance=0:1:10 --vary distancing-compliance=0:1:10
+     *     --vary network-type=SMALLWORLD,FREESCALE --set field-type=NETWORK
+     *     --replicates 50 --out policy.csv
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        SimConfig scenario = new SimConfig();
+        SweepBuilder builder = new SweepBuilder().setScenario(scenario);
+        Path out = Path.of("sweep.csv");
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length)
+                throw new IllegalArgumentException("Expected an option and a value but got " + args[i] + ".");
+            String value = args[i + 1];
+            switch (args[i].substring(2)) {
+                case "vary":       builder.addDimension(SweepDimension.parse(value)); break;
+                case "set":        set(scenario, value); break;
+                case "design":     builder.setDesign(value.equalsIgnoreCase("lhs")
+                                           ? Design.LATIN_HYPERCUBE : Design.valueOf(value.toUpperCase())); break;
+                case "samples":    builder.setSamples(Integer.parseInt(value)); break;
+                case "replicates": builder.setReplicates(Integer.parseInt(value)); break;
+                case "steps":      builder.setSteps(Integer.parseInt(value)); break;
+                case "depth":      scenario.setDepth(Integer.parseInt(value)); break;
+                case "width":      scenario.setWidth(Integer.parseInt(value)); break;
+                case "model":      scenario.setModelType(ModelType.valueOf(value.toUpperCase())); break;
+                case "seed":       scenario.setSeed(Integer.parseInt(value)); break;
+                case "threads":    builder.setParallelism(Integer.parseInt(value)); break;
+                case "out":        out = Path.of(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        ParameterSweep sweep = builder.setOutput(out).build();
+        long start = System.nanoTime();
+        sweep.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int runs = sweep.points.size() * sweep.replicates;
+        System.out.printf("%d points, %d runs in %.1f s (%.1f runs/s), written to %s%n",
+                sweep.points.size(), runs, seconds, runs / seconds, out);
+    }
+
+    private static void set(SimConfig scenario, String text) {
+        int eq = text.indexOf('=');
+        if (eq < 0)
+            throw new IllegalArgumentException("Expected name=value but got " + text + ".");
+        SweepParameter.of(text.substring(0, eq)).apply(scenario, text.substring(eq + 1));
+    }
+}
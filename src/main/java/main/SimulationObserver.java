@@ -0,0 +1,20 @@
+package main;
+
+import actors.Entity;
+import environment.Field;
+import environment.Location;
+
+/**
+ * Receives the state of the field once a simulation step has
+ * completed. Rendering is attached to a Simulator through this
+ * interface, so a Simulator built without observers never
+ * touches Swing.
+ */
+public interface SimulationObserver {
+    void stepCompleted(int step, Field<Entity, Location> field);
+
+    /**
+     * Called when a call to simulate returns, with the last step taken.
+     */
+    default void runEnded(int step, Field<Entity, Location> field) {}
+}
@@ -3,16 +3,30 @@ import java.awt.*;
 import java.util.*;
 
 import actors.Agent;
+import actors.AgentStore;
 import actors.Entity;
+import checkpoint.Checkpoint;
+import checkpoint.CheckpointInput;
+import checkpoint.CheckpointOutput;
+import data.SimConfig;
 import data.SimData;
 import data.SimulationRecord;
 import disease.DiseaseSpreadController;
+import disease.InfectionEngine;
+import disease.SerialInfection;
 import environment.*;
 import io.CSVWriter;
-import models.Infected;
-import models.Recovered;
-import models.Susceptible;
+import io.RunFileWriter;
+import io.StreamingRecordWriter;
+import metrics.Phase;
+import metrics.PhaseTimer;
+import metrics.SimulationMetrics;
+import models.Compartment;
+import models.CompartmentModel;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.List;
@@ -29,9 +43,15 @@ public class Simulator {
         private int width;
         private int depth;
         private Field<Entity, Location> field;
-        private SimulatorDisplay display;
+        private boolean headless;
+        private InfectionEngine infection = new SerialInfection();
         private Map<Class<?>, Color> classColours = new HashMap<>();
         private List<PropertyChangeListener> listeners = new ArrayList<>();
+        private List<SimulationObserver> observers = new ArrayList<>();
+        private String streamPath;
+        private boolean retainRecord = true;
+        private boolean instrumented;
+        private Path checkpoint;
 
         public SimulationBuilder setWidth(int w) {
             width = w;
@@ -46,7 +66,69 @@ public class Simulator {
         public SimulationBuilder setField(FieldType type) {
             if (type == FieldType.GRID)    { field = new Grid(depth, width); }
             if (type == FieldType.NETWORK) { field = new MobileNetwork(); }
-            display = new SimulatorDisplay(field);
+            return this;
+        }
+
+        /**
+         * Run the simulation without a SimulatorDisplay or GraphDisplay.
+         * A headless simulation never sleeps between steps and decides
+         * when to stop from its own infection counts.
+         * @param headless true to build the simulation without any windows
+         */
+        public SimulationBuilder setHeadless(boolean headless) {
+            this.headless = headless;
+            return this;
+        }
+
+        /**
+         * Choose how newly infected agents are found each step, e.g.
+         * a ParallelInfection to spread the pass across cores.
+         * @param infection the engine to use; SerialInfection by default
+         */
+        public SimulationBuilder setInfectionEngine(InfectionEngine infection) {
+            this.infection = infection;
+            return this;
+        }
+
+        /**
+         * Write the record to a CSV file step by step as the simulation
+         * runs, from a background thread. The file is completed when the
+         * simulation runs to its end or closeOutput is called.
+         * @param filePath the file to write, without its .csv extension
+         * @param retain false to stop keeping the rows in memory
+         */
+        public SimulationBuilder streamTo(String filePath, boolean retain) {
+            this.streamPath = filePath;
+            this.retainRecord = retain;
+            return this;
+        }
+
+        /**
+         * Keep in-process metrics of each step, available from
+         * getMetrics. Steps are also timed as Flight Recorder events
+         * (simulator.Step and simulator.Phase) whenever a recording takes
+         * them, whether or not the simulation is instrumented.
+         * @param instrumented true to collect metrics
+         */
+        public SimulationBuilder setInstrumented(boolean instrumented) {
+            this.instrumented = instrumented;
+            return this;
+        }
+
+        /**
+         * Carry on from a checkpoint written by Simulator.checkpoint. The
+         * parameters and Random of the current SimData configuration are
+         * replaced by the saved ones, and the saved field is used in
+         * place of setWidth, setDepth and setField.
+         * @param checkpoint the checkpoint file
+         */
+        public SimulationBuilder restoreFrom(Path checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        public SimulationBuilder addObserver(SimulationObserver o) {
+            observers.add(o);
             return this;
         }
 
@@ -61,46 +143,125 @@ public class Simulator {
         }
 
         public Simulator build() {
+            CheckpointInput in = null;
+            if (checkpoint != null) {
+                try {
+                    in = Checkpoint.open(checkpoint);
+                    SimData.current().readFrom(in);
+                    field = readField(in);
+                } catch (IOException e) {
+                    closeQuietly(in);
+                    throw new UncheckedIOException(e);
+                }
+                width = SimData.getWidth();
+                depth = SimData.getDepth();
+            }
             Simulator sim = new Simulator();
             sim.width = this.width;
             sim.depth = this.depth;
             sim.field = this.field;
-            sim.display = this.display;
-            classColours.forEach((k, v) -> {
-                sim.display.setColor(k, v);
-            });
+            sim.infection = this.infection;
+            sim.observers = new ArrayList<>();
+            if (!headless) {
+                sim.display = new SimulatorDisplay(field);
+                classColours.forEach((k, v) -> {
+                    sim.display.setColor(k, v);
+                });
+                sim.observers.add(sim.display);
+            }
+            sim.observers.addAll(observers);
+            sim.supp = new PropertyChangeSupport(sim);
             listeners.forEach(listener -> {
                 sim.addPropertyChangeListener(listener);
             });
             sim.step = 0;
             sim.setup = false;
             sim.finished = false;
+            sim.config = SimData.current();
+            sim.model = SimData.getModel();
             sim.agents = new ArrayList<>();
             sim.stats = new FieldStats();
-            sim.record = new SimulationRecord();
-            sim.record.addHeader(new String[] {"Seed", "Agent Probability", "Agent 0 Probability", "Infectiousness", "Social Distancing", "Mask Mandate", "Quarantining", "Field type"});
-            sim.record.addHeader(new String[] {String.valueOf(SimData.getSeed()), String.valueOf(SimData.getAgentProbability()), String.valueOf(SimData.getAgentZeroProbability()), String.valueOf(SimData.getInfectivity()), String.valueOf(SimData.getSocialDistancing()), String.valueOf(SimData.getMasking()), String.valueOf(SimData.getQuarantining()), field.getClass().getSimpleName()});
-            sim.record.addHeader(new String[] {"Susceptible", "Infected", "Recovered"});
-            sim.supp = new PropertyChangeSupport(sim);
-            sim.graph = new GraphDisplay();
-            sim.addPropertyChangeListener(sim.graph);
-            sim.reset();
+            sim.metrics = instrumented ? new SimulationMetrics() : null;
+            sim.timer = new PhaseTimer(sim.metrics);
+            if (in != null) {
+                try {
+                    sim.readState(in);
+                    in.close();
+                } catch (IOException e) {
+                    closeQuietly(in);
+                    throw new UncheckedIOException(e);
+                }
+            }
+            else {
+                sim.record = new SimulationRecord();
+                sim.record.addHeader(new String[] {"Seed", "Agent Probability", "Agent 0 Probability", "Infectiousness", "Social Distancing", "Mask Mandate", "Quarantining", "Field type", "Model"});
+                sim.record.addHeader(new String[] {String.valueOf(SimData.getSeed()), String.valueOf(SimData.getAgentProbability()), String.valueOf(SimData.getAgentZeroProbability()), String.valueOf(SimData.getInfectivity()), String.valueOf(SimData.getSocialDistancing()), String.valueOf(SimData.getMasking()), String.valueOf(SimData.getQuarantining()), field.getClass().getSimpleName(), sim.model.getType().toString()});
+                sim.record.addHeader(sim.model.getCompartments().stream()
+                        .map(Compartment::getName).toArray(String[]::new));
+            }
+            if (streamPath != null) {
+                try {
+                    sim.record.streamTo(new StreamingRecordWriter(Path.of(streamPath + ".csv")),
+                            retainRecord);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (!headless) {
+                sim.graph = new GraphDisplay(sim.model.getCompartments());
+                sim.addPropertyChangeListener(sim.graph);
+            }
+            if (in == null) {
+                sim.reset();
+            }
+            else {
+                // bring listeners up to date with the restored rows
+                for (int[] row : sim.record.getCounts()) {
+                    sim.supp.firePropertyChange("row", null, row);
+                }
+                sim.notifyObservers();
+            }
             return sim;
         }
+
+        private static Field<Entity, Location> readField(CheckpointInput in) throws IOException {
+            byte type = in.readByte();
+            if (type == GRID_FIELD) { return Grid.readFrom(in); }
+            if (type == NETWORK_FIELD) { return MobileNetwork.readFrom(in); }
+            throw new IOException("The checkpoint holds an unknown kind of field.");
+        }
+
+        private static void closeQuietly(CheckpointInput in) {
+            if (in == null) { return; }
+            try { in.close(); } catch (IOException e) { /* already failing */ }
+        }
     }
 
+    // kinds of field in a checkpoint
+    private static final byte GRID_FIELD = 0;
+    private static final byte NETWORK_FIELD = 1;
+
     private int width;
     private int depth;
     private Field<Entity, Location> field;
+    private InfectionEngine infection;
+    private SimConfig config;
+    private CompartmentModel model;
     private SimulatorDisplay display;
+    private List<SimulationObserver> observers;
     private int step;
     private boolean setup;
     private boolean finished;
     private List<Agent> agents;
     private FieldStats stats;
+    private int[] counts;
     private SimulationRecord record;
     private PropertyChangeSupport supp;
     private GraphDisplay graph;
+    private SimulationMetrics metrics;
+    private PhaseTimer timer;
+    private int agentsMoved;
+    private int agentsInfected;
 
     public void addPropertyChangeListener(PropertyChangeListener listener) {
         supp.addPropertyChangeListener(listener);
@@ -120,22 +281,62 @@ public class Simulator {
         finished = false;
         populate();
         updateRecord();
-        display.showStatus(step, field);
+        notifyObservers();
+    }
+
+    /**
+     * Determine whether the simulation should continue to run,
+     * using the counts taken when the last step was recorded.
+     * @return true if there are still Exposed or Infected agents
+     */
+    public boolean isViable() {
+        return counts != null
+                && (counts[Compartment.INFECTED.code()] > 0 || counts[Compartment.EXPOSED.code()] > 0);
+    }
+
+    /**
+     * @return the number of agents in each compartment, indexed by
+     *         compartment code, as of the last recorded step. Only the
+     *         compartments of the disease model are written to the record.
+     */
+    public int[] getCounts() {
+        return counts;
+    }
+
+    public boolean isHeadless() {
+        return display == null;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public SimulationRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * @return the metrics of the steps taken so far, or null if the
+     *         simulation was not built to be instrumented
+     */
+    public SimulationMetrics getMetrics() {
+        return metrics;
     }
 
     public void simulate() {
-        while (display.isViable()) {
-            simulateStep();
-            updateRecord();
+        while (isViable()) {
+            advance();
         }
         finished = true;
+        notifyRunEnded();
+        closeOutput();
     }
 
     public void simulate(int steps) {
-        for (int step = 1; step <= steps && display.isViable(); step++) {
-            simulateStep();
-            updateRecord();
+        for (int step = 1; step <= steps && isViable(); step++) {
+            advance();
         }
+        notifyRunEnded();
     }
 
     public void saveData(String filePath) {
@@ -147,33 +348,158 @@ public class Simulator {
         }
     }
 
+    /**
+     * Save the record in the binary run format, which is far smaller and
+     * quicker to read back than CSV; see io.RunFile.
+     * @param filePath the file to write, without its .run extension
+     */
+    public void saveRun(String filePath) {
+        try {
+            RunFileWriter.write(Path.of(filePath + ".run"), config, record);
+        } catch (Exception e) {
+            System.out.println("Simulator::saveRun failed.");
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Save everything needed to carry on from this step: the parameters
+     * and Random, the field with every agent's state and the quarantine
+     * zone, the step, the order agents act in, and the record. A
+     * Simulator built with restoreFrom on the file continues exactly as
+     * this one would. Rows of a record that is not keeping them are not
+     * saved.
+     * @param file the file to write
+     * @param compress true to gzip the checkpoint, which is smaller but
+     *                 slower than the default memory-mapped layout
+     */
+    public void checkpoint(Path file, boolean compress) throws IOException {
+        try (CheckpointOutput out = Checkpoint.create(file, compress)) {
+            config.writeTo(out);
+            if (field instanceof Grid) {
+                out.writeByte(GRID_FIELD);
+                ((Grid) field).writeTo(out);
+            }
+            else if (field instanceof MobileNetwork) {
+                out.writeByte(NETWORK_FIELD);
+                ((MobileNetwork) field).writeTo(out);
+            }
+            else {
+                throw new IllegalStateException("Cannot checkpoint a " + field.getClass().getSimpleName() + ".");
+            }
+            out.writeInt(step);
+            out.writeBoolean(finished);
+            int[] ids = new int[agents.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = agents.get(i).getId();
+            }
+            out.writeInt(ids.length);
+            out.writeInts(ids, ids.length);
+            record.writeTo(out);
+        }
+    }
+
+    private void readState(CheckpointInput in) throws IOException {
+        step = in.readInt();
+        finished = in.readBoolean();
+        setup = true;
+        int[] ids = new int[in.readInt()];
+        in.readInts(ids, ids.length);
+        AgentStore store = field.getAgentStore();
+        agents = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            agents.add((Agent) store.get(id));
+        }
+        counts = store.getCounts(null);
+        record = SimulationRecord.readFrom(in);
+    }
+
+    /**
+     * Finish writing a streamed record, if there is one, and force it
+     * to disk.
+     */
+    public void closeOutput() {
+        try {
+            record.closeStream();
+        } catch (IOException e) {
+            System.out.println("Simulator::closeOutput failed.");
+            System.out.println(e.getMessage());
+        }
+    }
+
     public void saveImage(String imagePath) {
-        graph.captureGraphImage(imagePath);
+        if (graph != null) {
+            graph.captureGraphImage(imagePath);
+        }
     }
 
     public void closeView() {
-        this.display.setVisible(false);
-        this.graph.setVisible(false);
+        if (display != null) {
+            this.display.setVisible(false);
+            this.graph.setVisible(false);
+        }
     }
 
-    private void simulateStep() {
+    private void advance() {
+        timer.startStep();
+        simulateStep();
+        updateRecord();
+        timer.stepCompleted(step, agentsMoved, agentsInfected);
+        delay();
+    }
 
-        List<Agent> contacts = DiseaseSpreadController.getInfectedContacts(this.agents, this.field);
-        List<Agent> agentsToInfect = DiseaseSpreadController.getNewlyInfected(contacts, this.field);
+    private void simulateStep() {
+        timer.start();
+        List<Agent> agentsToInfect = infection.getNewlyInfected(this.agents, this.field);
+        timer.stop(Phase.INFECTION, step + 1);
 
-        // have all agents act
-        for (Iterator<Agent> it = agents.iterator(); it.hasNext();) {
-            Agent ag = it.next();
-            ag.act(field);
+        // have all agents act, counting moves only when someone is looking
+        timer.start();
+        if (timer.isTiming()) {
+            int moved = 0;
+            for (Agent ag : agents) {
+                Location before = ag.getLocation();
+                ag.act(field);
+                if (ag.getLocation() != before) { moved++; }
+            }
+            agentsMoved = moved;
         }
+        else {
+            for (Iterator<Agent> it = agents.iterator(); it.hasNext();) {
+                Agent ag = it.next();
+                ag.act(field);
+            }
+        }
+        timer.stop(Phase.MOVEMENT, step + 1);
 
+        timer.start();
         DiseaseSpreadController.infectAll(agentsToInfect);
+        agentsInfected = agentsToInfect.size();
+        timer.stop(Phase.INFECT, step + 1);
 
         step++;
-        display.showStatus(step, field);
+        timer.start();
+        notifyObservers();
+        timer.stop(Phase.DISPLAY, step);
+    }
+
+    private void delay() {
+        // slow down the simulation so it can be watched
+        if (!isHeadless()) {
+            try { Thread.sleep(SimData.getRunDelay());	} catch (Exception e) { /* TODO: handle exception */ }
+        }
+    }
 
-        // slow down the simulation
-        try { Thread.sleep(SimData.getRunDelay());	} catch (Exception e) { /* TODO: handle exception */ }
+    private void notifyObservers() {
+        for (SimulationObserver o : observers) {
+            o.stepCompleted(step, field);
+        }
+    }
+
+    private void notifyRunEnded() {
+        for (SimulationObserver o : observers) {
+            o.runEnded(step, field);
+        }
     }
 
     private void populate() {
@@ -182,8 +508,35 @@ public class Simulator {
     }
 
     private void updateRecord() {
-        record.addRecord(stats.getClassCount(field,
-                Arrays.asList(Susceptible.class, Infected.class, Recovered.class)));
-        supp.firePropertyChange("record", null, record.getData());
+        timer.start();
+        AgentStore store = field.getAgentStore();
+        if (store != null) {
+            // the store keeps its counts current, so this is a copy rather than a scan
+            counts = store.getCounts(null);
+        }
+        else {
+            Compartment[] all = Compartment.values();
+            List<Class<?>> classes = new ArrayList<>();
+            for (Compartment c : all) {
+                classes.add(c.getState().getClass());
+            }
+            String[] row = stats.getClassCount(field, classes);
+            counts = new int[all.length];
+            for (int i = 0; i < row.length; i++) {
+                counts[all[i].code()] = Integer.parseInt(row[i]);
+            }
+        }
+        timer.stop(Phase.COUNTING, step);
+
+        timer.start();
+        List<Compartment> recorded = model.getCompartments();
+        int[] row = new int[recorded.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = counts[recorded.get(i).code()];
+        }
+        record.addRecord(row);
+        // listeners get just this step; the row is not changed after this
+        supp.firePropertyChange("row", null, row);
+        timer.stop(Phase.RECORDING, step);
     }
 }
\ No newline at end of file
@@ -7,12 +7,18 @@ import javax.swing.*;
 import actors.Agent;
 import actors.Entity;
 import data.GUIData;
+import com.google.common.base.Function;
 import edu.uci.ics.jung.algorithms.layout.ISOMLayout;
-import edu.uci.ics.jung.visualization.VisualizationImageServer;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
 import environment.*;
+import graphs.CsrGraph;
 
+import models.Compartment;
+
+import java.awt.geom.Point2D;
 import java.util.HashMap;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A graphical view of the simulation grid.
@@ -25,6 +31,12 @@ import java.util.Set;
  * (ITN) modified so that when window is closed
  * the application terminates.
  *
+ * Painting is decoupled from the simulation. The simulation thread
+ * copies the field into a snapshot only when the last one has been taken,
+ * and a Swing timer on the event dispatch thread paints the newest
+ * snapshot at a fixed rate; steps in between are never drawn. Snapshots are
+ * passed through three buffers, so neither thread waits on the other.
+ *
  * @author David J. Barnes and Michael Kolling
  * @version 2002-04-23
  * @author Ian T. Nabney
@@ -34,7 +46,7 @@ import java.util.Set;
  * @author James J. Kerr
  * @version 07-12-2021
  */
-public class SimulatorDisplay extends JFrame {
+public class SimulatorDisplay extends JFrame implements SimulationObserver {
 
     private final String STEP_PREFIX = "Step: ";
     private final String TOTAL_AG_PREFIX = "Population(s): ";
@@ -44,6 +56,14 @@ public class SimulatorDisplay extends JFrame {
     private FieldStats stats;
     private HashMap<Class<?>, Color> colors;
 
+    // frames painted per second
+    private static final int FRAME_RATE = 30;
+    private final Timer timer;
+    // the snapshot being painted, the newest finished one, and the one being filled
+    private Snapshot front;
+    private final AtomicReference<Snapshot> middle;
+    private Snapshot back;
+
     public SimulatorDisplay(Field f) {
         stats = new FieldStats();
         colors = new HashMap<Class<?>, Color>();
@@ -55,6 +75,9 @@ public class SimulatorDisplay extends JFrame {
         setLocation(GUIData.SIM_X, GUIData.SIM_Y);
 
         fieldDisplay = getFieldDisplay(f);
+        front = fieldDisplay.newSnapshot();
+        middle = new AtomicReference<>(fieldDisplay.newSnapshot());
+        back = fieldDisplay.newSnapshot();
 
 //        if (f instanceof Grid) {
 //            fieldDisplay = new GridDisplay(height, width);
@@ -81,6 +104,10 @@ public class SimulatorDisplay extends JFrame {
 
         pack();
         setVisible(true);
+
+        timer = new Timer(1000 / FRAME_RATE, e -> paintFrame());
+        timer.setCoalesce(true);
+        timer.start();
     }
 
     private FieldDisplay getFieldDisplay(Field field) {
@@ -102,21 +129,52 @@ public class SimulatorDisplay extends JFrame {
     }
 
     /**
-     * Show the current status of the field.
+     * Copy the current status of the field into a snapshot for the next
+     * paint. Called on the simulation thread.
      * @param step Which iteration step it is.
      */
-     public void showStatus(int step, Field<Entity, Location> field) {
-        if (!isVisible()) { setVisible(true); }
-        this.step.setText(STEP_PREFIX + step);
+    public void showStatus(int step, Field<Entity, Location> field) {
+        back.step = step;
         stats.reset();
-        population.setText(TOTAL_AG_PREFIX + stats.getPopulationDetails(field));
+        back.population = stats.getPopulationDetails(field);
         stats.countFinished();
-        fieldDisplay.prepare();
-        fieldDisplay.update();
+        fieldDisplay.capture(field, back);
+        back.fresh = true;
+        back = middle.getAndSet(back);
+    }
+
+    @Override
+    public void stepCompleted(int step, Field<Entity, Location> field) {
+        // skip the copy while the last snapshot is still waiting to be painted
+        if (!middle.get().fresh) {
+            showStatus(step, field);
+        }
+    }
+
+    @Override
+    public void runEnded(int step, Field<Entity, Location> field) {
+        // make sure the final state is painted
+        showStatus(step, field);
     }
 
-    public boolean isViable() {
-        return stats.isViable();
+    /**
+     * Paint the newest snapshot, if there is one. Called by the timer on the
+     * event dispatch thread.
+     */
+    private void paintFrame() {
+        if (!middle.get().fresh) { return; }
+        front = middle.getAndSet(front);
+        front.fresh = false;
+        if (!isVisible()) { setVisible(true); }
+        step.setText(STEP_PREFIX + front.step);
+        population.setText(TOTAL_AG_PREFIX + front.population);
+        fieldDisplay.render(front);
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+        super.dispose();
     }
 
     private abstract class FieldDisplay extends JPanel {
@@ -140,14 +198,57 @@ public class SimulatorDisplay extends JFrame {
             );
         }
 
-        public abstract void prepare();
-        public abstract void update();
+        public Snapshot newSnapshot() {
+            return new Snapshot(0);
+        }
+
+        /**
+         * Copy whatever render needs out of the field. Called on the
+         * simulation thread.
+         */
+        public abstract void capture(Field<Entity, Location> field, Snapshot snapshot);
+
+        /**
+         * Paint a captured snapshot. Called on the event dispatch thread.
+         */
+        public abstract void render(Snapshot snapshot);
+    }
+
+    /**
+     * The state of the field at the end of one step.
+     */
+    private static class Snapshot {
+        int step;
+        String population = "";
+        // what is in each cell, for a grid
+        final byte[] cells;
+        // the network and the colour of each node, for a network
+        CsrGraph topology;
+        Paint[] nodes = new Paint[0];
+        volatile boolean fresh;
+
+        Snapshot(int cellCount) {
+            cells = new byte[cellCount];
+        }
     }
 
+    /**
+     * Draws the network from node positions worked out once per topology.
+     * Until the ISOM layout has been computed on a background thread the
+     * nodes are shown on a circle. The edges are drawn once into an image
+     * for each layout, so a frame only fills in the node colours.
+     */
     private class NetworkDisplay extends FieldDisplay {
 
-        private VisualizationImageServer vs;
+        private static final int NODE_SIZE = 8;
         private MobileNetwork f;
+        // the topology the positions are for, and the positions of its nodes
+        private CsrGraph laidOut;
+        private double[] xs = new double[0];
+        private double[] ys = new double[0];
+        private Image edgeImage;
+        private Paint[] nodes = new Paint[0];
+        private Thread layoutThread;
 
         public NetworkDisplay(Field field) {
             super(field.getDimensions(), field.getDimensions());
@@ -155,22 +256,133 @@ public class SimulatorDisplay extends JFrame {
         }
 
         @Override
-        public void prepare() {
-            vs = new VisualizationImageServer<>(
-                new ISOMLayout<>(f.getGraph()),
-                getPreferredSize());
-            vs.getRenderContext().setVertexFillPaintTransformer(f.getPainter());
-            this.add(vs);
+        public Dimension getPreferredSize() {
+            return new Dimension(1000, 600);
+        }
+
+        @Override
+        public void capture(Field<Entity, Location> field, Snapshot snapshot) {
+            int n = f.getNodeCount();
+            if (snapshot.nodes.length != n) {
+                snapshot.nodes = new Paint[n];
+            }
+            Function<Location, Paint> painter = f.getPainter();
+            for (int v = 0; v < n; v++) {
+                snapshot.nodes[v] = painter.apply(f.getNode(v));
+            }
+            snapshot.topology = f.getTopology();
         }
 
         @Override
-        public Dimension getPreferredSize() {
-            return new Dimension(1000, 600);
+        public void render(Snapshot snapshot) {
+            if (snapshot.topology != laidOut) {
+                startLayout(snapshot.topology);
+            }
+            if (nodes.length != snapshot.nodes.length) {
+                nodes = new Paint[snapshot.nodes.length];
+            }
+            System.arraycopy(snapshot.nodes, 0, nodes, 0, nodes.length);
+            repaint();
+        }
+
+        /**
+         * Place the nodes on a circle straight away, then work out the
+         * ISOM layout in the background and switch to it when it is done.
+         */
+        private void startLayout(CsrGraph topology) {
+            laidOut = topology;
+            Dimension size = getPreferredSize();
+            int n = topology.nodeCount();
+            double[] cx = new double[n];
+            double[] cy = new double[n];
+            double r = Math.min(size.width, size.height) / 2.0 - NODE_SIZE;
+            for (int v = 0; v < n; v++) {
+                double angle = 2 * Math.PI * v / n;
+                cx[v] = size.width / 2.0 + r * Math.cos(angle);
+                cy[v] = size.height / 2.0 + r * Math.sin(angle);
+            }
+            setPositions(cx, cy);
+
+            if (layoutThread != null) {
+                layoutThread.interrupt();
+            }
+            layoutThread = new Thread(() -> {
+                Graph<Integer, Integer> g = new UndirectedSparseGraph<>();
+                for (int v = 0; v < n; v++) {
+                    g.addVertex(v);
+                }
+                int edge = 0;
+                for (int v = 0; v < n; v++) {
+                    for (int k = topology.begin(v); k < topology.end(v); k++) {
+                        if (v < topology.target(k)) {
+                            g.addEdge(edge++, v, topology.target(k));
+                        }
+                    }
+                }
+                ISOMLayout<Integer, Integer> layout = new ISOMLayout<>(g);
+                layout.setSize(size);
+                while (!layout.done()) {
+                    if (Thread.currentThread().isInterrupted()) { return; }
+                    layout.step();
+                }
+                double[] lx = new double[n];
+                double[] ly = new double[n];
+                for (int v = 0; v < n; v++) {
+                    Point2D p = layout.apply(v);
+                    lx[v] = p.getX();
+                    ly[v] = p.getY();
+                }
+                SwingUtilities.invokeLater(() -> {
+                    if (laidOut == topology) {
+                        setPositions(lx, ly);
+                    }
+                });
+            }, "network-layout");
+            layoutThread.setDaemon(true);
+            layoutThread.start();
+        }
+
+        private void setPositions(double[] x, double[] y) {
+            xs = x;
+            ys = y;
+            edgeImage = null;
+            repaint();
+        }
+
+        private void drawEdges(Dimension size) {
+            edgeImage = createImage(size.width, size.height);
+            Graphics2D g = (Graphics2D) edgeImage.getGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(GUIData.DEF_COL);
+            g.fillRect(0, 0, size.width, size.height);
+            g.setColor(Color.LIGHT_GRAY);
+            CsrGraph t = laidOut;
+            for (int v = 0; v < t.nodeCount(); v++) {
+                for (int k = t.begin(v); k < t.end(v); k++) {
+                    int w = t.target(k);
+                    if (v < w) {
+                        g.drawLine((int) xs[v], (int) ys[v], (int) xs[w], (int) ys[w]);
+                    }
+                }
+            }
+            g.dispose();
         }
 
         @Override
-        public void update() {
-            vs.updateUI();
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (laidOut == null) { return; }
+            Dimension size = getPreferredSize();
+            if (edgeImage == null) {
+                drawEdges(size);
+            }
+            g.drawImage(edgeImage, 0, 0, null);
+            Graphics2D g2 = (Graphics2D) g;
+            int n = Math.min(nodes.length, xs.length);
+            for (int v = 0; v < n; v++) {
+                g2.setPaint(nodes[v]);
+                g2.fillOval((int) xs[v] - NODE_SIZE / 2, (int) ys[v] - NODE_SIZE / 2, NODE_SIZE, NODE_SIZE);
+            }
         }
     }
 
@@ -184,6 +396,11 @@ public class SimulatorDisplay extends JFrame {
      */
     private class GridDisplay extends FieldDisplay {
 
+        // cell codes besides the compartment codes of agents
+        private static final byte EMPTY = -1;
+        private static final byte ZONE = -2;
+        private static final byte OTHER = -3;
+
         private int xScale, yScale;
         private Graphics g;
         private Image fieldImage;
@@ -195,28 +412,51 @@ public class SimulatorDisplay extends JFrame {
         }
 
         @Override
-        public void prepare() {
-            preparePaint();
+        public Snapshot newSnapshot() {
+            return new Snapshot(grid.getDimensions() * grid.getDimensions());
         }
 
         @Override
-        public void update() {
-            Set<Location> qu = grid.getZone();
-            for (int row = 0; row < grid.getDimensions(); row++) {
-                for (int col = 0; col < grid.getDimensions(); col++) {
-                    Object actor = grid.getObjectAt(new Location(row, col));
-                    if (actor != null) {
-                        stats.incrementCount(actor);
-                        if (actor instanceof Agent) {
-                            Agent ag = (Agent) actor;
-                            this.drawMark(col, row, colors.get(ag.getStatus().getClass()));
-                        }
+        public void capture(Field<Entity, Location> field, Snapshot snapshot) {
+            int n = grid.getDimensions();
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    Entity actor = grid.getObjectAt(row, col);
+                    byte cell;
+                    if (actor instanceof Agent) {
+                        cell = ((Agent) actor).getCompartment().code();
+                    }
+                    else if (actor != null) {
+                        cell = OTHER;
                     }
                     else {
-                        if (qu.contains(new Location(row, col))) {
-                            this.drawMark(col, row, GUIData.QU_COL);
-                        }
-                        else this.drawMark(col, row, GUIData.EMP_COL);
+                        cell = grid.isInZone(row, col) ? ZONE : EMPTY;
+                    }
+                    snapshot.cells[row * n + col] = cell;
+                }
+            }
+        }
+
+        @Override
+        public void render(Snapshot snapshot) {
+            preparePaint();
+            Compartment[] compartments = Compartment.values();
+            Color[] agentColours = new Color[compartments.length];
+            for (Compartment c : compartments) {
+                agentColours[c.code()] = colors.get(c.getState().getClass());
+            }
+            int n = grid.getDimensions();
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    byte cell = snapshot.cells[row * n + col];
+                    if (cell >= 0) {
+                        this.drawMark(col, row, agentColours[cell]);
+                    }
+                    else if (cell == ZONE) {
+                        this.drawMark(col, row, GUIData.QU_COL);
+                    }
+                    else if (cell == EMPTY) {
+                        this.drawMark(col, row, GUIData.EMP_COL);
                     }
                 }
             }
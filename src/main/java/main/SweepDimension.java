@@ -0,0 +1,108 @@
+package main;
+
+/**
+ * One parameter of a ParameterSweep and the values it is swept over:
+ * either a list of levels, or a numeric range from min to max.
+ *
+ * In a Cartesian design a range is split into evenly spaced levels,
+ * min and max included. In a Latin hypercube a range is sampled
+ * continuously and a list of levels is spread evenly over the samples.
+ */
+public class SweepDimension {
+
+    private final SweepParameter parameter;
+    private final String[] levels;
+    private final double min;
+    private final double max;
+    private final int count;
+
+    private SweepDimension(SweepParameter parameter, String[] levels, double min, double max, int count) {
+        this.parameter = parameter;
+        this.levels = levels;
+        this.min = min;
+        this.max = max;
+        this.count = count;
+    }
+
+    /**
+     * @param levels the values as text, e.g. "GRID", "NETWORK"
+     */
+    public static SweepDimension levels(SweepParameter parameter, String... levels) {
+        if (levels.length == 0)
+            throw new IllegalArgumentException(parameter.getLabel() + " needs at least one level.");
+        return new SweepDimension(parameter, levels.clone(), 0, 0, levels.length);
+    }
+
+    /**
+     * @param count the number of evenly spaced levels in a Cartesian design
+     */
+    public static SweepDimension range(SweepParameter parameter, double min, double max, int count) {
+        if (!parameter.isNumeric())
+            throw new IllegalArgumentException(parameter.getLabel() + " cannot be swept over a range.");
+        if (min > max)
+            throw new IllegalArgumentException(parameter.getLabel() + " range must have min <= max.");
+        if (count < 1)
+            throw new IllegalArgumentException(parameter.getLabel() + " range needs at least one level.");
+        return new SweepDimension(parameter, null, min, max, count);
+    }
+
+    /**
+     * Read a dimension as written on the command line: name=a,b,c for a
+     * list of levels, or name=min:max:count for a range.
+     */
+    public static SweepDimension parse(String text) {
+        int eq = text.indexOf('=');
+        if (eq < 0)
+            throw new IllegalArgumentException("Expected name=values but got " + text + ".");
+        SweepParameter parameter = SweepParameter.of(text.substring(0, eq));
+        String values = text.substring(eq + 1);
+        if (values.contains(":")) {
+            String[] parts = values.split(":");
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Expected min:max:count but got " + values + ".");
+            try {
+                return range(parameter, Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                        Integer.parseInt(parts[2]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected min:max:count but got " + values + ".");
+            }
+        }
+        return levels(parameter, values.split(","));
+    }
+
+    public SweepParameter getParameter() {
+        return parameter;
+    }
+
+    /**
+     * @return the number of levels of this dimension in a Cartesian design
+     */
+    public int levelCount() {
+        return count;
+    }
+
+    /**
+     * @param i between 0 and levelCount() - 1
+     * @return the value of level i as text
+     */
+    public String level(int i) {
+        if (levels != null) {
+            return levels[i];
+        }
+        if (count == 1) {
+            return String.valueOf(min);
+        }
+        return String.valueOf(min + (max - min) * i / (count - 1));
+    }
+
+    /**
+     * @param u a number in [0, 1)
+     * @return the value at fraction u of the way along this dimension
+     */
+    public String sample(double u) {
+        if (levels != null) {
+            return levels[Math.min((int) (u * levels.length), levels.length - 1)];
+        }
+        return String.valueOf(min + (max - min) * u);
+    }
+}
@@ -0,0 +1,115 @@
+package main;
+
+import data.SimConfig;
+import environment.FieldType;
+import environment.NetworkType;
+
+/**
+ * The SimConfig parameters a ParameterSweep can vary. Numeric parameters
+ * may be swept over a range; the others take a list of levels, given as
+ * text in the form used on the command line.
+ */
+public enum SweepParameter {
+    INFECTIVITY("infectivity", "Infectiousness", true),
+    AGENT_PROBABILITY("agent-probability", "Agent Probability", true),
+    AGENT_ZERO_PROBABILITY("agent-zero-probability", "Agent 0 Probability", true),
+    MASK_COMPLIANCE("mask-compliance", "Mask Compliance", true),
+    MASK_RISK_REDUCTION("mask-risk-reduction", "Mask Risk Reduction", true),
+    DISTANCING_COMPLIANCE("distancing-compliance", "Social Distancing Compliance", true),
+    QUARANTINE_COMPLIANCE("quarantine-compliance", "Quarantining Compliance", true),
+    SYMPTOMATIC_PROBABILITY("symptomatic-probability", "Symptomatic Probability", true),
+    MASKING("masking", "Mask Mandate", false),
+    DISTANCING("distancing", "Social Distancing", false),
+    QUARANTINING("quarantining", "Quarantining", false),
+    FIELD_TYPE("field-type", "Field type", false),
+    NETWORK_TYPE("network-type", "Network type", false);
+
+    private final String option;
+    private final String label;
+    private final boolean numeric;
+
+    SweepParameter(String option, String label, boolean numeric) {
+        this.option = option;
+        this.label = label;
+        this.numeric = numeric;
+    }
+
+    /**
+     * @return the name of this parameter on the command line
+     */
+    public String getOption() {
+        return option;
+    }
+
+    /**
+     * @return the name of this parameter in output files, matching
+     *         SimConfig.getParameters
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return whether this parameter may be swept over a range
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * Set this parameter of a configuration.
+     * @param value the value as text, e.g. "0.5", "true" or "SMALLWORLD"
+     */
+    public void apply(SimConfig config, String value) {
+        switch (this) {
+            case INFECTIVITY:             config.setInfectivity(parseDouble(value)); break;
+            case AGENT_PROBABILITY:       config.setAgentProbability(parseDouble(value)); break;
+            case AGENT_ZERO_PROBABILITY:  config.setAgentZeroProbability(parseDouble(value)); break;
+            case MASK_COMPLIANCE:         config.setMaskCompliance(parseDouble(value)); break;
+            case MASK_RISK_REDUCTION:     config.setMaskRiskReduction(parseDouble(value)); break;
+            case DISTANCING_COMPLIANCE:   config.setSocialDistancingCompliance(parseDouble(value)); break;
+            case QUARANTINE_COMPLIANCE:   config.setQuarantiningCompliance(parseDouble(value)); break;
+            case SYMPTOMATIC_PROBABILITY: config.setSymptomaticProbability(parseDouble(value)); break;
+            case MASKING:                 config.setMasking(parseBoolean(value)); break;
+            case DISTANCING:              config.setSocialDistancing(parseBoolean(value)); break;
+            case QUARANTINING:            config.setQuarantining(parseBoolean(value)); break;
+            case FIELD_TYPE:              config.setFieldType(parseEnum(FieldType.class, value)); break;
+            case NETWORK_TYPE:            config.setNetworkType(parseEnum(NetworkType.class, value)); break;
+            default:                      throw new IllegalStateException("No setter for " + this + ".");
+        }
+    }
+
+    /**
+     * @param option the command line name of a parameter, e.g. "mask-compliance"
+     */
+    public static SweepParameter of(String option) {
+        for (SweepParameter p : values()) {
+            if (p.option.equals(option)) {
+                return p;
+            }
+        }
+        throw new IllegalArgumentException("No sweep parameter called " + option + ".");
+    }
+
+    private double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(label + " must be a number, not " + value + ".");
+        }
+    }
+
+    private boolean parseBoolean(String value) {
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false"))
+            throw new IllegalArgumentException(label + " must be true or false, not " + value + ".");
+        return Boolean.parseBoolean(value);
+    }
+
+    private <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(label + " cannot be " + value + ".");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations in nanoseconds, in log-linear buckets: each
+ * power of two is split into 8 buckets, so a recorded value is known to
+ * within 12.5%. Recording is a few arithmetic operations and never
+ * allocates. Meant to be written from one thread.
+ */
+public class LatencyHistogram {
+
+    // values below this get a bucket each
+    private static final int LINEAR = 16;
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = LINEAR + (63 - 4) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) { nanos = 0; }
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos < min) { min = nanos; }
+        if (nanos > max) { max = nanos; }
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR) { return (int) value; }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    // the smallest value that falls in a bucket
+    static long lowestOf(int bucket) {
+        if (bucket < LINEAR) { return bucket; }
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) sub << (exponent - SUB_BITS));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the lowest value of the bucket holding that percentile,
+     *         clamped to the recorded range
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile must be between 0 and 100 inclusive.");
+        if (count == 0) { return 0; }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(Math.max(lowestOf(b), getMin()), max);
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+}
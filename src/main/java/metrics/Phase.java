@@ -0,0 +1,26 @@
+package metrics;
+
+/**
+ * The parts of a simulation step that are timed separately.
+ */
+public enum Phase {
+    // finding Susceptible agents in contact with Infected ones and drawing
+    // which become infected; the infection engines do both in one pass
+    INFECTION("Contact detection and infection draws"),
+    // every agent acting: moving, distancing and progressing its disease
+    MOVEMENT("Agent movement"),
+    INFECT("Applying new infections"),
+    DISPLAY("Observers and display"),
+    COUNTING("Counting compartments"),
+    RECORDING("Recording and listeners");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
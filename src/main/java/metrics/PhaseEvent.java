@@ -0,0 +1,27 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one phase of one simulation step.
+ */
+@Name("simulator.Phase")
+@Label("Simulation Phase")
+@Description("One phase of a simulation step")
+@Category("Simulator")
+@StackTrace(false)
+public class PhaseEvent extends jdk.jfr.Event {
+
+    static final EventType TYPE = EventType.getEventType(PhaseEvent.class);
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Step")
+    int step;
+}
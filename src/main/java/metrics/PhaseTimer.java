@@ -0,0 +1,94 @@
+package metrics;
+
+/**
+ * Times the phases of a simulation step into a SimulationMetrics and as
+ * Flight Recorder events. When there are no metrics and no recording is
+ * taking the events, start and stop do nothing beyond checking that.
+ */
+public class PhaseTimer {
+
+    private final SimulationMetrics metrics;
+    private boolean timing;
+    private long start;
+    private PhaseEvent event;
+    private boolean stepTiming;
+    private long stepStart;
+    private StepEvent stepEvent;
+
+    /**
+     * @param metrics where to record phase times, or null for none
+     */
+    public PhaseTimer(SimulationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return true if steps are being timed at all, so that per-step
+     *         counts such as agents moved are worth collecting
+     */
+    public boolean isTiming() {
+        return metrics != null || PhaseEvent.TYPE.isEnabled() || StepEvent.TYPE.isEnabled();
+    }
+
+    public void start() {
+        timing = metrics != null || PhaseEvent.TYPE.isEnabled();
+        if (!timing) { return; }
+        start = System.nanoTime();
+        if (PhaseEvent.TYPE.isEnabled()) {
+            event = new PhaseEvent();
+            event.begin();
+        }
+    }
+
+    public void stop(Phase phase, int step) {
+        if (!timing) { return; }
+        if (metrics != null) {
+            metrics.record(phase, System.nanoTime() - start);
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.step = step;
+                event.commit();
+            }
+            event = null;
+        }
+        timing = false;
+    }
+
+    /**
+     * Start timing a whole step; phases are timed within it.
+     */
+    public void startStep() {
+        stepTiming = metrics != null || StepEvent.TYPE.isEnabled();
+        if (!stepTiming) { return; }
+        stepStart = System.nanoTime();
+        if (StepEvent.TYPE.isEnabled()) {
+            stepEvent = new StepEvent();
+            stepEvent.begin();
+        }
+    }
+
+    /**
+     * @param moved how many agents changed location
+     * @param infected how many agents were newly infected
+     */
+    public void stepCompleted(int step, int moved, int infected) {
+        if (!stepTiming) { return; }
+        if (metrics != null) {
+            metrics.stepCompleted(System.nanoTime() - stepStart, moved, infected);
+        }
+        if (stepEvent != null) {
+            stepEvent.end();
+            if (stepEvent.shouldCommit()) {
+                stepEvent.step = step;
+                stepEvent.agentsMoved = moved;
+                stepEvent.agentsInfected = infected;
+                stepEvent.commit();
+            }
+            stepEvent = null;
+        }
+        stepTiming = false;
+    }
+}
@@ -0,0 +1,120 @@
+package metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * In-process metrics of a simulation: a latency histogram per phase of
+ * a step, the step rate, and how many agents moved and were infected.
+ * Filled in by a Simulator built with setInstrumented(true).
+ */
+public class SimulationMetrics {
+
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final LatencyHistogram steps = new LatencyHistogram();
+    private int agentsMoved;
+    private int agentsInfected;
+    private long totalMoved;
+    private long totalInfected;
+
+    public SimulationMetrics() {
+        for (Phase p : Phase.values()) {
+            phases.put(p, new LatencyHistogram());
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    /**
+     * Record a whole step.
+     * @param nanos how long the step took
+     * @param moved how many agents changed location
+     * @param infected how many agents were newly infected
+     */
+    public void stepCompleted(long nanos, int moved, int infected) {
+        steps.record(nanos);
+        agentsMoved = moved;
+        agentsInfected = infected;
+        totalMoved += moved;
+        totalInfected += infected;
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return phases.get(phase);
+    }
+
+    /**
+     * @return the durations of whole steps
+     */
+    public LatencyHistogram getStepHistogram() {
+        return steps;
+    }
+
+    public long getSteps() {
+        return steps.getCount();
+    }
+
+    /**
+     * @return steps per second of time spent in steps, excluding any
+     *         delay between steps for display
+     */
+    public double getStepsPerSecond() {
+        return steps.getTotal() == 0 ? 0 : steps.getCount() / (steps.getTotal() / 1e9);
+    }
+
+    /**
+     * @return how many agents moved in the last step
+     */
+    public int getAgentsMoved() {
+        return agentsMoved;
+    }
+
+    /**
+     * @return how many agents were infected in the last step
+     */
+    public int getAgentsInfected() {
+        return agentsInfected;
+    }
+
+    public long getTotalAgentsMoved() {
+        return totalMoved;
+    }
+
+    public long getTotalAgentsInfected() {
+        return totalInfected;
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : phases.values()) {
+            h.reset();
+        }
+        steps.reset();
+        agentsMoved = 0;
+        agentsInfected = 0;
+        totalMoved = 0;
+        totalInfected = 0;
+    }
+
+    /**
+     * @return a table of the phase timings in microseconds
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-40s %8s %10s %10s %10s %10s%n", "Phase", "Count", "Mean us", "p50 us", "p99 us", "Max us"));
+        for (Phase p : Phase.values()) {
+            append(sb, p.getLabel(), phases.get(p));
+        }
+        append(sb, "Whole step", steps);
+        sb.append(String.format("%.1f steps/s, %d agents moved and %d infected in total%n",
+                getStepsPerSecond(), totalMoved, totalInfected));
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String label, LatencyHistogram h) {
+        sb.append(String.format("%-40s %8d %10.1f %10.1f %10.1f %10.1f%n", label, h.getCount(),
+                h.getMean() / 1e3, h.getPercentile(50) / 1e3, h.getPercentile(99) / 1e3, h.getMax() / 1e3));
+    }
+}
@@ -0,0 +1,30 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering a whole simulation step.
+ */
+@Name("simulator.Step")
+@Label("Simulation Step")
+@Description("A simulation step, with how many agents moved and were infected")
+@Category("Simulator")
+@StackTrace(false)
+public class StepEvent extends jdk.jfr.Event {
+
+    static final EventType TYPE = EventType.getEventType(StepEvent.class);
+
+    @Label("Step")
+    int step;
+
+    @Label("Agents Moved")
+    int agentsMoved;
+
+    @Label("Agents Infected")
+    int agentsInfected;
+}
@@ -0,0 +1,53 @@
+package models;
+
+/**
+ * The epidemiological compartments an agent can be in. The ordinal of
+ * each compartment is the byte used to store an agent's status, and
+ * each compartment keeps one shared SIR state object, so reading an
+ * agent's status never allocates. New compartments are added at the
+ * end so that existing codes keep their meaning.
+ */
+public enum Compartment {
+    SUSCEPTIBLE(new Susceptible()),
+    INFECTED(new Infected()),
+    RECOVERED(new Recovered()),
+    EXPOSED(new Exposed()),
+    DEAD(new Dead());
+
+    private static final Compartment[] VALUES = values();
+
+    private final SIR state;
+
+    Compartment(SIR state) {
+        this.state = state;
+    }
+
+    public SIR getState() {
+        return state;
+    }
+
+    /**
+     * @return the name used for this compartment in records and graphs,
+     *         e.g. "Susceptible"
+     */
+    public String getName() {
+        return name().charAt(0) + name().substring(1).toLowerCase();
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static Compartment of(byte code) {
+        return VALUES[code];
+    }
+
+    public static Compartment of(SIR state) {
+        for (Compartment c : VALUES) {
+            if (c.state.getClass() == state.getClass()) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("No compartment for " + state.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,220 @@
+package models;
+
+import data.SimConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A compartmental disease model compiled into a transition table
+ * indexed by compartment code. Each compartment may have a timed exit:
+ * once an agent's dwell time runs out it moves to the next compartment,
+ * or, with some probability, to an alternative one (e.g. Infected to
+ * Dead rather than Recovered). Moving an agent is then a table lookup
+ * and a byte write rather than a new SIR object.
+ */
+public class CompartmentModel {
+
+    private static final byte NONE = -1;
+
+    private final ModelType type;
+    private final List<Compartment> compartments;
+    private final byte onInfection;
+    private final byte[] next;
+    private final byte[] alternative;
+    private final double[] alternativeProbability;
+    private final Dwell[] dwell;
+
+    private CompartmentModel(Builder b) {
+        type = b.type;
+        compartments = Collections.unmodifiableList(new ArrayList<>(b.compartments));
+        onInfection = b.onInfection;
+        next = b.next;
+        alternative = b.alternative;
+        alternativeProbability = b.alternativeProbability;
+        dwell = b.dwell;
+    }
+
+    /**
+     * Compile the model chosen by a configuration, using its periods
+     * and probabilities.
+     * @param config the parameters of the run
+     * @return the compiled model
+     */
+    public static CompartmentModel of(SimConfig config) {
+        Dwell infectious = Dwell.uniform(config.getInfectiousPeriodMin(), config.getInfectiousPeriodMax());
+        Dwell latent = Dwell.uniform(config.getLatentPeriodMin(), config.getLatentPeriodMax());
+        Builder b = new Builder(config.getModelType());
+        switch (config.getModelType()) {
+            case SIR:
+                return b.infectInto(Compartment.INFECTED)
+                        .transition(Compartment.INFECTED, Compartment.RECOVERED, infectious)
+                        .build();
+            case SEIR:
+                return b.infectInto(Compartment.EXPOSED)
+                        .transition(Compartment.EXPOSED, Compartment.INFECTED, latent)
+                        .transition(Compartment.INFECTED, Compartment.RECOVERED, infectious)
+                        .build();
+            case SIRS:
+                return b.infectInto(Compartment.INFECTED)
+                        .transition(Compartment.INFECTED, Compartment.RECOVERED, infectious)
+                        .transition(Compartment.RECOVERED, Compartment.SUSCEPTIBLE,
+                                Dwell.geometric(config.getImmunityPeriod()))
+                        .build();
+            case SEIRD:
+                return b.infectInto(Compartment.EXPOSED)
+                        .transition(Compartment.EXPOSED, Compartment.INFECTED, latent)
+                        .transition(Compartment.INFECTED, Compartment.RECOVERED, infectious)
+                        .branch(Compartment.INFECTED, Compartment.DEAD, config.getFatalityProbability())
+                        .build();
+            default:
+                throw new IllegalArgumentException(config.getModelType().toString());
+        }
+    }
+
+    public ModelType getType() {
+        return type;
+    }
+
+    /**
+     * @return the compartments used by this model, in the order they
+     *         are recorded and displayed
+     */
+    public List<Compartment> getCompartments() {
+        return compartments;
+    }
+
+    /**
+     * @return the compartment a Susceptible agent enters when infected
+     */
+    public Compartment onInfection() {
+        return Compartment.of(onInfection);
+    }
+
+    /**
+     * @return true if agents leave the given compartment after a dwell time
+     */
+    public boolean hasTimedExit(byte code) {
+        return next[code] != NONE;
+    }
+
+    /**
+     * @return true if the disease is still present in an agent in the
+     *         given compartment, i.e. it is Exposed or Infected
+     */
+    public boolean isActive(byte code) {
+        return code == Compartment.EXPOSED.code() || code == Compartment.INFECTED.code();
+    }
+
+    /**
+     * Draw how long an agent entering the given compartment stays there.
+     * Susceptible agents have no timed exit, so they are given the dwell
+     * time of the compartment they will enter once infected.
+     * @return the dwell time in steps, or 0 if there is no timed exit
+     */
+    public int drawDwell(byte code, Random rand) {
+        Dwell d = dwell[code == Compartment.SUSCEPTIBLE.code() ? onInfection : code];
+        return d == null ? 0 : d.draw(rand);
+    }
+
+    /**
+     * @return the rate at which agents leave the given compartment, i.e.
+     *         one over the mean number of steps spent there, or 0 if
+     *         there is no timed exit
+     */
+    public double getExitRate(byte code) {
+        return dwell[code] == null ? 0 : 1.0 / dwell[code].mean();
+    }
+
+    public boolean hasAlternative(byte code) {
+        return alternative[code] != NONE;
+    }
+
+    /**
+     * Choose the compartment an agent moves to when its dwell time in
+     * the given compartment runs out. The random number generator is
+     * only used when the compartment has an alternative exit.
+     * @return the code of the next compartment
+     */
+    public byte nextState(byte code, Random rand) {
+        return hasAlternative(code) ? nextState(code, rand.nextDouble()) : next[code];
+    }
+
+    /**
+     * @param u a uniform draw from [0, 1), only read if the compartment
+     *          has an alternative exit
+     * @return the code of the next compartment
+     */
+    public byte nextState(byte code, double u) {
+        if (alternative[code] != NONE && u < alternativeProbability[code]) {
+            return alternative[code];
+        }
+        return next[code];
+    }
+
+    public static class Builder {
+        private final ModelType type;
+        private final List<Compartment> compartments = new ArrayList<>();
+        private byte onInfection = Compartment.INFECTED.code();
+        private final byte[] next = new byte[Compartment.values().length];
+        private final byte[] alternative = new byte[Compartment.values().length];
+        private final double[] alternativeProbability = new double[Compartment.values().length];
+        private final Dwell[] dwell = new Dwell[Compartment.values().length];
+
+        public Builder(ModelType type) {
+            this.type = type;
+            Arrays.fill(next, NONE);
+            Arrays.fill(alternative, NONE);
+        }
+
+        public Builder infectInto(Compartment c) {
+            if (c == Compartment.SUSCEPTIBLE)
+                throw new IllegalArgumentException("Infection must move agents out of Susceptible.");
+            onInfection = c.code();
+            return this;
+        }
+
+        public Builder transition(Compartment from, Compartment to, Dwell time) {
+            next[from.code()] = to.code();
+            dwell[from.code()] = time;
+            return this;
+        }
+
+        public Builder branch(Compartment from, Compartment to, double probability) {
+            if (probability < 0 || probability > 1)
+                throw new IllegalArgumentException("Branch probability must be between 0 and 1 inclusive.");
+            if (next[from.code()] == NONE)
+                throw new IllegalArgumentException(from + " has no transition to branch from.");
+            alternative[from.code()] = to.code();
+            alternativeProbability[from.code()] = probability;
+            return this;
+        }
+
+        public CompartmentModel build() {
+            boolean[] used = new boolean[Compartment.values().length];
+            used[Compartment.SUSCEPTIBLE.code()] = true;
+            used[onInfection] = true;
+            for (int i = 0; i < next.length; i++) {
+                if (next[i] != NONE) {
+                    used[i] = true;
+                    used[next[i]] = true;
+                }
+                if (alternative[i] != NONE) {
+                    used[alternative[i]] = true;
+                }
+            }
+            // record in the order a case progresses, S, E, I, R, D
+            Compartment[] order = {Compartment.SUSCEPTIBLE, Compartment.EXPOSED,
+                    Compartment.INFECTED, Compartment.RECOVERED, Compartment.DEAD};
+            for (Compartment c : order) {
+                if (used[c.code()]) {
+                    compartments.add(c);
+                }
+            }
+            return new CompartmentModel(this);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package models;
+
+public class Dead implements SIR {
+    @Override
+    public SIR nextState() {
+        throw new IllegalStateException("Dead does not have a next state.");
+    }
+
+    @Override
+    public SIR prevState() {
+        return new Infected();
+    }
+
+    @Override
+    public String toString() {
+        return "D";
+    }
+}
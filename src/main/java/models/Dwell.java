@@ -0,0 +1,62 @@
+package models;
+
+import java.util.Random;
+
+/**
+ * Distribution of the number of steps an agent stays in a compartment
+ * before its next transition.
+ */
+public class Dwell {
+
+    private final int min;
+    private final int max;
+    private final double p;
+
+    private Dwell(int min, int max, double p) {
+        this.min = min;
+        this.max = max;
+        this.p = p;
+    }
+
+    /**
+     * @return a dwell time drawn uniformly from [min, max), or min if
+     *         the range is empty
+     */
+    public static Dwell uniform(int min, int max) {
+        if (min < 0 || max < min)
+            throw new IllegalArgumentException("Dwell range must satisfy 0 <= min <= max.");
+        return new Dwell(min, max, 0);
+    }
+
+    /**
+     * @return a memoryless dwell time with the given mean number of steps
+     */
+    public static Dwell geometric(double mean) {
+        if (mean < 1)
+            throw new IllegalArgumentException("Mean dwell time must be at least 1 step.");
+        return new Dwell(0, 0, 1.0 / mean);
+    }
+
+    public int draw(Random rand) {
+        if (p > 0) {
+            // number of failures before the first success
+            double u = rand.nextDouble();
+            return p >= 1 ? 0 : (int) Math.floor(Math.log(1.0 - u) / Math.log(1.0 - p));
+        }
+        if (max <= min) {
+            return min;
+        }
+        return rand.nextInt(max - min) + min;
+    }
+
+    /**
+     * @return the mean number of steps spent in the compartment; an agent
+     *         drawing a dwell time of n leaves on its (n + 1)th step
+     */
+    public double mean() {
+        if (p > 0) {
+            return 1.0 / p;
+        }
+        return max <= min ? min + 1 : (min + max + 1) / 2.0;
+    }
+}
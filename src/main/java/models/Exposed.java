@@ -0,0 +1,18 @@
+package models;
+
+public class Exposed implements SIR {
+    @Override
+    public SIR nextState() {
+        return new Infected();
+    }
+
+    @Override
+    public SIR prevState() {
+        return new Susceptible();
+    }
+
+    @Override
+    public String toString() {
+        return "E";
+    }
+}
@@ -0,0 +1,5 @@
+package models;
+
+public enum ModelType {
+    SIR, SEIR, SIRS, SEIRD
+}
@@ -0,0 +1,109 @@
+package actors;
+
+import environment.Grid;
+import environment.Location;
+import models.Compartment;
+import models.Infected;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AgentStoreTest {
+
+    Grid g;
+    Location loc;
+
+    @BeforeEach
+    void setup() {
+        g = new Grid(4, 4);
+        loc = new Location(1, 2);
+    }
+
+    @Test
+    void place_shouldMoveAgentStateIntoStore() {
+        Agent ag = new Agent(loc);
+        ag.setStatus(new Infected());
+        ag.setMasked(true);
+        ag.setHealth(7);
+        g.place(loc, ag);
+        AgentStore store = g.getAgentStore();
+        assertSame(store, ag.getStore());
+        assertEquals(Compartment.INFECTED.code(), store.getStatus(ag.getId()));
+        assertTrue(store.isMasked(ag.getId()));
+        assertEquals(7, store.getHealth(ag.getId()));
+    }
+
+    @Test
+    void agent_whenInStore_shouldReadAndWriteStore() {
+        Agent ag = new Agent(loc);
+        g.place(loc, ag);
+        g.getAgentStore().setStatus(ag.getId(), Compartment.RECOVERED.code());
+        assertEquals(Compartment.RECOVERED, ag.getCompartment());
+        ag.setMasked(true);
+        assertTrue(g.getAgentStore().isMasked(ag.getId()));
+    }
+
+    @Test
+    void move_shouldKeepTheSameId() {
+        Agent ag = new Agent(loc);
+        g.place(loc, ag);
+        int id = ag.getId();
+        Location to = new Location(2, 2);
+        g.clearLocation(loc);
+        g.place(to, ag);
+        assertEquals(id, ag.getId());
+        assertEquals(1, g.getAgentStore().size());
+        assertSame(ag, g.getObjectAt(to));
+    }
+
+    @Test
+    void clearAll_shouldHandStateBackToAgents() {
+        Agent ag = new Agent(loc);
+        g.place(loc, ag);
+        ag.setStatus(new Infected());
+        ag.setMasked(true);
+        g.clearAll();
+        assertNull(ag.getStore());
+        assertEquals(0, g.getAgentStore().size());
+        assertEquals(Compartment.INFECTED, ag.getCompartment());
+        assertTrue(ag.getMasked());
+    }
+
+    @Test
+    void add_shouldGrowPastInitialCapacity() {
+        AgentStore store = new AgentStore(2);
+        for (int i = 0; i < 10; i++) {
+            Agent ag = new Agent(loc);
+            ag.setHealth(i);
+            assertEquals(i, store.add(ag));
+        }
+        assertEquals(9, store.getHealth(9));
+    }
+
+    @Test
+    void counts_shouldFollowPlacementAndStatus() {
+        AgentStore store = g.getAgentStore();
+        Agent ag = new Agent(loc);
+        g.place(loc, ag);
+        assertEquals(1, store.getCount(Compartment.SUSCEPTIBLE));
+        ag.setStatus(new Infected());
+        assertEquals(0, store.getCount(Compartment.SUSCEPTIBLE));
+        assertEquals(1, store.getCount(Compartment.INFECTED));
+        g.clearLocation(loc);
+        assertEquals(0, store.getCount(Compartment.INFECTED));
+        assertEquals(0, store.getAgentCount());
+        g.place(new Location(0, 0), ag);
+        assertEquals(1, store.getCount(Compartment.INFECTED));
+    }
+
+    @Test
+    void counts_shouldMatchAScanOfTheField() {
+        g.initialise();
+        int[] counts = g.getAgentStore().getCounts(null);
+        for (Compartment c : Compartment.values()) {
+            long scanned = g.getAllOf(Agent.class).stream().filter(a -> a.getCompartment() == c).count();
+            assertEquals(scanned, counts[c.code()]);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package checkpoint;
+
+import data.SimConfig;
+import data.SimData;
+import environment.FieldType;
+import environment.NetworkType;
+import main.Simulator;
+import models.ModelType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private static SimConfig config(FieldType type) {
+        SimConfig c = new SimConfig();
+        c.setSeed(1234);
+        c.setDepth(30);
+        c.setWidth(30);
+        c.setAgentProbability(0.4);
+        c.setAgentZeroProbability(0.05);
+        c.setQuarantining(true);
+        c.setSocialDistancing(true);
+        c.setMasking(true);
+        c.setModelType(ModelType.SEIR);
+        c.setFieldType(type);
+        c.setNetworkType(NetworkType.SMALLWORLD);
+        return c;
+    }
+
+    private static Simulator build(FieldType type) {
+        return new Simulator.SimulationBuilder()
+                .setDepth(SimData.getDepth())
+                .setWidth(SimData.getWidth())
+                .setField(type)
+                .setHeadless(true)
+                .build();
+    }
+
+    /**
+     * Run to the end straight through, and again from a checkpoint taken
+     * part way, and check both runs record exactly the same counts.
+     */
+    private void assertContinuesIdentically(FieldType type, boolean compress) {
+        Path file = dir.resolve("run.ckpt");
+        List<int[]> straight = SimData.runWith(config(type), () -> {
+            Simulator sim = build(type);
+            sim.simulate(10);
+            try {
+                sim.checkpoint(file, compress);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sim.simulate();
+            return sim.getRecord().getCounts();
+        });
+        List<int[]> restored = SimData.runWith(new SimConfig(), () -> {
+            Simulator sim = new Simulator.SimulationBuilder()
+                    .restoreFrom(file)
+                    .setHeadless(true)
+                    .build();
+            assertEquals(10, sim.getStep());
+            sim.simulate();
+            return sim.getRecord().getCounts();
+        });
+        assertEquals(straight.size(), restored.size());
+        for (int i = 0; i < straight.size(); i++) {
+            assertArrayEquals(straight.get(i), restored.get(i), "step " + i);
+        }
+    }
+
+    @Test
+    void restore_onGrid_shouldContinueIdentically() {
+        assertContinuesIdentically(FieldType.GRID, false);
+    }
+
+    @Test
+    void restore_onCompressedNetwork_shouldContinueIdentically() {
+        assertContinuesIdentically(FieldType.NETWORK, true);
+    }
+
+    @Test
+    void open_whenNotACheckpoint_shouldThrow() throws IOException {
+        Path file = dir.resolve("bad.ckpt");
+        Files.writeString(file, "Susceptible,Infected");
+        assertThrows(IOException.class, () -> Checkpoint.open(file));
+    }
+}
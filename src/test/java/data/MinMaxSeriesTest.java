@@ -0,0 +1,49 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinMaxSeriesTest {
+
+    @Test
+    void points_whenShort_shouldKeepEveryStep() {
+        MinMaxSeries s = new MinMaxSeries(1, 10);
+        s.append(new int[] {5});
+        s.append(new int[] {7});
+        s.append(new int[] {6});
+        double[][] xy = s.points(0);
+        assertArrayEquals(new double[] {0, 1, 2}, xy[0]);
+        assertArrayEquals(new double[] {5, 7, 6}, xy[1]);
+        assertThrows(IllegalArgumentException.class, () -> s.append(new int[] {1, 2}));
+    }
+
+    @Test
+    void points_whenLong_shouldStayBoundedAndKeepEndsAndExtremes() {
+        MinMaxSeries s = new MinMaxSeries(2, 50);
+        for (int i = 0; i < 100_000; i++) {
+            s.append(new int[] {i == 65_432 ? 1_000 : 10, i == 12_345 ? -5 : 0});
+        }
+        assertEquals(100_000, s.size());
+        for (int c = 0; c < 2; c++) {
+            double[][] xy = s.points(c);
+            assertEquals(50, xy[0].length);
+            assertEquals(0, xy[0][0]);
+            assertEquals(99_999, xy[0][xy[0].length - 1]);
+            for (int i = 1; i < xy[0].length; i++) {
+                assertTrue(xy[0][i] > xy[0][i - 1]);
+            }
+        }
+        double[][] a = s.points(0);
+        double[][] b = s.points(1);
+        assertTrue(contains(a, 65_432, 1_000));
+        assertTrue(contains(b, 12_345, -5));
+    }
+
+    private static boolean contains(double[][] xy, double x, double y) {
+        for (int i = 0; i < xy[0].length; i++) {
+            if (xy[0][i] == x && xy[1][i] == y) { return true; }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunAggregatorTest {
+
+    /**
+     * Runs of two columns and lengths between 5 and 20.
+     */
+    private static List<List<int[]>> runs(int count, long seed) {
+        Random rand = new Random(seed);
+        List<List<int[]>> runs = new ArrayList<>();
+        for (int r = 0; r < count; r++) {
+            List<int[]> run = new ArrayList<>();
+            int length = 5 + rand.nextInt(16);
+            for (int step = 0; step < length; step++) {
+                run.add(new int[] {rand.nextInt(100), step * rand.nextInt(10)});
+            }
+            runs.add(run);
+        }
+        return runs;
+    }
+
+    private static int valueAt(List<int[]> run, int step, int column) {
+        return run.get(Math.min(step, run.size() - 1))[column];
+    }
+
+    @Test
+    void statistics_shouldMatchTwoPass_withShortRunsPadded() {
+        List<List<int[]>> runs = runs(40, 1);
+        RunAggregator agg = new RunAggregator(2);
+        runs.forEach(agg::addRun);
+        assertEquals(40, agg.getRuns());
+        assertEquals(20, agg.getLength());
+        for (int step = 0; step < agg.getLength(); step++) {
+            for (int c = 0; c < 2; c++) {
+                double sum = 0;
+                double min = Double.MAX_VALUE;
+                for (List<int[]> run : runs) {
+                    sum += valueAt(run, step, c);
+                    min = Math.min(min, valueAt(run, step, c));
+                }
+                double mean = sum / runs.size();
+                double squares = 0;
+                for (List<int[]> run : runs) {
+                    squares += Math.pow(valueAt(run, step, c) - mean, 2);
+                }
+                RunningStatistics s = agg.getStatistics(step, c);
+                assertEquals(mean, s.getMean(), 1e-9);
+                assertEquals(squares / (runs.size() - 1), s.getVariance(), 1e-9);
+                assertEquals(min, s.getMin());
+            }
+        }
+    }
+
+    @Test
+    void merge_shouldMatchAddingEveryRunToOne() {
+        List<List<int[]>> runs = runs(30, 2);
+        RunAggregator all = new RunAggregator(2);
+        RunAggregator a = new RunAggregator(2);
+        RunAggregator b = new RunAggregator(2);
+        for (int r = 0; r < runs.size(); r++) {
+            all.addRun(runs.get(r));
+            (r < 10 ? a : b).addRun(runs.get(r));
+        }
+        b.merge(a);
+        assertEquals(all.getRuns(), b.getRuns());
+        assertEquals(all.getLength(), b.getLength());
+        for (int c = 0; c < 2; c++) {
+            assertArrayEquals(all.getMean(c), b.getMean(c), 1e-9);
+            assertArrayEquals(all.getStandardDeviation(c), b.getStandardDeviation(c), 1e-9);
+            assertArrayEquals(all.getMax(c), b.getMax(c), 0);
+        }
+    }
+
+    @Test
+    void digest_shouldEstimateQuantiles() {
+        Random rand = new Random(3);
+        TDigest digest = new TDigest();
+        TDigest half = new TDigest();
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rand.nextGaussian();
+            (i % 2 == 0 ? digest : half).add(values[i]);
+        }
+        digest.merge(half);
+        Arrays.sort(values);
+        assertEquals(values.length, digest.getCount());
+        for (double q : new double[] {0.001, 0.01, 0.25, 0.5, 0.75, 0.99, 0.999}) {
+            int rank = Arrays.binarySearch(values, digest.quantile(q));
+            if (rank < 0) { rank = -rank - 1; }
+            assertEquals(q, (double) rank / values.length, 0.001, "quantile " + q);
+        }
+        assertEquals(values[0], digest.quantile(0));
+        assertEquals(values[values.length - 1], digest.quantile(1));
+    }
+
+    @Test
+    void confidenceInterval_shouldUseStudentsT() {
+        assertEquals(12.706, RunningStatistics.studentT(0.975, 1), 1e-3);
+        assertEquals(4.303, RunningStatistics.studentT(0.975, 2), 1e-3);
+        assertEquals(2.228, RunningStatistics.studentT(0.975, 10), 1e-3);
+        assertEquals(1.960, RunningStatistics.studentT(0.975, 100_000), 1e-3);
+        RunningStatistics s = new RunningStatistics();
+        for (int x : new int[] {2, 4, 4, 4, 5, 5, 7, 9}) {
+            s.add(x);
+        }
+        assertEquals(5, s.getMean(), 1e-12);
+        assertEquals(2.365 * s.getStandardDeviation() / Math.sqrt(8), s.getConfidenceHalfWidth(0.95), 1e-3);
+    }
+}
@@ -0,0 +1,100 @@
+package disease;
+
+import actors.Entity;
+import data.SimConfig;
+import data.SimData;
+import data.SimulationRecord;
+import environment.Field;
+import environment.Location;
+import environment.MobileNetwork;
+import models.ModelType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContinuousTimeEngineTest {
+
+    private static SimConfig config(ModelType type) {
+        SimConfig c = new SimConfig();
+        c.setModelType(type);
+        c.setAgentProbability(0.9);
+        c.setAgentZeroProbability(0.05);
+        c.setWidth(50);
+        return c;
+    }
+
+    private static ContinuousTimeEngine engine(ContinuousTimeEngine.Mode mode) {
+        Field<Entity, Location> net = new MobileNetwork();
+        net.initialise();
+        return new ContinuousTimeEngine(net).setMode(mode);
+    }
+
+    private static int total(int[] row) {
+        int n = 0;
+        for (int c : row) { n += c; }
+        return n;
+    }
+
+    @Test
+    void nextReaction_shouldRunToExtinctionAndConserveAgents() {
+        SimData.runWith(config(ModelType.SIR), () -> {
+            ContinuousTimeEngine e = engine(ContinuousTimeEngine.Mode.NEXT_REACTION);
+            SimulationRecord r = e.run(10_000);
+            assertFalse(e.isViable());
+            List<int[]> rows = r.getCounts();
+            int agents = total(rows.get(0));
+            for (int[] row : rows) {
+                assertEquals(agents, total(row));
+            }
+            assertEquals(0, rows.get(rows.size() - 1)[1]);
+            assertTrue(e.getEventCount() > 0);
+            return null;
+        });
+    }
+
+    @Test
+    void nextReaction_shouldSampleEveryWholeStep() {
+        SimConfig c = config(ModelType.SIR);
+        c.setInfectiousPeriodMax(1000);
+        c.setInfectiousPeriodMin(1000);
+        SimData.runWith(c, () -> {
+            ContinuousTimeEngine e = engine(ContinuousTimeEngine.Mode.NEXT_REACTION);
+            e.run(5);
+            assertEquals(6, e.getRecord().getCounts().size());
+            e.run(8);
+            assertEquals(9, e.getRecord().getCounts().size());
+            return null;
+        });
+    }
+
+    @Test
+    void nextReaction_withSameSeed_shouldBeRepeatable() {
+        int[] a = SimData.runWith(config(ModelType.SEIR), () -> {
+            ContinuousTimeEngine e = engine(ContinuousTimeEngine.Mode.NEXT_REACTION);
+            e.run(10_000);
+            return e.getCounts();
+        });
+        int[] b = SimData.runWith(config(ModelType.SEIR), () -> {
+            ContinuousTimeEngine e = engine(ContinuousTimeEngine.Mode.NEXT_REACTION);
+            e.run(10_000);
+            return e.getCounts();
+        });
+        assertArrayEquals(a, b);
+    }
+
+    @Test
+    void tauLeap_shouldRunToExtinctionAndConserveAgents() {
+        SimData.runWith(config(ModelType.SEIRD), () -> {
+            ContinuousTimeEngine e = engine(ContinuousTimeEngine.Mode.TAU_LEAP).setTau(0.25);
+            SimulationRecord r = e.run(10_000);
+            assertFalse(e.isViable());
+            int agents = total(r.getCounts().get(0));
+            for (int[] row : r.getCounts()) {
+                assertEquals(agents, total(row));
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package disease;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventQueueTest {
+
+    @Test
+    void poll_shouldReturnNodesInTimeOrder() {
+        EventQueue q = new EventQueue(100);
+        Random r = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            q.schedule(i, r.nextDouble());
+        }
+        double last = -1;
+        while (!q.isEmpty()) {
+            double t = q.peekTime();
+            q.poll();
+            assertTrue(t >= last);
+            last = t;
+        }
+    }
+
+    @Test
+    void schedule_whenAlreadyScheduled_shouldMoveEvent() {
+        EventQueue q = new EventQueue(3);
+        q.schedule(0, 1.0);
+        q.schedule(1, 2.0);
+        q.schedule(2, 3.0);
+        q.schedule(2, 0.5);
+        assertEquals(2, q.peek());
+        q.schedule(2, 4.0);
+        assertEquals(0, q.peek());
+        assertEquals(3, q.size());
+    }
+
+    @Test
+    void cancel_shouldRemoveOnlyThatNode() {
+        EventQueue q = new EventQueue(3);
+        q.schedule(0, 1.0);
+        q.schedule(1, 2.0);
+        q.schedule(2, 3.0);
+        q.cancel(0);
+        assertFalse(q.contains(0));
+        assertEquals(Double.POSITIVE_INFINITY, q.timeOf(0));
+        assertEquals(1, q.poll());
+        assertEquals(2, q.poll());
+        assertTrue(q.isEmpty());
+    }
+}
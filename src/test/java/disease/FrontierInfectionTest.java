@@ -0,0 +1,64 @@
+package disease;
+
+import actors.Agent;
+import data.SimConfig;
+import data.SimData;
+import environment.FieldType;
+import environment.Grid;
+import main.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrontierInfectionTest {
+
+    private List<String[]> run(InfectionEngine engine) {
+        SimConfig config = new SimConfig();
+        config.setWidth(25);
+        config.setDepth(25);
+        config.setAgentProbability(0.5);
+        config.setAgentZeroProbability(0.02);
+        config.setInfectivity(0.4);
+        config.setSeed(7);
+        return SimData.runWith(config, () -> {
+            Simulator sim = new Simulator.SimulationBuilder()
+                    .setDepth(config.getDepth())
+                    .setWidth(config.getWidth())
+                    .setField(FieldType.GRID)
+                    .setInfectionEngine(engine)
+                    .setHeadless(true)
+                    .build();
+            sim.simulate(40);
+            return sim.getRecord().getData();
+        });
+    }
+
+    @Test
+    void frontier_shouldMatchSerialInfection_forTheSameSeed() {
+        List<String[]> serial = run(new SerialInfection());
+        List<String[]> frontier = run(new FrontierInfection());
+        assertEquals(serial.size(), frontier.size());
+        for (int step = 0; step < serial.size(); step++) {
+            assertArrayEquals(serial.get(step), frontier.get(step));
+        }
+    }
+
+    @Test
+    void frontier_shouldTrackInfectedAgents() {
+        SimConfig config = new SimConfig();
+        config.setAgentProbability(0.3);
+        config.setAgentZeroProbability(0.05);
+        SimData.runWith(config, () -> {
+            Grid g = new Grid(10, 10);
+            g.initialise();
+            List<Agent> agents = g.getAllOf(Agent.class);
+            FrontierInfection engine = new FrontierInfection();
+            engine.getNewlyInfected(agents, g);
+            long infected = agents.stream().filter(DiseaseSpreadController::isInfected).count();
+            assertEquals(infected, engine.getInfectedCount());
+            return null;
+        });
+    }
+}
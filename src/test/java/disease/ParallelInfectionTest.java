@@ -0,0 +1,84 @@
+package disease;
+
+import actors.Agent;
+import data.SimConfig;
+import data.SimData;
+import environment.Grid;
+import environment.Location;
+import models.Infected;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelInfectionTest {
+
+    Grid g;
+    SimConfig config;
+
+    @BeforeEach
+    void setup() {
+        config = new SimConfig();
+        config.setInfectivity(0.3);
+        g = new Grid(60, 60);
+        SimData.runWith(config, () -> {
+            for (int row = 0; row < g.getDepth(); row++) {
+                for (int col = 0; col < g.getWidth(); col++) {
+                    Location loc = new Location(row, col);
+                    Agent ag = new Agent(loc);
+                    if ((row * 7 + col * 3) % 11 == 0) {
+                        ag.setStatus(new Infected());
+                    }
+                    g.place(loc, ag);
+                }
+            }
+            return null;
+        });
+    }
+
+    private List<Agent> infect(int threads) {
+        SimConfig run = config.copy();
+        try (ParallelInfection engine = new ParallelInfection(threads)) {
+            return SimData.runWith(run, () -> engine.getNewlyInfected(g.getAllOf(Agent.class), g));
+        }
+    }
+
+    @Test
+    void getNewlyInfected_shouldNotDependOnThreadCount() {
+        List<Agent> one = infect(1);
+        List<Agent> many = infect(4);
+        assertFalse(one.isEmpty());
+        assertEquals(one, many);
+    }
+
+    @Test
+    void getNewlyInfected_shouldOnlyInfectContacts() {
+        List<Agent> contacts = DiseaseSpreadController.getInfectedContacts(g.getAllOf(Agent.class), g);
+        for (Agent ag : infect(2)) {
+            assertTrue(contacts.contains(ag));
+        }
+    }
+
+    @Test
+    void getNewlyInfected_whenCertain_shouldInfectAllContacts() {
+        config.setInfectivity(1.0);
+        List<Agent> contacts = DiseaseSpreadController.getInfectedContacts(g.getAllOf(Agent.class), g);
+        assertEquals(contacts, infect(3));
+    }
+
+    @Test
+    void getNewlyInfected_shouldAcceptNoAgents() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ParallelInfection engine = new ParallelInfection(pool);
+            assertTrue(SimData.runWith(config.copy(), () -> engine.getNewlyInfected(List.of(), g)).isEmpty());
+            engine.close();
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
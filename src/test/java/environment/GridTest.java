@@ -5,7 +5,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -146,4 +148,94 @@ public class GridTest {
         g.deregisterZone(zone);
         assertEquals(0, g.getZone().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void deregisterZoneAround_shouldKeepCellsOfOverlappingZones() {
+        g.registerZoneAround(new Location(1, 1));
+        g.registerZoneAround(new Location(1, 2));
+        assertEquals(12, g.getZone().size());
+        g.deregisterZoneAround(new Location(1, 1));
+        assertEquals(9, g.getZone().size());
+        assertTrue(g.isInZone(new Location(1, 1)));
+        assertTrue(g.isInZone(1, 3));
+        assertFalse(g.isInZone(new Location(1, 0)));
+        g.deregisterZoneAround(new Location(1, 2));
+        assertTrue(g.getZone().isEmpty());
+    }
+
+    @Test
+    void getAllAdjacentLocations_shouldWrapAroundEdges() {
+        List<Location> adj = g.getAllAdjacentLocations(new Location(0, 0));
+        assertTrue(adj.contains(new Location(4, 4)));
+        assertTrue(adj.contains(new Location(0, 4)));
+        assertTrue(adj.contains(new Location(4, 1)));
+        assertTrue(adj.contains(new Location(1, 1)));
+    }
+
+    @Test
+    void freeAdjacentLocation_shouldBeFreeAndAdjacent() {
+        g.place(l, new Agent(l));
+        for (int i = 0; i < 20; i++) {
+            Location to = g.freeAdjacentLocation(l);
+            assertNotNull(to);
+            assertNull(g.getObjectAt(to));
+            assertTrue(g.getAllAdjacentLocations(l).contains(to));
+        }
+    }
+
+    @Test
+    void freeAdjacentLocation_shouldBeNull_whenFieldIsFull() {
+        fillGrid();
+        assertNull(g.freeAdjacentLocation(l));
+    }
+
+    @Test
+    void isNeighbourTo_shouldIgnoreTheLocationItself() {
+        g.place(l, new Agent(l));
+        assertFalse(g.isNeighbourTo(l, Agent.class));
+        Location next = new Location(x, y + 1);
+        g.place(next, new Agent(next));
+        assertTrue(g.isNeighbourTo(l, Agent.class));
+    }
+
+    @Test
+    void isInZone_shouldFollowRegisteredZones() {
+        Set<Location> zone = new HashSet<>(g.getAllAdjacentLocations(l));
+        g.registerZone(zone);
+        assertTrue(g.isInZone(x + 1, y));
+        assertFalse(g.isInZone(0, 0));
+        g.deregisterZone(zone);
+        assertFalse(g.isInZone(x + 1, y));
+    }
+
+    @Test
+    void leastCrowdedFreeAdjacentLocation_shouldFollowPlacesAndClears() {
+        g.place(new Location(0, 0), new Agent(new Location(0, 0)));
+        g.place(new Location(1, 1), new Agent(new Location(1, 1)));
+        g.place(new Location(2, 3), new Agent(new Location(2, 3)));
+        g.place(l, new Agent(l));
+        g.clearLocation(new Location(1, 1));
+        g.place(new Location(4, 4), new Agent(new Location(4, 4)));
+        for (int row = 0; row < depth; row++) {
+            for (int col = 0; col < width; col++) {
+                Location at = new Location(row, col);
+                assertEquals(g.getAllNeighbours(at, Agent.class).size(), g.getCrowding(row, col));
+            }
+        }
+        List<Location> free = g.getAllFreeAdjacentLocations(l);
+        free.sort(Comparator.comparingInt(loc -> g.getAllNeighbours(loc, Agent.class).size()));
+        assertEquals(free.get(0), g.leastCrowdedFreeAdjacentLocation(l, false));
+
+        g.registerZoneAround(new Location(2, 3));
+        Location outside = g.leastCrowdedFreeAdjacentLocation(l, true);
+        assertFalse(g.isInZone(outside));
+        for (Location loc : free) {
+            if (!g.isInZone(loc)) {
+                assertEquals(loc, outside);
+                break;
+            }
+        }
+        g.clearAll();
+        assertEquals(0, g.getCrowding(x, y + 1));
+    }
+}
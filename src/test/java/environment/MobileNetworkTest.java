@@ -0,0 +1,95 @@
+package environment;
+
+import actors.Agent;
+import data.SimConfig;
+import data.SimData;
+import graphs.CsrGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MobileNetworkTest {
+
+    MobileNetwork net;
+
+    @BeforeEach
+    void setup() {
+        SimConfig c = new SimConfig();
+        c.setAgentProbability(0.5);
+        net = SimData.runWith(c, () -> {
+            MobileNetwork n = new MobileNetwork();
+            n.initialise();
+            return n;
+        });
+    }
+
+    @Test
+    void initialise_shouldNumberNodesByRow() {
+        assertTrue(net.getNodeCount() > 0);
+        for (int i = 0; i < net.getNodeCount(); i++) {
+            assertEquals(i, net.nodeOf(net.getNode(i)));
+        }
+        assertEquals(-1, net.nodeOf(new Location(0, 1)));
+    }
+
+    @Test
+    void getAllAdjacentLocations_shouldFollowTopology() {
+        CsrGraph g = net.getTopology();
+        for (int i = 0; i < net.getNodeCount(); i++) {
+            List<Location> adjs = net.getAllAdjacentLocations(net.getNode(i));
+            assertEquals(g.degree(i), adjs.size());
+            for (Location l : adjs) {
+                assertTrue(g.hasEdge(i, net.nodeOf(l)));
+            }
+        }
+    }
+
+    @Test
+    void deregisterZoneAround_shouldShrinkTheZone() {
+        CsrGraph g = net.getTopology();
+        Location l = net.getNode(0);
+        net.registerZoneAround(l);
+        assertEquals(g.degree(0), net.getZone().size());
+        assertTrue(net.isInZone(net.getNode(g.target(g.begin(0)))));
+        assertFalse(net.isInZone(l));
+        net.deregisterZoneAround(l);
+        assertTrue(net.getZone().isEmpty());
+    }
+
+    @Test
+    void placeAndClear_shouldUpdateOccupancyAndCounts() {
+        Location l = net.getNode(0);
+        net.clearLocation(l);
+        int before = net.getAgentStore().getAgentCount();
+        Agent ag = new Agent(l);
+        net.place(l, ag);
+        assertSame(ag, net.getObjectAt(l));
+        assertEquals(before + 1, net.getAgentStore().getAgentCount());
+        net.clearLocation(l);
+        assertNull(net.getObjectAt(l));
+        assertEquals(before, net.getAgentStore().getAgentCount());
+    }
+
+    @Test
+    void freeAdjacentLocation_shouldBeFreeAndAdjacent() {
+        for (int i = 0; i < net.getNodeCount(); i++) {
+            Location free = net.freeAdjacentLocation(net.getNode(i));
+            if (free != null) {
+                assertNull(net.getObjectAt(free));
+                assertTrue(net.getTopology().hasEdge(i, net.nodeOf(free)));
+            }
+            else {
+                assertTrue(net.getAllFreeAdjacentLocations(net.getNode(i)).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void getGraph_shouldMatchTopology() {
+        assertEquals(net.getNodeCount(), net.getGraph().getVertexCount());
+        assertEquals(net.getTopology().edgeCount(), net.getGraph().getEdgeCount());
+    }
+}
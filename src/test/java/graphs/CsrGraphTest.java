@@ -0,0 +1,55 @@
+package graphs;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsrGraphTest {
+
+    @Test
+    void build_shouldStoreEachEdgeInBothDirections() {
+        CsrGraph g = new CsrGraph.Builder(4)
+                .addEdge(0, 1)
+                .addEdge(2, 1)
+                .addEdge(3, 0)
+                .build();
+        assertEquals(3, g.edgeCount());
+        assertEquals(2, g.degree(0));
+        assertEquals(2, g.degree(1));
+        assertTrue(g.hasEdge(1, 2));
+        assertTrue(g.hasEdge(2, 1));
+        assertFalse(g.hasEdge(2, 3));
+    }
+
+    @Test
+    void build_shouldDropSelfLoopsAndRepeatedEdges() {
+        CsrGraph g = new CsrGraph.Builder(3)
+                .addEdge(0, 0)
+                .addEdge(0, 1)
+                .addEdge(1, 0)
+                .addEdge(0, 1)
+                .build();
+        assertEquals(1, g.edgeCount());
+        assertEquals(1, g.degree(0));
+        assertEquals(0, g.degree(2));
+    }
+
+    @Test
+    void neighbours_shouldBeInAscendingOrder() {
+        CsrGraph g = new CsrGraph.Builder(5)
+                .addEdge(0, 4)
+                .addEdge(0, 2)
+                .addEdge(0, 3)
+                .build();
+        int last = -1;
+        for (int k = g.begin(0); k < g.end(0); k++) {
+            assertTrue(g.target(k) > last);
+            last = g.target(k);
+        }
+    }
+
+    @Test
+    void addEdge_outsideGraph_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new CsrGraph.Builder(2).addEdge(0, 2));
+    }
+}
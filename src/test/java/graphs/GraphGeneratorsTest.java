@@ -0,0 +1,90 @@
+package graphs;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphGeneratorsTest {
+
+    private static void assertSameGraph(CsrGraph a, CsrGraph b) {
+        assertEquals(a.nodeCount(), b.nodeCount());
+        assertEquals(a.edgeCount(), b.edgeCount());
+        for (int v = 0; v < a.nodeCount(); v++) {
+            assertEquals(a.degree(v), b.degree(v));
+            for (int k = 0; k < a.degree(v); k++) {
+                assertEquals(a.target(a.begin(v) + k), b.target(b.begin(v) + k));
+            }
+        }
+    }
+
+    @Test
+    void barabasiAlbert_shouldGiveEveryNodeAtLeastMEdges() {
+        CsrGraph g = GraphGenerators.barabasiAlbert(1000, 3, 42);
+        assertEquals(1000, g.nodeCount());
+        assertEquals(6 + 996 * 3, g.edgeCount());
+        for (int v = 0; v < g.nodeCount(); v++) {
+            assertTrue(g.degree(v) >= 3);
+        }
+        assertSameGraph(g, GraphGenerators.barabasiAlbert(1000, 3, 42));
+    }
+
+    @Test
+    void wattsStrogatz_withoutRewiring_shouldBeARing() {
+        CsrGraph g = GraphGenerators.wattsStrogatz(100, 4, 0, 1, 1);
+        for (int v = 0; v < 100; v++) {
+            assertEquals(4, g.degree(v));
+            assertTrue(g.hasEdge(v, (v + 1) % 100));
+            assertTrue(g.hasEdge(v, (v + 2) % 100));
+        }
+    }
+
+    @Test
+    void wattsStrogatz_inParallel_shouldMatchSerial() {
+        int n = 50_000;
+        assertSameGraph(GraphGenerators.wattsStrogatz(n, 6, 0.1, 7, 1),
+                GraphGenerators.wattsStrogatz(n, 6, 0.1, 7, 4));
+    }
+
+    @Test
+    void erdosRenyi_shouldHaveAboutTheExpectedNumberOfEdges() {
+        int n = 20_000;
+        double p = 10.0 / (n - 1);
+        CsrGraph g = GraphGenerators.erdosRenyi(n, p, 3, 4);
+        double expected = p * n * (n - 1) / 2;
+        assertEquals(expected, g.edgeCount(), 5 * Math.sqrt(expected));
+        assertSameGraph(g, GraphGenerators.erdosRenyi(n, p, 3, 1));
+    }
+
+    @Test
+    void erdosRenyi_withCertainEdges_shouldBeComplete() {
+        CsrGraph g = GraphGenerators.erdosRenyi(20, 1.0, 3, 1);
+        assertEquals(20 * 19 / 2, g.edgeCount());
+    }
+
+    @Test
+    void kleinberg_shouldKeepTheLattice() {
+        int side = 20;
+        CsrGraph g = GraphGenerators.kleinberg(side, 2.0, 5, 2);
+        assertEquals(side * side, g.nodeCount());
+        for (int v = 0; v < g.nodeCount(); v++) {
+            int row = v / side;
+            int col = v % side;
+            assertTrue(g.hasEdge(v, row * side + (col + 1) % side));
+            assertTrue(g.hasEdge(v, ((row + side - 1) % side) * side + col));
+        }
+    }
+
+    @Test
+    void configurationModel_shouldNotExceedRequestedDegrees() {
+        int[] degrees = new int[1000];
+        for (int i = 0; i < degrees.length; i++) {
+            degrees[i] = 1 + i % 5;
+        }
+        CsrGraph g = GraphGenerators.configurationModel(degrees, 9);
+        for (int v = 0; v < degrees.length; v++) {
+            assertTrue(g.degree(v) <= degrees[v]);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> GraphGenerators.configurationModel(new int[] {1, 2}, 9));
+    }
+}
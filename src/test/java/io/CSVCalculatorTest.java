@@ -0,0 +1,94 @@
+package io;
+
+import data.SimConfig;
+import data.SimData;
+import environment.FieldType;
+import main.Simulator;
+import models.ModelType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSVCalculatorTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Run a small SIR simulation and save it the way Simulator.saveData
+     * does, so the run starts with the full record's header rows.
+     * @return the counts the simulation recorded
+     */
+    private List<int[]> saveRun(int seed, String name) {
+        SimConfig c = new SimConfig();
+        c.setSeed(seed);
+        c.setDepth(20);
+        c.setWidth(20);
+        c.setAgentProbability(0.5);
+        c.setAgentZeroProbability(0.05);
+        c.setModelType(ModelType.SIR);
+        c.setFieldType(FieldType.GRID);
+        return SimData.runWith(c, () -> {
+            Simulator sim = new Simulator.SimulationBuilder()
+                    .setDepth(20)
+                    .setWidth(20)
+                    .setField(FieldType.GRID)
+                    .setHeadless(true)
+                    .build();
+            sim.simulate(20);
+            sim.saveData(dir.resolve(name).toString());
+            return new ArrayList<>(sim.getRecord().getCounts());
+        });
+    }
+
+    private static String tenths(double x) {
+        return String.format(Locale.ROOT, "%.1f", x);
+    }
+
+    @Test
+    void computeAverage_shouldSkipTheHeadersOfASavedRecord() throws IOException {
+        List<int[]> a = saveRun(1, "a");
+        List<int[]> b = saveRun(2, "b");
+        CSVCalculator calc = new CSVCalculator(3);
+        calc.addRelation(CSVReader.readCSV(dir.resolve("a.csv").toString()));
+        calc.addRelation(CSVReader.readCSV(dir.resolve("b.csv").toString()));
+        List<List<String>> average = calc.computeAverage();
+        assertEquals(Math.max(a.size(), b.size()), average.size());
+        for (int step = 0; step < average.size(); step++) {
+            int[] ra = a.get(Math.min(step, a.size() - 1));
+            int[] rb = b.get(Math.min(step, b.size() - 1));
+            for (int k = 0; k < 3; k++) {
+                assertEquals(tenths((ra[k] + rb[k]) / 2.0), average.get(step).get(k));
+            }
+        }
+        assertEquals(2, calc.getAggregator().getRuns());
+    }
+
+    @Test
+    void computeAverage_shouldSkipAGivenNumberOfHeaderRowsAndPadShortRuns() {
+        List<List<String>> shorter = new ArrayList<>();
+        shorter.add(List.of("1", "2", "3"));
+        shorter.add(List.of("10", "2", "0"));
+        shorter.add(List.of("10", "4", "0"));
+        List<List<String>> longer = new ArrayList<>();
+        longer.add(List.of("5", "6", "7"));
+        longer.add(List.of("10", "1", "0"));
+        longer.add(List.of("10", "2", "0"));
+        longer.add(List.of("10", "3", "0"));
+        CSVCalculator calc = new CSVCalculator(3, 1);
+        calc.addRelation(longer);
+        calc.addRelation(shorter);
+        List<List<String>> average = calc.computeAverage();
+        assertEquals(3, average.size());
+        assertEquals(List.of("10.0", "1.5", "0.0"), average.get(0));
+        assertEquals(List.of("10.0", "3.0", "0.0"), average.get(1));
+        assertEquals(List.of("10.0", "3.5", "0.0"), average.get(2));
+    }
+}
@@ -0,0 +1,87 @@
+package io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedCSVReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String text) throws IOException {
+        Path file = dir.resolve("data.csv");
+        Files.writeString(file, text);
+        return file;
+    }
+
+    @Test
+    void read_shouldSplitHeadersFromCounts() throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        lines.add(new String[] {"Seed", "Model", "Note"});
+        lines.add(new String[] {"999", "SIR", "a, \"quoted\" note"});
+        lines.add(new String[] {"Susceptible", "Infected", "Recovered"});
+        for (int step = 0; step < 50; step++) {
+            lines.add(new String[] {String.valueOf(100 - step), String.valueOf(step), "0"});
+        }
+        CSVWriter.writeCSV(lines, dir.resolve("record").toString());
+        CSVTable table = MappedCSVReader.read(dir.resolve("record.csv"));
+        assertEquals(3, table.getHeaders().size());
+        assertArrayEquals(lines.get(1), table.getHeaders().get(1));
+        assertEquals(50, table.getRowCount());
+        assertEquals(3, table.getColumnCount());
+        assertTrue(table.isIntColumn(1));
+        assertEquals(49, table.getInts(1)[49]);
+        assertEquals(51, table.getInts(0)[49]);
+    }
+
+    @Test
+    void read_shouldParseQuotedCellsAndDoubles() throws IOException {
+        CSVTable table = MappedCSVReader.read(write(
+                "a,b,c\r\n\"1\",0.5,-3\r\n2, 7 ,1.25e-3\r\n-4,12345678901,\"6.02E23\"\r\n"));
+        assertEquals(3, table.getRowCount());
+        assertArrayEquals(new int[] {1, 2, -4}, table.getInts(0));
+        assertFalse(table.isIntColumn(1));
+        assertArrayEquals(new double[] {0.5, 7, 12345678901.0}, table.getDoubles(1));
+        assertArrayEquals(new double[] {-3, 0.00125, 6.02e23}, table.getDoubles(2));
+    }
+
+    @Test
+    void read_shouldGiveTheSameTable_whateverTheParallelism() throws IOException {
+        StringBuilder sb = new StringBuilder("Step,Half,Negative\n");
+        for (int i = 0; i < 300_000; i++) {
+            sb.append(i).append(',').append(i * 0.5).append(',').append(-i).append('\n');
+        }
+        Path file = write(sb.toString());
+        CSVTable serial = MappedCSVReader.read(file, MappedCSVReader.DETECT_HEADERS, 1);
+        CSVTable parallel = MappedCSVReader.read(file, MappedCSVReader.DETECT_HEADERS, 4);
+        assertEquals(300_000, parallel.getRowCount());
+        for (int c = 0; c < 3; c++) {
+            assertArrayEquals(serial.getDoubles(c), parallel.getDoubles(c));
+        }
+        assertEquals(299_999, parallel.getInts(0)[299_999]);
+        assertEquals(149_999.5, parallel.getDoubles(1)[299_999]);
+    }
+
+    @Test
+    void read_shouldRejectBadRows() throws IOException {
+        assertThrows(IOException.class, () -> MappedCSVReader.read(write("a,b\n1,2\n3,x\n")));
+        assertThrows(IOException.class, () -> MappedCSVReader.read(write("a,b\n1,2\n3\n")));
+    }
+
+    @Test
+    void readCSV_shouldUndoQuoting() throws IOException {
+        Path file = write("name,note\nx,\"one, two\"\ny,\"say \"\"hi\"\"\"\n");
+        List<List<String>> rows = CSVReader.readCSV(file.toString());
+        assertEquals(3, rows.size());
+        assertEquals(List.of("x", "one, two"), rows.get(1));
+        assertEquals(List.of("y", "say \"hi\""), rows.get(2));
+    }
+}
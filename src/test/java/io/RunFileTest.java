@@ -0,0 +1,89 @@
+package io;
+
+import data.SimConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunFileTest {
+
+    @TempDir
+    Path dir;
+
+    private static final String[] COLUMNS = {"Susceptible", "Infected", "Recovered"};
+
+    private Path write(String name, List<int[]> rows) throws IOException {
+        Path file = dir.resolve(name);
+        RunFileWriter.write(file, Map.of("Seed", "7"), COLUMNS, rows);
+        return file;
+    }
+
+    @Test
+    void open_shouldReadBackWhatWasWritten() throws IOException {
+        SimConfig config = new SimConfig();
+        Path file = dir.resolve("run.run");
+        RunFileWriter.write(file, config.getParameters(), COLUMNS,
+                List.of(new int[] {9, 1, 0}, new int[] {7, 2, 1}, new int[] {6, 0, 4}));
+        RunFile run = RunFile.open(file);
+        assertEquals(config.getParameters(), run.getParameters());
+        assertArrayEquals(COLUMNS, run.getColumnNames());
+        assertEquals(3, run.getSteps());
+        assertEquals(2, run.get(1, 1));
+        assertEquals(1, run.columnOf("Infected"));
+        IntBuffer recovered = run.getColumn(2);
+        assertEquals(3, recovered.remaining());
+        assertEquals(4, recovered.get(2));
+    }
+
+    @Test
+    void open_whenNotARunFile_shouldThrow() throws IOException {
+        Path file = dir.resolve("bad.run");
+        Files.writeString(file, "Susceptible,Infected\n9,1\n");
+        assertThrows(IOException.class, () -> RunFile.open(file));
+    }
+
+    @Test
+    void toCsv_shouldUseRecordLayout() throws IOException {
+        Path file = write("run.run", List.of(new int[] {9, 1, 0}, new int[] {8, 1, 1}));
+        Path csv = dir.resolve("run.csv");
+        RunFile.open(file).toCsv(csv);
+        assertEquals(List.of("Seed", "7", "Susceptible,Infected,Recovered", "9,1,0", "8,1,1"),
+                Files.readAllLines(csv));
+    }
+
+    @Test
+    void summarise_shouldPadShorterRunsWithTheirLastRow() throws IOException {
+        Path a = write("a.run", List.of(new int[] {9, 1, 0}, new int[] {8, 2, 0}, new int[] {8, 0, 2}));
+        Path b = write("b.run", List.of(new int[] {9, 1, 0}, new int[] {9, 0, 1}));
+        RunFiles summary = RunFiles.summarise(List.of(a, b), "Infected");
+        assertEquals(2, summary.getRuns());
+        assertArrayEquals(new double[] {1, 1, 0}, summary.getMean());
+        assertArrayEquals(new int[] {1, 0, 0}, summary.getMin());
+        assertArrayEquals(new int[] {1, 2, 0}, summary.getMax());
+    }
+
+    @Test
+    void summarise_whenALongerRunComesLater_shouldPadTheEarlierOnes() throws IOException {
+        Path a = write("a.run", List.of(new int[] {9, 1, 0}, new int[] {8, 2, 0}, new int[] {8, 0, 2}));
+        Path b = write("b.run", List.of(new int[] {9, 1, 0}, new int[] {9, 0, 1}));
+        RunFiles summary = RunFiles.summarise(List.of(b, a), "Infected");
+        assertArrayEquals(new double[] {1, 1, 0}, summary.getMean());
+        assertArrayEquals(new int[] {1, 0, 0}, summary.getMin());
+        assertArrayEquals(new int[] {1, 2, 0}, summary.getMax());
+    }
+
+    @Test
+    void summarise_whenARunHasNoSteps_shouldThrow() throws IOException {
+        Path a = write("a.run", List.of(new int[] {9, 1, 0}));
+        Path empty = write("empty.run", List.of());
+        assertThrows(IOException.class, () -> RunFiles.summarise(List.of(a, empty), "Infected"));
+    }
+}
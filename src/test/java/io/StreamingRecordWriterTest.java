@@ -0,0 +1,63 @@
+package io;
+
+import data.SimulationRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingRecordWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void close_shouldWriteEveryRowInOrder() throws IOException {
+        Path file = dir.resolve("run.csv");
+        try (StreamingRecordWriter w = new StreamingRecordWriter(file, 4)) {
+            w.writeHeader(new String[] {"Susceptible", "Infected", "Recovered"});
+            for (int i = 0; i < 1000; i++) {
+                w.writeRow(new int[] {i, -i, Integer.MAX_VALUE});
+            }
+        }
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1001, lines.size());
+        assertEquals("Susceptible,Infected,Recovered", lines.get(0));
+        assertEquals("999,-999,2147483647", lines.get(1000));
+    }
+
+    @Test
+    void writeHeader_shouldEscapeCells() throws IOException {
+        Path file = dir.resolve("escaped.csv");
+        try (StreamingRecordWriter w = new StreamingRecordWriter(file)) {
+            w.writeHeader(new String[] {"a,b", "say \"hi\"", "two\r\nlines"});
+        }
+        assertEquals("\"a,b\",\"say \"\"hi\"\"\",two lines", Files.readAllLines(file).get(0));
+    }
+
+    @Test
+    void writeRow_afterClose_shouldThrow() throws IOException {
+        StreamingRecordWriter w = new StreamingRecordWriter(dir.resolve("closed.csv"));
+        w.close();
+        assertThrows(IOException.class, () -> w.writeRow(new int[] {1}));
+    }
+
+    @Test
+    void record_whenNotRetained_shouldStreamWithoutKeepingRows() throws IOException {
+        Path file = dir.resolve("record.csv");
+        SimulationRecord r = new SimulationRecord();
+        r.addHeader(new String[] {"Susceptible", "Infected"});
+        r.addRecord(new int[] {9, 1});
+        r.streamTo(new StreamingRecordWriter(file), false);
+        r.addRecord(new int[] {8, 2});
+        assertEquals(2, r.size());
+        assertTrue(r.getCounts().isEmpty());
+        r.closeStream();
+        assertEquals(List.of("Susceptible,Infected", "9,1", "8,2"), Files.readAllLines(file));
+    }
+}
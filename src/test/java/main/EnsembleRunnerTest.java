@@ -0,0 +1,67 @@
+package main;
+
+import data.EnsembleResult;
+import data.SimConfig;
+import data.SimulationRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnsembleRunnerTest {
+
+    SimConfig scenario;
+
+    @BeforeEach
+    void setup() {
+        scenario = new SimConfig();
+        scenario.setWidth(15);
+        scenario.setDepth(15);
+        scenario.setAgentProbability(0.4);
+        scenario.setAgentZeroProbability(0.05);
+        scenario.setSeed(42);
+    }
+
+    private EnsembleResult run(int parallelism) {
+        return new EnsembleRunner.EnsembleBuilder()
+                .setScenario(scenario)
+                .setRuns(6)
+                .setSteps(30)
+                .setParallelism(parallelism)
+                .build()
+                .run();
+    }
+
+    @Test
+    void run_shouldReturnOneRecordPerRun() {
+        assertEquals(6, run(2).size());
+    }
+
+    @Test
+    void run_shouldGiveSameRecords_whateverTheParallelism() {
+        List<SimulationRecord> serial = run(1).getRecords();
+        List<SimulationRecord> parallel = run(4).getRecords();
+        for (int i = 0; i < serial.size(); i++) {
+            List<String[]> a = serial.get(i).getData();
+            List<String[]> b = parallel.get(i).getData();
+            assertEquals(a.size(), b.size());
+            for (int step = 0; step < a.size(); step++) {
+                assertArrayEquals(a.get(step), b.get(step));
+            }
+        }
+    }
+
+    @Test
+    void percentiles_shouldBracketTheMean() {
+        EnsembleResult result = run(2);
+        double[] mean = result.getMean(1);
+        double[] low = result.getPercentile(1, 0);
+        double[] high = result.getPercentile(1, 100);
+        assertEquals(result.getLength(), mean.length);
+        for (int step = 0; step < mean.length; step++) {
+            assertTrue(low[step] <= mean[step] && mean[step] <= high[step]);
+        }
+    }
+}
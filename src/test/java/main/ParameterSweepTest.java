@@ -0,0 +1,104 @@
+package main;
+
+import data.SimConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParameterSweepTest {
+
+    @TempDir
+    Path dir;
+
+    SimConfig scenario;
+
+    @BeforeEach
+    void setup() {
+        scenario = new SimConfig();
+        scenario.setWidth(15);
+        scenario.setDepth(15);
+        scenario.setAgentProbability(0.4);
+        scenario.setAgentZeroProbability(0.05);
+        scenario.setSeed(42);
+    }
+
+    private ParameterSweep.SweepBuilder builder() {
+        return new ParameterSweep.SweepBuilder()
+                .setScenario(scenario)
+                .addDimension(SweepDimension.range(SweepParameter.INFECTIVITY, 0.2, 0.6, 3))
+                .addDimension(SweepDimension.levels(SweepParameter.MASKING, "false", "true"))
+                .setReplicates(3)
+                .setSteps(20);
+    }
+
+    @Test
+    void cartesian_shouldVaryTheLastDimensionFastest() {
+        List<String[]> points = builder().build().getPoints();
+        assertEquals(6, points.size());
+        assertArrayEquals(new String[] {"0.2", "false"}, points.get(0));
+        assertArrayEquals(new String[] {"0.2", "true"}, points.get(1));
+        assertArrayEquals(new String[] {"0.6", "true"}, points.get(5));
+    }
+
+    @Test
+    void latinHypercube_shouldUseEveryStratumOnce() {
+        int samples = 8;
+        List<String[]> points = builder()
+                .setDesign(ParameterSweep.Design.LATIN_HYPERCUBE)
+                .setSamples(samples)
+                .build()
+                .getPoints();
+        assertEquals(samples, points.size());
+        boolean[] used = new boolean[samples];
+        int masked = 0;
+        for (String[] point : points) {
+            int stratum = (int) ((Double.parseDouble(point[0]) - 0.2) / 0.4 * samples);
+            assertFalse(used[stratum]);
+            used[stratum] = true;
+            if (point[1].equals("true")) { masked++; }
+        }
+        assertEquals(samples / 2, masked);
+    }
+
+    @Test
+    void build_shouldRejectABadValue() {
+        ParameterSweep.SweepBuilder b = builder()
+                .addDimension(SweepDimension.levels(SweepParameter.MASK_COMPLIANCE, "0.5", "2"));
+        assertThrows(IllegalArgumentException.class, b::build);
+    }
+
+    @Test
+    void run_shouldWriteOneRowPerPoint_whateverTheParallelism() throws IOException {
+        Path file = dir.resolve("sweep.csv");
+        List<String[]> serial = builder().setParallelism(1).build().run();
+        List<String[]> parallel = builder().setParallelism(4).setOutput(file).build().run();
+        assertEquals(6, serial.size());
+        for (int p = 0; p < serial.size(); p++) {
+            assertEquals(String.valueOf(p), serial.get(p)[0]);
+            assertArrayEquals(serial.get(p), parallel.get(p));
+        }
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(7, lines.size());
+        assertTrue(lines.get(0).startsWith("Point,Infectiousness,Mask Mandate,Runs,"));
+        assertEquals(String.join(",", parallel.get(5)), lines.get(6));
+    }
+
+    @Test
+    void parse_shouldReadRangesAndLevels() {
+        SweepDimension range = SweepDimension.parse("mask-compliance=0:1:5");
+        assertEquals(5, range.levelCount());
+        assertEquals("0.25", range.level(1));
+        SweepDimension levels = SweepDimension.parse("network-type=SMALLWORLD,FREESCALE");
+        assertEquals(SweepParameter.NETWORK_TYPE, levels.getParameter());
+        assertEquals(Arrays.asList("SMALLWORLD", "FREESCALE"),
+                Arrays.asList(levels.level(0), levels.level(1)));
+    }
+}
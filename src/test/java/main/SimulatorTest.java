@@ -0,0 +1,120 @@
+package main;
+
+import data.SimData;
+import environment.FieldType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import metrics.Phase;
+import metrics.SimulationMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatorTest {
+
+    Simulator sim;
+
+    @BeforeEach
+    void setup() {
+        SimData.setAgentProbability(0.3);
+        SimData.setAgentZeroProbability(0.05);
+        SimData.setInfectivity(0.33);
+        sim = new Simulator.SimulationBuilder()
+                .setDepth(20)
+                .setWidth(20)
+                .setField(FieldType.GRID)
+                .setHeadless(true)
+                .build();
+    }
+
+    @Test
+    void build_whenHeadless_shouldHaveNoDisplay() {
+        assertTrue(sim.isHeadless());
+        assertEquals(0, sim.getStep());
+    }
+
+    @Test
+    void simulate_whenHeadless_shouldRecordEveryStep() {
+        sim.simulate(5);
+        assertEquals(sim.getStep() + 1, sim.getRecord().getData().size());
+    }
+
+    @Test
+    void simulate_whenHeadless_shouldRunUntilNoInfected() {
+        sim.simulate();
+        assertFalse(sim.isViable());
+        String[] last = sim.getRecord().getData().get(sim.getRecord().getData().size() - 1);
+        assertEquals("0", last[1]);
+    }
+
+    @Test
+    void simulate_whenHeadlessNetwork_shouldRecordEveryStep() {
+        Simulator net = new Simulator.SimulationBuilder()
+                .setDepth(20)
+                .setWidth(20)
+                .setField(FieldType.NETWORK)
+                .setHeadless(true)
+                .build();
+        net.simulate(5);
+        assertEquals(net.getStep() + 1, net.getRecord().getCounts().size());
+    }
+
+    @Test
+    void simulate_whenStreaming_shouldWriteRecordToFile(@TempDir Path dir) throws Exception {
+        String path = dir.resolve("run").toString();
+        Simulator streamed = new Simulator.SimulationBuilder()
+                .setDepth(20)
+                .setWidth(20)
+                .setField(FieldType.GRID)
+                .setHeadless(true)
+                .streamTo(path, false)
+                .build();
+        streamed.simulate();
+        assertTrue(streamed.getRecord().getCounts().isEmpty());
+        // three header rows, then one row for the start and one per step
+        assertEquals(3 + streamed.getStep() + 1, Files.readAllLines(Path.of(path + ".csv")).size());
+    }
+
+    @Test
+    void simulate_whenInstrumented_shouldTimeEveryStep() {
+        assertNull(sim.getMetrics());
+        Simulator timed = new Simulator.SimulationBuilder()
+                .setDepth(20)
+                .setWidth(20)
+                .setField(FieldType.GRID)
+                .setHeadless(true)
+                .setInstrumented(true)
+                .build();
+        timed.simulate(5);
+        SimulationMetrics m = timed.getMetrics();
+        assertEquals(timed.getStep(), m.getSteps());
+        assertEquals(timed.getStep(), m.getHistogram(Phase.MOVEMENT).getCount());
+        assertTrue(m.getStepsPerSecond() > 0);
+        assertTrue(m.getTotalAgentsMoved() > 0);
+    }
+
+    @Test
+    void simulate_whenRecording_shouldEmitFlightRecorderEvents(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("run.jfr");
+        try (Recording r = new Recording()) {
+            r.enable("simulator.Phase");
+            r.enable("simulator.Step");
+            r.start();
+            sim.simulate(3);
+            r.stop();
+            r.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        long steps = events.stream().filter(e -> e.getEventType().getName().equals("simulator.Step")).count();
+        long phases = events.stream().filter(e -> e.getEventType().getName().equals("simulator.Phase")).count();
+        assertEquals(sim.getStep(), steps);
+        assertEquals(sim.getStep() * Phase.values().length, phases);
+    }
+}
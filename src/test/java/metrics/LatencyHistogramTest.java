@@ -0,0 +1,43 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void bucketOf_shouldStartAtTheLowestValueOfItsBucket() {
+        for (long v : new long[] {0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            int b = LatencyHistogram.bucketOf(v);
+            assertTrue(LatencyHistogram.lowestOf(b) <= v);
+            if (v < Long.MAX_VALUE) {
+                assertTrue(LatencyHistogram.bucketOf(v + 1) >= b);
+            }
+        }
+    }
+
+    @Test
+    void getPercentile_shouldBeWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000L);
+        }
+        assertEquals(1000, h.getCount());
+        assertEquals(1000, h.getMin());
+        assertEquals(1_000_000, h.getMax());
+        assertEquals(500_500, h.getMean(), 1e-9);
+        long p50 = h.getPercentile(50);
+        assertTrue(p50 <= 500_000 && p50 > 500_000 * 0.875, "p50 was " + p50);
+        assertEquals(1000, h.getPercentile(0));
+    }
+
+    @Test
+    void reset_shouldEmptyTheHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(42);
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getPercentile(99));
+    }
+}
@@ -0,0 +1,135 @@
+package models;
+
+import actors.Agent;
+import data.SimConfig;
+import data.SimData;
+import environment.FieldType;
+import environment.Grid;
+import environment.Location;
+import main.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompartmentModelTest {
+
+    private static SimConfig config(ModelType type) {
+        SimConfig c = new SimConfig();
+        c.setModelType(type);
+        c.setAgentProbability(0.3);
+        c.setAgentZeroProbability(0.05);
+        return c;
+    }
+
+    private static Simulator headless() {
+        return new Simulator.SimulationBuilder()
+                .setDepth(20)
+                .setWidth(20)
+                .setField(FieldType.GRID)
+                .setHeadless(true)
+                .build();
+    }
+
+    @Test
+    void sir_shouldRecordSusceptibleInfectedRecovered() {
+        CompartmentModel m = config(ModelType.SIR).getModel();
+        assertEquals(List.of(Compartment.SUSCEPTIBLE, Compartment.INFECTED, Compartment.RECOVERED),
+                m.getCompartments());
+        assertEquals(Compartment.INFECTED, m.onInfection());
+    }
+
+    @Test
+    void seird_shouldRecordEveryCompartmentInOrder() {
+        CompartmentModel m = config(ModelType.SEIRD).getModel();
+        assertEquals(List.of(Compartment.SUSCEPTIBLE, Compartment.EXPOSED, Compartment.INFECTED,
+                Compartment.RECOVERED, Compartment.DEAD), m.getCompartments());
+        assertEquals(Compartment.EXPOSED, m.onInfection());
+    }
+
+    @Test
+    void seir_exposedAgentShouldBecomeInfectedAfterLatentPeriod() {
+        SimConfig c = config(ModelType.SEIR);
+        c.setLatentPeriodMin(3);
+        c.setLatentPeriodMax(3);
+        SimData.runWith(c, () -> {
+            Grid g = new Grid(3, 3);
+            Location l = new Location(1, 1);
+            Agent ag = new Agent(l);
+            g.place(l, ag);
+            ag.setCompartment(c.getModel().onInfection());
+            for (int i = 0; i < 3; i++) {
+                ag.act(g);
+                assertEquals(Compartment.EXPOSED, ag.getCompartment());
+            }
+            ag.act(g);
+            assertEquals(Compartment.INFECTED, ag.getCompartment());
+            return null;
+        });
+    }
+
+    @Test
+    void seird_whenAlwaysFatal_deadAgentsShouldStayPut() {
+        SimConfig c = config(ModelType.SEIRD);
+        c.setFatalityProbability(1.0);
+        SimData.runWith(c, () -> {
+            Grid g = new Grid(3, 3);
+            Location l = new Location(1, 1);
+            Agent ag = new Agent(l);
+            g.place(l, ag);
+            ag.setCompartment(Compartment.INFECTED);
+            ag.setHealth(0);
+            ag.act(g);
+            assertEquals(Compartment.DEAD, ag.getCompartment());
+            Location at = ag.getLocation();
+            ag.act(g);
+            assertEquals(at, ag.getLocation());
+            return null;
+        });
+    }
+
+    @Test
+    void sirs_recoveredAgentShouldBecomeSusceptibleAgain() {
+        SimConfig c = config(ModelType.SIRS);
+        c.setImmunityPeriod(1);
+        SimData.runWith(c, () -> {
+            Grid g = new Grid(3, 3);
+            Location l = new Location(1, 1);
+            Agent ag = new Agent(l);
+            g.place(l, ag);
+            ag.setCompartment(Compartment.INFECTED);
+            ag.setHealth(0);
+            ag.act(g);
+            assertEquals(Compartment.RECOVERED, ag.getCompartment());
+            ag.act(g);
+            assertEquals(Compartment.SUSCEPTIBLE, ag.getCompartment());
+            return null;
+        });
+    }
+
+    @Test
+    void seird_simulation_shouldRecordModelColumnsAndRunToExtinction() {
+        SimData.runWith(config(ModelType.SEIRD), () -> {
+            Simulator sim = headless();
+            String[] header = sim.getRecord().getFullRecord().get(2);
+            assertArrayEquals(new String[] {"Susceptible", "Exposed", "Infected", "Recovered", "Dead"}, header);
+            sim.simulate();
+            assertFalse(sim.isViable());
+            int[] first = sim.getRecord().getCounts().get(0);
+            int[] last = sim.getRecord().getCounts().get(sim.getStep());
+            assertEquals(0, last[1]);
+            assertEquals(0, last[2]);
+            assertEquals(sum(first), sum(last));
+            return null;
+        });
+    }
+
+    private static int sum(int[] row) {
+        int total = 0;
+        for (int n : row) {
+            total += n;
+        }
+        return total;
+    }
+}